@@ -1,20 +1,44 @@
 package edu.uiowa.cs.warp;
 
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
 /**
+ * ChannelAnalysis checks the channel usage of a WARP program for two kinds of conflicts:<br>
+ * (1) two instructions that transmit on the same channel in the same time slot for different flows,
+ * where the push and else pull clauses of one instruction, and the pipelined hops of one flow that
+ * the scheduler places on one channel, count as one conditional chain, and<br>
+ * (2) a node that uses the same channel in consecutive time slots, where a node uses every channel
+ * in its instruction (push, pull, and wait).
+ * <p>
+ *
+ * The usage is kept in bitmaps with one bit per channel: one bitmap of transmit channels per time
+ * slot and one bitmap per node per time slot. The transmissions come from the parsed
+ * {@link TransmissionSchedule}, and node usage from the '#' channel references in each schedule
+ * entry, so building the bitmaps and checking them are both linear in the size of the schedule.
+ * Ranges of time slots are built and checked in parallel, and conflicts are reported in time order.
+ *
  * @author sgoddard
  * @version 1.4
  *
  */
 public class ChannelAnalysis {
 
+  private static final int SLOTS_PER_RANGE = 1024; // time slots scanned by one parallel task
+
   private Program program;
   private ProgramSchedule programTable;
   private Boolean conflictExists;
+  private TransmissionSchedule ts;
+  private String[] nodeNames; // schedule columns
+  private int numChannels;
+  private int words; // longs per bitmap
+  private long[] slotChannels; // [t * words + w]: channels transmitted on in slot t
+  private long[] nodeChannels; // [(t * numNodes + node) * words + w]: channels node uses in slot t
+  private Description conflicts; // computed on demand
 
   ChannelAnalysis(WarpInterface warp) {
-    this.program = warp.toProgram();
-    this.programTable = program.getSchedule();
-    conflictExists = false;
+    this(warp.toProgram());
   }
 
   ChannelAnalysis(Program program) {
@@ -23,7 +47,206 @@ public class ChannelAnalysis {
     conflictExists = false;
   }
 
+  /**
+   * @return true if the program has a channel conflict
+   */
   public Boolean isChannelConflict() {
+    getConflicts();
     return conflictExists;
   }
+
+  /**
+   * @return one line per channel conflict, in time slot order; empty when there are none
+   */
+  public Description getConflicts() {
+    if (conflicts == null) {
+      analyze();
+    }
+    return conflicts;
+  }
+
+  /**
+   * @return the number of channels available to the program
+   */
+  public int getNumChannels() {
+    return program.getNumChannels();
+  }
+
+  /**
+   * @return true if some instruction transmits on channel in time slot t
+   */
+  public boolean isChannelUsed(int t, int channel) {
+    getConflicts();
+    return channel >= 0 && channel < numChannels
+        && (slotChannels[t * words + (channel >> 6)] & (1L << channel)) != 0;
+  }
+
+  /**
+   * Creates the channel usage table: for each time slot and channel, the names of the nodes whose
+   * instructions transmit on the channel in the slot, separated by commas, or an empty string when
+   * the channel isn't used.
+   *
+   * @return table[t][channel]
+   */
+  public String[][] getChannelUsage() {
+    getConflicts();
+    var numSlots = ts.getNumSlots();
+    var table = new String[numSlots][numChannels];
+    IntStream.range(0, numRanges(numSlots)).parallel().forEach(range -> {
+      var users = new StringBuilder[numChannels];
+      var lastInstruction = new int[numChannels]; // if/else clauses of one instruction share a channel
+      Arrays.fill(lastInstruction, -1);
+      for (int t = range * SLOTS_PER_RANGE; t < rangeEnd(range, numSlots); t++) {
+        for (int i = ts.slotInstructionStart(t); i < ts.slotInstructionEnd(t); i++) {
+          for (int a = ts.instructionAttemptStart(i); a < ts.instructionAttemptEnd(i); a++) {
+            var channel = ts.attemptChannel(a);
+            if (channel < 0 || channel >= numChannels || lastInstruction[channel] == i) {
+              continue;
+            }
+            lastInstruction[channel] = i;
+            var name = nodeNames[ts.attemptCoordinator(a)];
+            users[channel] = (users[channel] == null) ? new StringBuilder(name)
+                : users[channel].append(", ").append(name);
+          }
+        }
+        for (int channel = 0; channel < numChannels; channel++) {
+          table[t][channel] = (users[channel] == null) ? "" : users[channel].toString();
+          users[channel] = null;
+        }
+      }
+    });
+    return table;
+  }
+
+  /**
+   * @return the program analyzed
+   */
+  public Program getProgram() {
+    return program;
+  }
+
+  private void analyze() {
+    ts = program.getTransmissionSchedule();
+    nodeNames = program.toWorkLoad().getNodeNamesOrderedAlphabetically();
+    numChannels = program.getNumChannels();
+    words = Math.max((numChannels + 63) >> 6, 1);
+    var numSlots = ts.getNumSlots();
+    var numNodes = nodeNames.length;
+    slotChannels = new long[numSlots * words];
+    nodeChannels = new long[numSlots * numNodes * words];
+    var numRanges = numRanges(numSlots);
+    var found = new Description[numRanges];
+    /* build all bitmaps first, so the consecutive slot check can look across ranges */
+    IntStream.range(0, numRanges).parallel().forEach(range -> {
+      found[range] = new Description();
+      var owner = new int[numChannels]; // first attempt on each channel in the current slot
+      var reported = new int[numChannels]; // last instruction reported for using each channel
+      Arrays.fill(reported, -1);
+      for (int t = range * SLOTS_PER_RANGE; t < rangeEnd(range, numSlots); t++) {
+        buildSlot(t, numNodes, owner, reported, found[range]);
+      }
+    });
+    IntStream.range(0, numRanges).parallel().forEach(range -> {
+      for (int t = Math.max(range * SLOTS_PER_RANGE, 1); t < rangeEnd(range, numSlots); t++) {
+        checkConsecutive(t, numNodes, found[range]);
+      }
+    });
+    conflicts = new Description();
+    for (Description rangeConflicts : found) {
+      conflicts.addAll(rangeConflicts);
+    }
+    conflictExists = !conflicts.isEmpty();
+  }
+
+  /*
+   * sets the bitmaps of slot t and reports two instructions transmitting on one channel, once per
+   * instruction and channel (the if and else clauses of an instruction use the same channel)
+   */
+  private void buildSlot(int t, int numNodes, int[] owner, int[] reported, Description found) {
+    var base = t * words;
+    for (int i = ts.slotInstructionStart(t); i < ts.slotInstructionEnd(t); i++) {
+      for (int a = ts.instructionAttemptStart(i); a < ts.instructionAttemptEnd(i); a++) {
+        var channel = ts.attemptChannel(a);
+        if (channel < 0 || channel >= numChannels) {
+          if (isChannelUsedEarlier(i, a)) {
+            continue;
+          }
+          found.add(String.format(
+              "Time slot %d: %s transmits on channel %s, which is not one of the %d channels\n", t,
+              nodeNames[ts.attemptCoordinator(a)], (channel < 0) ? "UNKNOWN" : channel,
+              numChannels));
+          continue;
+        }
+        var word = base + (channel >> 6);
+        var bit = 1L << channel;
+        if ((slotChannels[word] & bit) == 0) {
+          slotChannels[word] |= bit;
+          owner[channel] = a;
+        } else if (owner[channel] < ts.instructionAttemptStart(i)
+            && ts.attemptFlow(owner[channel]) != ts.attemptFlow(a) && reported[channel] != i) {
+          reported[channel] = i;
+          found.add(String.format("Time slot %d: channel %d is used by both %s and %s\n", t, channel,
+              nodeNames[ts.attemptCoordinator(owner[channel])], nodeNames[ts.attemptCoordinator(a)]));
+        }
+      }
+    }
+    for (int node = 0; node < numNodes; node++) {
+      var instruction = programTable.get(t, node);
+      if (instruction != null) {
+        markChannels(instruction, nodeChannels, (t * numNodes + node) * words);
+      }
+    }
+  }
+
+  /* true if an attempt of instruction i before attempt a uses the channel of attempt a */
+  private boolean isChannelUsedEarlier(int i, int a) {
+    for (int b = ts.instructionAttemptStart(i); b < a; b++) {
+      if (ts.attemptChannel(b) == ts.attemptChannel(a)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* reports nodes that use a channel in both slot t-1 and slot t */
+  private void checkConsecutive(int t, int numNodes, Description found) {
+    for (int node = 0; node < numNodes; node++) {
+      var current = (t * numNodes + node) * words;
+      var prior = current - numNodes * words;
+      for (int w = 0; w < words; w++) {
+        var reused = nodeChannels[current + w] & nodeChannels[prior + w];
+        while (reused != 0) {
+          var channel = (w << 6) + Long.numberOfTrailingZeros(reused);
+          found.add(String.format("Time slot %d: %s uses channel %d in time slots %d and %d\n", t,
+              nodeNames[node], channel, t - 1, t));
+          reused &= reused - 1;
+        }
+      }
+    }
+  }
+
+  /* sets the bit of each #channel in the instruction */
+  private void markChannels(String instruction, long[] bitmaps, int base) {
+    var index = instruction.indexOf('#');
+    while (index >= 0) {
+      var channel = 0;
+      var end = index + 1;
+      while (end < instruction.length() && Character.isDigit(instruction.charAt(end))
+          && channel < numChannels) {
+        channel = 10 * channel + instruction.charAt(end++) - '0';
+      }
+      if (end > index + 1 && channel < numChannels) {
+        bitmaps[base + (channel >> 6)] |= 1L << channel;
+      }
+      index = instruction.indexOf('#', end);
+    }
+  }
+
+  private static int numRanges(int numSlots) {
+    return (numSlots + SLOTS_PER_RANGE - 1) / SLOTS_PER_RANGE;
+  }
+
+  private static int rangeEnd(int range, int numSlots) {
+    return Math.min((range + 1) * SLOTS_PER_RANGE, numSlots);
+  }
 }
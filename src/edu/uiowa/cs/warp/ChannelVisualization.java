@@ -3,10 +3,11 @@ package edu.uiowa.cs.warp;
 /**
  * ChannelVisualization creates the visualizations for the channel analysis of the WARP program.
  * <p>
- * 
- * CS2820 Fall 2022 Project: Implement this class to create the file visualization that is requested
- * in Warp.
- * 
+ *
+ * The visualization is a table with one row per time slot and one column per channel, where each
+ * entry lists the nodes whose instructions transmit on the channel in the time slot. The footer
+ * lists the channel conflicts found by {@link ChannelAnalysis}.
+ *
  * @author sgoddard
  * @version 1.4
  *
@@ -16,11 +17,71 @@ public class ChannelVisualization extends VisualizationObject {
   private static final String SOURCE_SUFFIX = ".ch";
   private static final String OBJECT_NAME = "Channel Analysis";
   private WarpInterface warp;
-  private ChannelAnalysis ca;
 
   ChannelVisualization(WarpInterface warp) {
     super(new FileManager(), warp, SOURCE_SUFFIX);
     this.warp = warp;
-    this.ca = warp.toChannelAnalysis();
+  }
+
+  @Override
+  public GuiVisualization displayVisualization() {
+    return new GuiVisualization(createTitle(), createColumnHeader(), createVisualizationData());
+  }
+
+  @Override
+  protected Description createHeader() {
+    Description header = new Description();
+    var ca = warp.toChannelAnalysis();
+    var program = ca.getProgram();
+
+    header.add(createTitle());
+    header.add(String.format("Scheduler Name: %s\n", program.getSchedulerName()));
+    header.add(String.format("nChannels: %d\n", ca.getNumChannels()));
+    return header;
+  }
+
+  @Override
+  protected Description createFooter() {
+    Description footer = new Description();
+    var conflicts = warp.toChannelAnalysis().getConflicts();
+
+    if (conflicts.isEmpty()) {
+      footer.add("// No channel conflicts\n");
+    } else {
+      footer.add(String.format("// WARNING: %d channel conflicts:\n", conflicts.size()));
+      for (String conflict : conflicts) {
+        footer.add(String.format("// %s", conflict));
+      }
+    }
+    return footer;
+  }
+
+  @Override
+  protected String[] createColumnHeader() {
+    var numChannels = warp.toChannelAnalysis().getNumChannels();
+    String[] columnNames = new String[numChannels + 1];
+    columnNames[0] = "Time Slot";
+    for (int channel = 0; channel < numChannels; channel++) {
+      columnNames[channel + 1] = String.valueOf(channel);
+    }
+    return columnNames;
+  }
+
+  @Override
+  protected String[][] createVisualizationData() {
+    if (visualizationData == null) {
+      var usage = warp.toChannelAnalysis().getChannelUsage();
+      visualizationData = new String[usage.length][];
+      for (int row = 0; row < usage.length; row++) {
+        visualizationData[row] = new String[usage[row].length + 1];
+        visualizationData[row][0] = String.valueOf(row);
+        System.arraycopy(usage[row], 0, visualizationData[row], 1, usage[row].length);
+      }
+    }
+    return visualizationData;
+  }
+
+  private String createTitle() {
+    return String.format("%s for graph %s\n", OBJECT_NAME, warp.toProgram().getName());
   }
 }
@@ -0,0 +1,224 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * FaultToleranceAnalysis verifies that a WARP program built for the fixed fault model (-f
+ * numFaults) tolerates numFaults faults in every flow instance. For each flow instance it computes
+ * the worst-case slot in which the message reaches the flow's sink when an adversary may fail up to
+ * numFaults of the instance's scheduled attempts.
+ * <p>
+ *
+ * By default the faults may fall on any edges of the flow, which is the guarantee the schedulers
+ * provide: retries of an edge share slots with the next edge's attempts through if/else
+ * instructions, so a flow instance tolerates numFaults faults in total. Optionally, numFaults
+ * faults may be allowed on each edge.
+ * <p>
+ *
+ * The worst case is computed by dynamic programming over the edges of the flow. A later arrival at
+ * a node never lets the message reach the sink earlier, so when the adversary spends m faults on an
+ * edge it fails the first m attempts made after the edge's src node receives the message. For each
+ * number of faults j used so far, the DP keeps the latest slot in which the current node can
+ * receive the message, and the next node's value for j+m is the (m+1)-th attempt on the edge after
+ * it. The attempts on an edge after a slot are found by binary search in the transmission
+ * schedule's sorted slots of the edge's attempts, so the analysis needs O(numFaults) binary searches
+ * per edge of each flow instance. Flows are analyzed in parallel.
+ * <p>
+ *
+ * As in the reliability analysis, a message received in a slot can be forwarded starting in the
+ * next slot, and an instance's attempts are those between its release and the next release of the
+ * flow.
+ */
+public class FaultToleranceAnalysis {
+
+  public static final int UNKNOWN = -1; // the message may not reach the sink
+  private static final int NONE = Integer.MIN_VALUE; // no arrival with this many faults
+
+  private final Program program;
+  private final TransmissionSchedule ts;
+  private final int numFaults;
+  private final boolean faultsPerEdge;
+  private int[][] worstCaseDeliverySlots; // computed on demand
+
+  FaultToleranceAnalysis(WarpInterface warp) {
+    this(warp.toProgram(), false);
+  }
+
+  FaultToleranceAnalysis(Program program) {
+    this(program, false);
+  }
+
+  /**
+   * @param program the program to analyze
+   * @param faultsPerEdge true to allow numFaults faults on each edge of a flow instance, false to
+   *        allow numFaults faults in total on the edges of a flow instance
+   */
+  FaultToleranceAnalysis(Program program, Boolean faultsPerEdge) {
+    this.program = program;
+    this.ts = program.getTransmissionSchedule();
+    this.numFaults = program.getNumFaults();
+    this.faultsPerEdge = faultsPerEdge;
+  }
+
+  /**
+   * @return the number of faults tolerated per flow instance, or per edge
+   */
+  public int getNumFaults() {
+    return numFaults;
+  }
+
+  /**
+   * @return true if numFaults faults are allowed on each edge, false if numFaults faults are
+   *         allowed per flow instance
+   */
+  public Boolean getFaultsPerEdge() {
+    return faultsPerEdge;
+  }
+
+  /**
+   * @return slots[f][k], the worst-case slot in which instance k of flow f reaches its sink, or
+   *         UNKNOWN if numFaults faults can keep it from reaching its sink. Flows are
+   *         indexed in priority order.
+   */
+  public int[][] getWorstCaseDeliverySlots() {
+    var slots = worstCaseDeliverySlots();
+    var copy = new int[slots.length][];
+    for (int f = 0; f < copy.length; f++) {
+      copy[f] = slots[f].clone();
+    }
+    return copy;
+  }
+
+  /**
+   * @return the worst-case latency of instance k of flow f, in slots from its release, or UNKNOWN
+   */
+  public int getWorstCaseLatency(int f, int k) {
+    var slot = worstCaseDeliverySlots()[f][k];
+    return (slot == UNKNOWN) ? UNKNOWN : slot - ts.getReleaseTime(f, k) + 1;
+  }
+
+  /**
+   * Method to verify that every instance of every flow reaches its sink by its deadline with up to
+   * numFaults faults. Flows are checked in parallel, and the check stops at the first
+   * instance that fails.
+   *
+   * @return true if all flow instances tolerate numFaults faults
+   */
+  public Boolean verifyFaultTolerance() {
+    if (worstCaseDeliverySlots != null) {
+      return IntStream.range(0, ts.getNumFlows())
+          .allMatch(f -> meetsDeadline(f, worstCaseDeliverySlots[f]));
+    }
+    return IntStream.range(0, ts.getNumFlows()).parallel()
+        .allMatch(f -> meetsDeadline(f, propagate(f)));
+  }
+
+  /**
+   * Method to find the flows that don't tolerate numFaults faults.
+   *
+   * @return the failing flows, in priority order, mapped to the largest worst-case latency of their
+   *         instances, or UNKNOWN if an instance may not reach its sink; empty when all flows
+   *         tolerate numFaults faults
+   */
+  public LinkedHashMap<String, Integer> getFaultToleranceFailures() {
+    var slots = worstCaseDeliverySlots();
+    var failures = new LinkedHashMap<String, Integer>();
+    for (int f = 0; f < slots.length; f++) {
+      if (!meetsDeadline(f, slots[f])) {
+        var worstLatency = 0;
+        for (int k = 0; k < slots[f].length; k++) {
+          var latency = getWorstCaseLatency(f, k);
+          if (latency == UNKNOWN) {
+            worstLatency = UNKNOWN;
+            break;
+          }
+          worstLatency = Math.max(worstLatency, latency);
+        }
+        failures.put(ts.getFlowName(f), worstLatency);
+      }
+    }
+    return failures;
+  }
+
+  /**
+   * @return the program analyzed
+   */
+  public Program getProgram() {
+    return program;
+  }
+
+  private int[][] worstCaseDeliverySlots() {
+    if (worstCaseDeliverySlots == null) {
+      worstCaseDeliverySlots = IntStream.range(0, ts.getNumFlows()).parallel()
+          .mapToObj(this::propagate).toArray(int[][]::new);
+    }
+    return worstCaseDeliverySlots;
+  }
+
+  private boolean meetsDeadline(int f, int[] slots) {
+    for (int k = 0; k < slots.length; k++) {
+      if (slots[k] == UNKNOWN || slots[k] - ts.getReleaseTime(f, k) >= ts.getDeadline(f)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Computes the worst-case delivery slot of each instance of flow f. Edge by edge, latest[j] is
+   * the latest slot in which the edge's src node can receive the message when the adversary has
+   * used j faults so far, and the edge's attempts in the instance window are found in the
+   * link-major view of the transmission schedule.
+   *
+   * @param f the flow index, in priority order
+   * @return the worst-case delivery slot of each instance, or UNKNOWN
+   */
+  private int[] propagate(int f) {
+    var numInstances = ts.getNumInstances(f);
+    var numHops = ts.getFlowLength(f) - 1;
+    var offset = ts.getFlowNodeOffset(f);
+    var numStates = faultsPerEdge ? 1 : numFaults + 1; // number of faults used so far
+    var slots = new int[numInstances];
+    var latest = new int[numStates];
+    var next = new int[numStates];
+    for (int k = 0; k < numInstances; k++) {
+      var release = ts.getReleaseTime(f, k);
+      var windowEnd = ts.getWindowEnd(f, k);
+      Arrays.fill(latest, NONE);
+      latest[0] = release - 1; // the src can transmit starting at the release
+      var blocked = false; // true when the faults can keep the message from the sink
+      for (int h = 0; h < numHops && !blocked; h++) {
+        Arrays.fill(next, NONE);
+        var link = offset + h;
+        var hopEnd = ts.linkAttemptAtOrAfter(link, windowEnd); // attempts of the instance end here
+        for (int j = 0; j < numStates && !blocked; j++) {
+          if (latest[j] == NONE) {
+            continue; // the adversary can't have used j faults
+          }
+          /* first attempt on edge h after the src node receives the message */
+          var index = ts.linkAttemptAtOrAfter(link, latest[j] + 1);
+          if (faultsPerEdge) { // fail the first numFaults attempts on the edge
+            blocked = index + numFaults >= hopEnd;
+            next[0] = blocked ? NONE : ts.linkAttemptSlot(index + numFaults);
+          } else { // fail the first m attempts on the edge, for each m within the budget
+            for (int m = 0; j + m < numStates && !blocked; m++) {
+              blocked = index + m >= hopEnd;
+              next[j + m] = blocked ? NONE : Math.max(next[j + m], ts.linkAttemptSlot(index + m));
+            }
+          }
+        }
+        var swap = latest;
+        latest = next;
+        next = swap;
+      }
+      var delivered = NONE;
+      for (int j = 0; j < numStates; j++) {
+        delivered = Math.max(delivered, latest[j]);
+      }
+      slots[k] = blocked ? UNKNOWN : Math.max(delivered, release);
+    }
+    return slots;
+  }
+}
@@ -1,11 +1,22 @@
 package edu.uiowa.cs.warp;
 
 import com.mkyong.system.OSValidator;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import javax.swing.JFileChooser;
 
 /**
@@ -16,6 +27,10 @@ import javax.swing.JFileChooser;
 public class FileManager {
   // uncomment next line to tag course file
   // private static final String COURSE_TAG = "// Course CS2820 Authentication Tag";
+  public static final String GZIP_SUFFIX = ".gz";
+  private static final int WRITE_BUFFER_SIZE = 1 << 16; // characters buffered by openWriter
+  private static final int GZIP_BUFFER_SIZE = 1 << 16; // bytes deflated or inflated at a time
+  private static Boolean compressOutput = false; // write text output files gzipped
   private String baseDirectory;
   private Boolean verbose;
 
@@ -76,6 +91,9 @@ public class FileManager {
      * we don't actually create the file...it will be created when written to this routine really
      * just creates the file name ;-)
      */
+    if (file.endsWith(GZIP_SUFFIX)) { // a gzipped input file has two suffixes, e.g., .txt.gz
+      file = file.substring(0, file.length() - GZIP_SUFFIX.length());
+    }
     Integer suffixIndex = file.lastIndexOf('.');
     String fileString = file;
     if (suffixIndex > 0) { // if a suffix exists, index will be > 0
@@ -142,12 +160,69 @@ public class FileManager {
     } // the file will be closed automatically upon exit of this try block
   }
 
+  /**
+   * Opens file for writing text, replacing its contents. The writer is buffered, so it can be
+   * written one row or character at a time; the caller closes it. A file whose name ends in .gz is
+   * compressed as it's written.
+   *
+   * @param file the file to write
+   * @return a buffered UTF-8 writer of the file
+   * @throws IOException if the file can't be opened
+   */
+  public Writer openWriter(String file) throws IOException {
+    var out = Files.newOutputStream(Path.of(file));
+    if (file.endsWith(GZIP_SUFFIX)) {
+      out = new GZIPOutputStream(out, GZIP_BUFFER_SIZE);
+    }
+    return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+        WRITE_BUFFER_SIZE);
+  }
+
+  /**
+   * Opens file for reading. A gzipped file, recognized by its magic number rather than its name,
+   * is decompressed as it's read.
+   *
+   * @param file the file to read
+   * @return a buffered stream of the (decompressed) file contents
+   * @throws IOException if the file can't be opened
+   */
+  public InputStream openInputStream(String file) throws IOException {
+    var in = new BufferedInputStream(Files.newInputStream(Path.of(file)), GZIP_BUFFER_SIZE);
+    in.mark(2);
+    var isGzip = in.read() == (GZIPInputStream.GZIP_MAGIC & 0xff)
+        && in.read() == (GZIPInputStream.GZIP_MAGIC >> 8);
+    in.reset();
+    return isGzip ? new BufferedInputStream(new GZIPInputStream(in, GZIP_BUFFER_SIZE)) : in;
+  }
+
+  /**
+   * @param file the text file to read, which may be gzipped
+   * @return a buffered UTF-8 reader of the file; the caller closes it
+   * @throws IOException if the file can't be opened
+   */
+  public BufferedReader openReader(String file) throws IOException {
+    return new BufferedReader(new InputStreamReader(openInputStream(file), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @param compress true to write text output files gzipped (with a .gz suffix)
+   */
+  public static void setCompressOutput(Boolean compress) {
+    compressOutput = compress;
+  }
+
+  /**
+   * @return true if text output files are written gzipped
+   */
+  public static Boolean getCompressOutput() {
+    return compressOutput;
+  }
+
   public String readFile(String file) {
     // String contents = null;
-    Path fileName = Path.of(file);
     String contents = null;
-    try {
-      contents = Files.readString(fileName);
+    try (var in = openInputStream(file)) { // gzipped files are decompressed
+      contents = new String(in.readAllBytes(), StandardCharsets.UTF_8);
     } catch (IOException e) {
       // handle error
       System.err.println("Error on reading file" + file + ": " + e.getMessage());
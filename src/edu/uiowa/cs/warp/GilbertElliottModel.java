@@ -0,0 +1,283 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+
+/**
+ * GilbertElliottModel is a two-state Markov (Gilbert-Elliott) model of bursty links. Each link's
+ * channel is either good or bad, and it changes state at the end of each time slot with
+ * probability pGoodToBad (good to bad) or pBadToGood (bad to good). An attempt on the link succeeds
+ * with probability badPrr in the bad state and with the good-state probability otherwise.
+ * <p>
+ *
+ * The good-state probability is chosen so that the long-run success probability of the link is its
+ * packet reception rate (M or the PRR in the link quality file), i.e., pi_good * goodPrr + pi_bad *
+ * badPrr = prr, where pi is the stationary distribution of the channel. The model then differs
+ * from independent attempts only in how failures are grouped into bursts. When the rate can't be
+ * reached because badPrr is too low for the time spent in the bad state, goodPrr is 1.0.
+ * <p>
+ *
+ * The channel states of a flow's links are propagated through the schedule with {@link FlowState}.
+ */
+public class GilbertElliottModel {
+
+  private final double pGoodToBad;
+  private final double pBadToGood;
+  private final double badPrr;
+  private final double stationaryBad; // pi_bad
+  private final double lambda; // 1 - pGoodToBad - pBadToGood, the decay of a state deviation per slot
+  private final double[] lambdaPowers; // lambda^n for small n
+
+  private static final int NUM_POWERS = 256;
+
+  /**
+   * @param pGoodToBad probability that a good channel turns bad in a slot, in [0, 1)
+   * @param pBadToGood probability that a bad channel turns good in a slot, in (0, 1]
+   * @param badPrr success probability of an attempt in the bad state, in [0, 1)
+   * @throws IllegalArgumentException if a parameter is out of range
+   */
+  public GilbertElliottModel(double pGoodToBad, double pBadToGood, double badPrr) {
+    if (!(pGoodToBad >= 0.0 && pGoodToBad < 1.0) || !(pBadToGood > 0.0 && pBadToGood <= 1.0)
+        || !(badPrr >= 0.0 && badPrr < 1.0)) {
+      throw new IllegalArgumentException(String.format(
+          "Gilbert-Elliott parameters pGoodToBad=%s, pBadToGood=%s, badPrr=%s are out of range",
+          pGoodToBad, pBadToGood, badPrr));
+    }
+    this.pGoodToBad = pGoodToBad;
+    this.pBadToGood = pBadToGood;
+    this.badPrr = badPrr;
+    this.stationaryBad = pGoodToBad / (pGoodToBad + pBadToGood);
+    this.lambda = 1.0 - pGoodToBad - pBadToGood;
+    this.lambdaPowers = new double[NUM_POWERS];
+    lambdaPowers[0] = 1.0;
+    for (int n = 1; n < NUM_POWERS; n++) {
+      lambdaPowers[n] = lambdaPowers[n - 1] * lambda;
+    }
+  }
+
+  /**
+   * Creates a model from a comma separated list: pGoodToBad,pBadToGood[,badPrr]. badPrr defaults to
+   * 0.0.
+   *
+   * @param parameters the parameter list
+   * @return the model
+   * @throws IllegalArgumentException if the list is malformed or a parameter is out of range
+   */
+  public static GilbertElliottModel valueOf(String parameters) {
+    var fields = parameters.trim().split("\\s*,\\s*");
+    if (fields.length < 2 || fields.length > 3) {
+      throw new IllegalArgumentException(
+          "Gilbert-Elliott parameters must be pGoodToBad,pBadToGood[,badPrr]: " + parameters);
+    }
+    try {
+      var badPrr = (fields.length == 3) ? Double.parseDouble(fields[2]) : 0.0;
+      return new GilbertElliottModel(Double.parseDouble(fields[0]), Double.parseDouble(fields[1]),
+          badPrr);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Gilbert-Elliott parameters must be numbers: " + parameters);
+    }
+  }
+
+  public double getPGoodToBad() {
+    return pGoodToBad;
+  }
+
+  public double getPBadToGood() {
+    return pBadToGood;
+  }
+
+  public double getBadPrr() {
+    return badPrr;
+  }
+
+  /**
+   * @return the stationary probability that a channel is in the bad state
+   */
+  public double getStationaryBad() {
+    return stationaryBad;
+  }
+
+  /**
+   * @return the good-state success probability of a link whose long-run success probability is prr
+   */
+  public double goodPrr(double prr) {
+    var good = (prr - stationaryBad * badPrr) / (1.0 - stationaryBad);
+    return Math.min(1.0, Math.max(good, badPrr));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s,%s,%s", pGoodToBad, pBadToGood, badPrr);
+  }
+
+  /**
+   * Advances the joint probability (good, bad) stored at v[i], v[i+1] by n slots. The total is
+   * preserved and the bad share decays geometrically toward the stationary distribution, so this
+   * is one 2x2 matrix power applied in closed form.
+   */
+  void advance(double[] v, int i, int n) {
+    if (n <= 0) {
+      return;
+    }
+    var total = v[i] + v[i + 1];
+    var power = (n < NUM_POWERS) ? lambdaPowers[n] : Math.pow(lambda, n);
+    var bad = total * stationaryBad + (v[i + 1] - total * stationaryBad) * power;
+    v[i] = total - bad;
+    v[i + 1] = bad;
+  }
+
+  /**
+   * FlowState propagates one instance of a flow's message together with the channel states of the
+   * flow's links. The message is at a single position, the furthest node that has it, and an
+   * attempt on link h can only move it when it is at node h. For each position h the state holds
+   * the joint probability of (message at h, channel of link h good/bad). Before the message reaches
+   * node h, link h is not used by the instance, so its channel is independent of the message
+   * position and evolves from its distribution at the release. After the message passes, the
+   * channel's state keeps evolving so that the next instance starts from each link's current
+   * distribution. Channels of different links are treated as independent at each release.
+   * <p>
+   *
+   * All vectors are pairs in primitive arrays, and each link's vectors are advanced lazily to the
+   * current slot when the link is touched, so an attempt costs a few multiply-adds.
+   */
+  static final class FlowState {
+    private final GilbertElliottModel model;
+    private final int numHops;
+    private final double[] good; // good-state success probability of each link
+    private final double[] bad; // bad-state success probability of each link
+    private final double[] at; // [2h], [2h+1]: P(message at h, link h good/bad)
+    private final double[] prior; // channel distribution of link h, not conditioned on the message
+    private final double[] after; // P(message past h, link h good/bad)
+    private final double[] mass; // P(message at h), for h in [0, numHops]
+    private final int[] updated; // slot to which the vectors of link h are advanced
+    private final double[] moved; // message mass moved over each link in the current slot
+
+    /**
+     * @param model the channel model
+     * @param linkPrr long-run success probability of each link of the flow
+     */
+    FlowState(GilbertElliottModel model, double[] linkPrr) {
+      this.model = model;
+      this.numHops = linkPrr.length;
+      this.good = new double[numHops];
+      this.bad = new double[numHops];
+      for (int h = 0; h < numHops; h++) {
+        good[h] = model.goodPrr(linkPrr[h]);
+        bad[h] = Math.min(model.badPrr, good[h]);
+      }
+      this.at = new double[2 * numHops];
+      this.prior = new double[2 * numHops];
+      this.after = new double[2 * numHops];
+      this.mass = new double[numHops + 1];
+      this.updated = new int[numHops];
+      this.moved = new double[numHops];
+      for (int h = 0; h < numHops; h++) { // channels start in the stationary distribution
+        prior[2 * h] = 1.0 - model.stationaryBad;
+        prior[2 * h + 1] = model.stationaryBad;
+      }
+    }
+
+    /**
+     * Releases a new instance of the message at the flow's src node in slot t. Each link's channel
+     * starts from its distribution at the end of the previous instance.
+     */
+    void release(int t) {
+      for (int h = 0; h < numHops; h++) {
+        advanceLink(h, t);
+        var beforeMass = messageBefore(h);
+        var g = beforeMass * prior[2 * h] + at[2 * h] + after[2 * h];
+        var b = beforeMass * prior[2 * h + 1] + at[2 * h + 1] + after[2 * h + 1];
+        var total = g + b;
+        prior[2 * h] = (total > 0.0) ? g / total : 1.0 - model.stationaryBad;
+        prior[2 * h + 1] = (total > 0.0) ? b / total : model.stationaryBad;
+      }
+      Arrays.fill(at, 0.0);
+      Arrays.fill(after, 0.0);
+      Arrays.fill(mass, 0.0);
+      mass[0] = 1.0;
+      if (numHops > 0) {
+        at[0] = prior[0];
+        at[1] = prior[1];
+      }
+    }
+
+    /**
+     * Applies attempts on the given links in slot t. All attempts use the state at the start of the
+     * slot, so a node that receives the message in slot t forwards it starting in slot t+1.
+     *
+     * @param t the slot
+     * @param hops the links attempted, each at most once
+     * @param count the number of links in hops
+     */
+    void attempt(int t, int[] hops, int count) {
+      for (int i = 0; i < count; i++) {
+        var h = hops[i];
+        advanceLink(h, t);
+        var successGood = at[2 * h] * good[h];
+        var successBad = at[2 * h + 1] * bad[h];
+        at[2 * h] -= successGood;
+        at[2 * h + 1] -= successBad;
+        after[2 * h] += successGood;
+        after[2 * h + 1] += successBad;
+        moved[h] = successGood + successBad;
+      }
+      for (int i = 0; i < count; i++) { // deliver to the next node after all attempts
+        var h = hops[i];
+        mass[h] -= moved[h];
+        mass[h + 1] += moved[h];
+        if (h + 1 < numHops) {
+          advanceLink(h + 1, t);
+          at[2 * h + 2] += moved[h] * prior[2 * h + 2];
+          at[2 * h + 3] += moved[h] * prior[2 * h + 3];
+        }
+      }
+    }
+
+    /**
+     * @return the probability that node h has the message
+     */
+    double reached(int h) {
+      var sum = 0.0;
+      for (int j = h; j <= numHops; j++) {
+        sum += mass[j];
+      }
+      return sum;
+    }
+
+    /**
+     * Fills state[h] with the probability that node h has the message.
+     */
+    void reached(double[] state) {
+      var sum = 0.0;
+      for (int j = numHops; j >= 0; j--) {
+        sum += mass[j];
+        state[j] = sum;
+      }
+    }
+
+    /**
+     * @return the probability that the flow's sink has the message
+     */
+    double delivered() {
+      return mass[numHops];
+    }
+
+    private double messageBefore(int h) {
+      var sum = 0.0;
+      for (int j = 0; j < h; j++) {
+        sum += mass[j];
+      }
+      return sum;
+    }
+
+    /* the channel changes state at the end of each slot, so in slot t it has made t steps */
+    private void advanceLink(int h, int t) {
+      var n = t - updated[h];
+      if (n > 0) {
+        model.advance(at, 2 * h, n);
+        model.advance(prior, 2 * h, n);
+        model.advance(after, 2 * h, n);
+        updated[h] = t;
+      }
+    }
+  }
+}
@@ -39,6 +39,28 @@ public class GraphViz extends VisualizationObject {
         createGraphVizContent();
     }
 
+    /* builds the contents from the flows of the parsed workLoad instead of parsing it again */
+    GraphViz(FileManager wfm, WorkLoad workLoad) {
+    	super(wfm, EMPTY, GRAPH_VIZ_SUFFIX); // VisualizationObject constructor
+        this.wfm = wfm; // used to access the basic WARP file management functions
+        this.gv = this;
+        verbose = false;
+        initializeGraphVizContent(workLoad.getName());
+        for (String flowName : workLoad.getFlowNamesInOriginalOrder()) {
+        	addFlowToGraphViz(flowName);
+        	var nodes = workLoad.getNodesInFlow(flowName);
+        	for (int i = 0; i < nodes.length; i++) {
+        		if (i < nodes.length - 1) {
+        			addSrcNodeToGraphViz(nodes[i]);
+        		} else {
+        			addSnkNodeToGraphViz(nodes[i]);
+        		}
+        	}
+        	finalizeCurrentFlowInGraphViz();
+        }
+        finalizeGraphVizContent();
+    }
+
     GraphViz(FileManager wfm, String graphFile, Boolean verbose) {
     	super(wfm, EMPTY, GRAPH_VIZ_SUFFIX); // VisualizationObject constructor
         this.wfm = wfm; // used to access the basic WARP file management functions
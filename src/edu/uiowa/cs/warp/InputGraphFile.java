@@ -49,6 +49,12 @@ public class InputGraphFile {
 		}
 	}
 
+	public String findGraphFile(String inputFile) {
+		/* Find the graph input text file without reading it and return its name */
+		verifyGraphFileName(inputFile); // catches exception if a valid file can't be found and exits
+		return getGraphFileName();
+	}
+
 	public String readGraphFile(String inputFile) {
 		/* Read the graph input text file and return its contents */
 		verifyGraphFileName(inputFile); // catches exception if a valid file can't be found and exits
@@ -0,0 +1,176 @@
+package edu.uiowa.cs.warp;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Map;
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonGeneratorFactory;
+
+/**
+ * JsonVisualization writes machine-readable versions of the outputs of a WARP system with the
+ * javax.json streaming generator, so tools don't have to parse the tab-delimited text files. Values
+ * are written as they're read from the program and analyses; no JSON tree is built.
+ * <p>
+ *
+ * The program schedule and the reliability matrix, whose size grows with the hyperperiod, are
+ * NDJSON files (.ndjson): a first line with the system parameters and the column names, then one
+ * line per time slot, {"slot", "instructions": [...]} or {"slot", "reliabilities": [...]}. The
+ * latency report, deadline misses, and schedule statistics are JSON documents (.json) written by
+ * {@link WarpJson}, each starting with the system parameters.
+ */
+final class JsonVisualization extends VisualizationObject {
+
+  /**
+   * The outputs that can be written as JSON.
+   */
+  enum Content {
+    SCHEDULE("Schedule", ".ndjson"),
+    RELIABILITIES("Reliabilities", ".ndjson"),
+    LATENCY_REPORT("LatencyReport", ".json"),
+    DEADLINE_REPORT("DeadlineMisses", ".json"),
+    SCHEDULE_STATISTICS("ScheduleStatistics", ".json");
+
+    private final String nameExtension;
+    private final String suffix;
+
+    Content(String nameExtension, String suffix) {
+      this.nameExtension = nameExtension;
+      this.suffix = suffix;
+    }
+  }
+
+  private static final JsonGeneratorFactory FACTORY = Json.createGeneratorFactory(Map.of());
+
+  private final WarpInterface warp;
+  private final Content content;
+
+  JsonVisualization(WarpInterface warp, Content content) {
+    super(new FileManager(), warp, content.nameExtension, content.suffix);
+    this.warp = warp;
+    this.content = content;
+  }
+
+  @Override
+  public Description visualization() {
+    var text = new StringWriter();
+    try {
+      writeJson(text);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // a StringWriter doesn't throw
+    }
+    return new Description(text.toString());
+  }
+
+  @Override
+  public void writeFile(String fileName) {
+    try (var out = getFileManager().openWriter(fileName)) {
+      writeJson(out);
+    } catch (IOException | JsonException e) {
+      System.err.println("Error on writing file contents to file" + fileName + ": " + e.getMessage());
+    }
+  }
+
+  private void writeJson(Writer out) throws IOException {
+    var program = warp.toProgram();
+    var lines = new LineWriter(out);
+    switch (content) {
+      case SCHEDULE:
+        writeSchedule(lines, program);
+        break;
+      case RELIABILITIES:
+        writeReliabilities(lines, program);
+        break;
+      default:
+        try (var g = FACTORY.createGenerator(lines)) {
+          g.writeStartObject();
+          WarpJson.writeParameters(g, program);
+          if (content == Content.LATENCY_REPORT) {
+            WarpJson.writeLatencies(g, warp);
+          } else if (content == Content.DEADLINE_REPORT) {
+            WarpJson.writeDeadlineMisses(g, warp);
+          } else {
+            WarpJson.writeStatistics(g, program, new ScheduleStatistics(program));
+          }
+          g.writeEnd();
+        }
+        out.write('\n');
+    }
+  }
+
+  private static void writeSchedule(LineWriter out, Program program) throws IOException {
+    try (var g = FACTORY.createGenerator(out)) {
+      g.writeStartObject();
+      WarpJson.writeParameters(g, program);
+      g.write("numSlots", program.getSchedule().getNumRows());
+      g.writeStartArray("nodes");
+      for (String node : program.toWorkLoad().getNodeNamesOrderedAlphabetically()) {
+        g.write(node);
+      }
+      g.writeEnd();
+      g.writeEnd();
+    }
+    out.write('\n');
+    var schedule = program.getSchedule();
+    var numColumns = schedule.getNumColumns();
+    for (int row = 0; row < schedule.getNumRows(); row++) {
+      try (var g = FACTORY.createGenerator(out)) {
+        g.writeStartObject();
+        g.write("slot", row);
+        g.writeStartArray("instructions");
+        for (int column = 0; column < numColumns; column++) {
+          WarpJson.writeInstruction(g, schedule.get(row, column));
+        }
+        g.writeEnd();
+        g.writeEnd();
+      }
+      out.write('\n');
+    }
+  }
+
+  private void writeReliabilities(LineWriter out, Program program) throws IOException {
+    var ra = warp.toReliabilityAnalysis();
+    var reliabilities = ra.getReliabilities();
+    try (var g = FACTORY.createGenerator(out)) {
+      g.writeStartObject();
+      WarpJson.writeParameters(g, program);
+      g.write("numSlots", reliabilities.getNumRows());
+      g.writeStartArray("columns");
+      for (String column : ra.getColumnNames()) {
+        g.write(column);
+      }
+      g.writeEnd();
+      g.writeEnd();
+    }
+    out.write('\n');
+    var numColumns = reliabilities.getNumColumns();
+    for (int row = 0; row < reliabilities.getNumRows(); row++) {
+      try (var g = FACTORY.createGenerator(out)) {
+        g.writeStartObject();
+        g.write("slot", row);
+        g.writeStartArray("reliabilities");
+        for (int column = 0; column < numColumns; column++) {
+          g.write(reliabilities.get(row, column));
+        }
+        g.writeEnd();
+        g.writeEnd();
+      }
+      out.write('\n');
+    }
+  }
+
+  /* the file's writer, which the generator of each line writes to but doesn't close */
+  private static final class LineWriter extends FilterWriter {
+
+    LineWriter(Writer out) {
+      super(out);
+    }
+
+    @Override
+    public void close() {
+      // the file is closed by writeFile()
+    }
+  }
+}
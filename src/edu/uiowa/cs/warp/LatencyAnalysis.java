@@ -1,7 +1,7 @@
 package edu.uiowa.cs.warp;
 
 import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
-import java.util.HashMap;
+import java.util.stream.IntStream;
 
 /**
  * @author sgoddard2
@@ -11,26 +11,27 @@ public class LatencyAnalysis {
 
   private static String DEADLINE_MISS = " => DEADLINE MISS";
   private static String FLOW_SEPARATOR = "******************************\n";
+  public static final int UNKNOWN = -1; // the latency of an instance can't be computed
+  /* percentiles in the latency distribution report */
+  private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p99.9"};
   private Description latencyReport;
   private Program program;
   private WorkLoad workload;
-  private ProgramSchedule programTable;
-  private HashMap<String, Integer> nodeIndex;
+  private ReliabilityAnalysis ra;
 
   LatencyAnalysis(WarpInterface warp) {
     this.latencyReport = new Description();
+    this.ra = warp.toReliabilityAnalysis();
     this.program = warp.toProgram();
     this.workload = warp.toWorkload();
-    this.programTable = program.getSchedule();
-    this.nodeIndex = program.getNodeMapIndex();
   }
 
   LatencyAnalysis(Program program) {
     this.latencyReport = new Description();
+    this.ra = new ReliabilityAnalysis(program);
     this.program = program;
     this.workload = program.toWorkLoad();
-    this.programTable = program.getSchedule();
-    this.nodeIndex = program.getNodeMapIndex();
   }
 
   public Description latencyReport() {
@@ -48,79 +49,120 @@ public class LatencyAnalysis {
      * an instance, then the latency is not computed (as we assume deadline <= period. Thus, the
      * report is: "UNKNOWN latency for FlowName:Instance; Not enough transmissions attempted"
      * 
+     * The latency of an instance is the slot of the last transmission required on the flow's last
+     * link. The transmission schedule indexes the sorted slots of the attempts on each link, so it
+     * is found with a binary search for the instance's release, and flows are done in parallel.
      */
-
-    var flows = workload.getFlowNamesInPriorityOrder();
-    for (String flowName : flows) {
-      var time = 0;
-
-      var nodes = workload.getNodesInFlow(flowName); // names of nodes in flow
-      var flowSnkIndex = nodes.length - 1;
-      /* get snk of last link in the flow, which is also the Flow snk node */
-      String snk = nodes[flowSnkIndex];
-      /* get the src of last link in the flow */
-      String src = nodes[flowSnkIndex - 1];
-      /* get (column) indexes into programTable of these nodes */
-      var snkIndex = nodeIndex.get(snk);
-      var srcIndex = nodeIndex.get(src);
-      /* get the array containing the number of transmissions required for each link in the flow */
-      var numTxAttemptsPerLink = workload.getNumTxAttemptsPerLink(flowName);
-      /* get the number of transmission required for the last link in the flow */
-      var numTxRequired = numTxAttemptsPerLink[numTxAttemptsPerLink.length - 1];
-      var numTxProcessed = 0; // num of Tx seen in the program schedule so far
-      var instance = 0;
-      while (time < workload.getHyperPeriod()) {
-        /* get next release time and absolute deadline of the flow */
-        var releaseTime = workload.nextReleaseTime(flowName, time);
-        var deadline = workload.nextAbsoluteDeadline(flowName, releaseTime);
-        var nextReleaseTime = workload.nextReleaseTime(flowName, deadline);
-        // var latency = 0;
-        time = releaseTime;
-        numTxProcessed = 0; // num of Tx seen in the program schedule so far
-        while (time < nextReleaseTime) {
-          /* get instruction strings at these to locations */
-          String instr1 = programTable.get(time, srcIndex);
-          String instr2 = programTable.get(time, snkIndex);
-          numTxProcessed += numMatchingTx(flowName, src, snk, instr1);
-          numTxProcessed += numMatchingTx(flowName, src, snk, instr2);
-          if (numTxProcessed == numTxRequired) {
-            /*
-             * all required Tx attempts have been made compute and record latency
-             */
-            var latency = time - releaseTime + 1;
-            // report latency
-            String latencyMsg =
-                String.format("Maximum latency for %s:%d is %d", flowName, instance, latency);
-            if (latency > deadline) {
-              /* deadline missed, so color the text red */
-              latencyMsg += DEADLINE_MISS;
-            }
-            latencyMsg += "\n";
-            latencyReport.add(latencyMsg);
-            time = nextReleaseTime;
-          } else {
-            time++;
+    var ts = program.getTransmissionSchedule();
+    var latencies = getMaxLatencies();
+    for (int f = 0; f < latencies.length; f++) {
+      var flowName = ts.getFlowName(f);
+      for (int instance = 0; instance < latencies[f].length; instance++) {
+        var latency = latencies[f][instance];
+        if (latency != UNKNOWN) {
+          String latencyMsg =
+              String.format("Maximum latency for %s:%d is %d", flowName, instance, latency);
+          if (latency > ts.getDeadline(f)) {
+            /* deadline missed, so color the text red */
+            latencyMsg += DEADLINE_MISS;
           }
-
-        }
-        if (numTxProcessed < numTxRequired) {
+          latencyReport.add(latencyMsg + "\n");
+        } else {
           /*
            * This flow missed its deadline with required number of Tx!! This message should not be
            * printed with the schedulers built
            */
-          String latencyMsg =
-              String.format("UNKNOWN latency for %s:%d; Not enough transmissions attempted\n",
-                  flowName, instance);
-          latencyReport.add(latencyMsg);
+          latencyReport.add(String.format(
+              "UNKNOWN latency for %s:%d; Not enough transmissions attempted\n", flowName, instance));
         }
-        instance++;
       }
-      String flowSeparator = FLOW_SEPARATOR;
-      latencyReport.add(flowSeparator);
+      latencyReport.add(FLOW_SEPARATOR);
     }
     return latencyReport;
   }
 
+  /**
+   * Computes the maximum latency of every flow instance: the time slots from the instance's release
+   * to the slot of the last transmission required on the flow's last link. Flows are indexed in
+   * priority order, as in the transmission schedule.
+   *
+   * @return latencies[f][instance], or UNKNOWN when not enough transmissions are attempted in the
+   *         instance's window; a flow without links has no instances
+   */
+  public int[][] getMaxLatencies() {
+    var ts = program.getTransmissionSchedule();
+    var numFlows = ts.getNumFlows();
+    var numTxRequired = new int[numFlows];
+    for (int f = 0; f < numFlows; f++) {
+      /* get the array containing the number of transmissions required for each node in the flow */
+      var numTxAttemptsPerLink = workload.getNumTxAttemptsPerLink(ts.getFlowName(f));
+      /* get the number of transmissions required for the last link in the flow */
+      numTxRequired[f] = (numTxAttemptsPerLink.length < 2) ? 0
+          : numTxAttemptsPerLink[numTxAttemptsPerLink.length - 2];
+    }
+    var latencies = new int[numFlows][];
+    IntStream.range(0, numFlows).parallel()
+        .forEach(f -> latencies[f] = flowMaxLatencies(ts, f, numTxRequired[f]));
+    return latencies;
+  }
+
+  private int[] flowMaxLatencies(TransmissionSchedule ts, int f, int numTxRequired) {
+    var lastLink = ts.getFlowNodeOffset(f) + ts.getFlowLength(f) - 2; // flattened src of last link
+    if (lastLink < ts.getFlowNodeOffset(f)) {
+      return new int[0];
+    }
+    var latencies = new int[ts.getNumInstances(f)];
+    for (int instance = 0; instance < latencies.length; instance++) {
+      var releaseTime = ts.getReleaseTime(f, instance);
+      /* index of the last required Tx attempt on the last link at or after the release */
+      var index = ts.linkAttemptAtOrAfter(lastLink, releaseTime) + Math.max(numTxRequired, 1) - 1;
+      if (index < ts.linkAttemptEnd(lastLink)
+          && ts.linkAttemptSlot(index) < ts.getWindowEnd(f, instance)) {
+        latencies[instance] = ts.linkAttemptSlot(index) - releaseTime + 1;
+      } else {
+        latencies[instance] = UNKNOWN;
+      }
+    }
+    return latencies;
+  }
+
+  /**
+   * Build a probabilistic latency report from the latency distributions computed by the reliability
+   * analysis. Flows are output in priority order. Each flow instance is reported as
+   * "FlowName:Instance p50 L, p99 L, p99.9 L; delivered by deadline P; delivered by latency L:P ..."
+   * where a percentile is the smallest latency within which the message reaches the flow's sink with
+   * that probability, or UNKNOWN if the instance's end-to-end reliability is lower, and the
+   * latency:probability pairs are the points at which the cumulative distribution increases.
+   * 
+   * A line of 30 '*' characters separates each group of flow instance reports.
+   *
+   * @return the report
+   */
+  public Description latencyDistributionReport() {
+    var report = new Description();
+    for (LatencyDistribution distribution : ra.getLatencyDistributions()) {
+      for (int k = 0; k < distribution.getNumInstances(); k++) {
+        var line = new StringBuilder(String.format("%s:%d", distribution.getFlowName(), k));
+        for (int p = 0; p < PERCENTILES.length; p++) {
+          var percentile = distribution.getPercentile(k, PERCENTILES[p]);
+          line.append(p == 0 ? " " : ", ").append(PERCENTILE_NAMES[p]).append(' ')
+              .append(percentile == LatencyDistribution.UNKNOWN ? "UNKNOWN"
+                  : String.valueOf(percentile));
+        }
+        line.append(String.format("; delivered by deadline %.6f; delivered by latency",
+            distribution.getProbabilityDeliveredByDeadline(k)));
+        var latencies = distribution.getLatencies(k);
+        var deliveredBy = distribution.getDeliveredBy(k);
+        for (int i = 0; i < latencies.length; i++) {
+          line.append(String.format(" %d:%.6f", latencies[i], deliveredBy[i]));
+        }
+        report.add(line.append('\n').toString());
+      }
+      report.add(FLOW_SEPARATOR);
+    }
+    return report;
+  }
+
   public Integer numMatchingTx(String flow, String src, String snk, String instr) {
     var numTx = 0;
 
@@ -0,0 +1,142 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+
+/**
+ * LatencyDistribution holds the probabilistic end-to-end latency of each instance of a flow: the
+ * probability that the instance's message has reached the flow's sink within each latency, where
+ * the latency of a slot is its offset from the instance's release plus one (as in the latency
+ * report).
+ * <p>
+ *
+ * The distribution is a by-product of the reliability analysis. The increase in the sink's
+ * reliability state in a time slot is the probability that the message is delivered in that slot,
+ * so the sink state itself is the cumulative distribution. It only changes in slots with an
+ * attempt on the flow's last link, so just those points are stored, in a compressed array per
+ * instance. The distribution is not normalized: it levels off at the instance's end-to-end
+ * reliability, so percentiles above the reliability are UNKNOWN.
+ */
+public class LatencyDistribution {
+
+  public static final int UNKNOWN = -1; // the percentile is not reached
+
+  private final String flowName;
+  private final int deadline;
+  private final int[] instanceStart; // points of instance k: [instanceStart[k], instanceStart[k+1])
+  private final int[] latency; // increasing within each instance
+  private final double[] deliveredBy; // probability delivered within latency
+
+  private LatencyDistribution(String flowName, int deadline, int[] instanceStart, int[] latency,
+      double[] deliveredBy) {
+    this.flowName = flowName;
+    this.deadline = deadline;
+    this.instanceStart = instanceStart;
+    this.latency = latency;
+    this.deliveredBy = deliveredBy;
+  }
+
+  /**
+   * @return the name of the flow
+   */
+  public String getFlowName() {
+    return flowName;
+  }
+
+  /**
+   * @return the number of instances of the flow
+   */
+  public int getNumInstances() {
+    return instanceStart.length - 1;
+  }
+
+  /**
+   * @return the probability that instance k reaches the sink within the given latency
+   */
+  public double getProbabilityDeliveredBy(int k, int latency) {
+    var index = Arrays.binarySearch(this.latency, instanceStart[k], instanceStart[k + 1], latency);
+    index = (index < 0) ? -index - 2 : index; // last point at or before latency
+    return (index < instanceStart[k]) ? 0.0 : deliveredBy[index];
+  }
+
+  /**
+   * @return the probability that instance k reaches the sink by its deadline
+   */
+  public double getProbabilityDeliveredByDeadline(int k) {
+    return getProbabilityDeliveredBy(k, deadline);
+  }
+
+  /**
+   * @param k the flow instance
+   * @param p the probability, in (0, 1]
+   * @return the smallest latency within which instance k reaches the sink with probability at least
+   *         p, or UNKNOWN if its end-to-end reliability is less than p
+   */
+  public int getPercentile(int k, double p) {
+    for (int i = instanceStart[k]; i < instanceStart[k + 1]; i++) {
+      if (deliveredBy[i] >= p) {
+        return latency[i];
+      }
+    }
+    return UNKNOWN;
+  }
+
+  /**
+   * @return the latencies at which the distribution of instance k increases
+   */
+  public int[] getLatencies(int k) {
+    return Arrays.copyOfRange(latency, instanceStart[k], instanceStart[k + 1]);
+  }
+
+  /**
+   * @return the probability of delivery within each latency returned by getLatencies(k)
+   */
+  public double[] getDeliveredBy(int k) {
+    return Arrays.copyOfRange(deliveredBy, instanceStart[k], instanceStart[k + 1]);
+  }
+
+  /**
+   * Collects the points of the distribution, instance by instance, while the reliability analysis
+   * propagates the flow's states.
+   */
+  static final class Builder {
+    private final String flowName;
+    private final int deadline;
+    private final int[] instanceStart;
+    private int[] latency = new int[8];
+    private double[] deliveredBy = new double[8];
+    private int size = 0;
+    private int instance = 0;
+
+    Builder(String flowName, int deadline, int numInstances) {
+      this.flowName = flowName;
+      this.deadline = deadline;
+      this.instanceStart = new int[numInstances + 1];
+    }
+
+    /**
+     * Records that instance k has reached the sink within latency with the given probability.
+     * Instances must be added in order.
+     */
+    void add(int k, int latency, double probability) {
+      startInstance(k);
+      if (size == this.latency.length) {
+        this.latency = Arrays.copyOf(this.latency, 2 * size);
+        deliveredBy = Arrays.copyOf(deliveredBy, 2 * size);
+      }
+      this.latency[size] = latency;
+      deliveredBy[size++] = probability;
+    }
+
+    private void startInstance(int k) {
+      while (instance < k) {
+        instanceStart[++instance] = size;
+      }
+    }
+
+    LatencyDistribution build() {
+      startInstance(instanceStart.length - 1);
+      return new LatencyDistribution(flowName, deadline, instanceStart,
+          Arrays.copyOf(latency, size), Arrays.copyOf(deliveredBy, size));
+    }
+  }
+}
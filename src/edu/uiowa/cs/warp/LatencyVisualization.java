@@ -18,11 +18,9 @@ public class LatencyVisualization extends VisualizationObject {
   private static final String SOURCE_SUFFIX = ".la";
   private static final String OBJECT_NAME = "Latency Analysis";
   private WarpInterface warp;
-  private LatencyAnalysis la;
 
   LatencyVisualization(WarpInterface warp) {
     super(new FileManager(), warp, SOURCE_SUFFIX);
     this.warp = warp;
-    this.la = warp.toLatencyAnalysis();
   }
 }
@@ -0,0 +1,251 @@
+package edu.uiowa.cs.warp;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * LinkQuality holds the packet reception rate (PRR) of individual links in the WARP graph. Links
+ * that are not listed use the reverse direction of the link when it is listed, and otherwise the
+ * default PRR, which is the global minimum packet reception rate M.
+ * <p>
+ *
+ * Node names are mapped to dense integer ids, and the links of each src node are stored in a
+ * compressed adjacency array sorted by snk id, so a lookup is a hash of the node names followed by
+ * a binary search over the src node's links.
+ * <p>
+ *
+ * The link quality file has one link per line: src snk prr, where the fields may be separated by
+ * white space, commas, or "->" (e.g., "A -> B 0.95"). Blank lines and lines starting with // or #
+ * are ignored.
+ * <p>
+ *
+ * Optionally, the links are bursty: each link is a Gilbert-Elliott channel, described in
+ * {@link GilbertElliottModel}, whose long-run success probability is the link's PRR.
+ */
+public class LinkQuality {
+
+  private final double defaultPrr;
+  private final HashMap<String, Integer> nodeIds;
+  private int[] linkStart; // links of src id s: [linkStart[s], linkStart[s+1])
+  private int[] linkSnk; // snk ids, sorted within each src
+  private double[] linkPrr;
+  private GilbertElliottModel burstModel; // null => independent attempts on every link
+
+  /**
+   * Creates a link quality with no listed links, so every link has the default PRR.
+   *
+   * @param defaultPrr the PRR of links that are not listed
+   */
+  public LinkQuality(Double defaultPrr) {
+    this.defaultPrr = defaultPrr;
+    this.nodeIds = new HashMap<>();
+    this.linkStart = new int[1];
+    this.linkSnk = new int[0];
+    this.linkPrr = new double[0];
+  }
+
+  /**
+   * Creates a link quality from a link quality file.
+   *
+   * @param defaultPrr the PRR of links that are not listed
+   * @param fileName the link quality file, relative to the working directory if not found as given
+   */
+  public LinkQuality(Double defaultPrr, String fileName) {
+    this(defaultPrr);
+    var fm = new FileManager();
+    var file = new File(fileName);
+    if (!file.exists()) {
+      file = new File(fm.getBaseDirectory() + File.separator + fileName);
+    }
+    var contents = fm.readFile(file.getPath());
+    if (contents == null) {
+      System.err.printf("\n\tERROR: link quality file %s couldn't be read; using M = %s for all links.\n",
+          fileName, String.valueOf(defaultPrr));
+      return;
+    }
+    var srcs = new ArrayList<String>();
+    var snks = new ArrayList<String>();
+    var prrs = new ArrayList<Double>();
+    var lineNumber = 0;
+    for (String line : contents.split("\\R")) {
+      lineNumber++;
+      line = line.trim();
+      if (line.isEmpty() || line.startsWith("//") || line.startsWith("#")) {
+        continue;
+      }
+      var fields = line.replace("->", " ").split("[\\s,]+");
+      Double prr = null;
+      if (fields.length == 3) {
+        try {
+          prr = Double.valueOf(fields[2]);
+        } catch (NumberFormatException e) {
+          prr = null;
+        }
+      }
+      if (prr == null || prr <= 0.0 || prr > 1.0) {
+        System.err.printf("Ignoring line %d of link quality file %s: %s\n", lineNumber, fileName, line);
+        continue;
+      }
+      srcs.add(fields[0]);
+      snks.add(fields[1]);
+      prrs.add(prr);
+    }
+    build(srcs, snks, prrs);
+  }
+
+  private void build(ArrayList<String> srcs, ArrayList<String> snks, ArrayList<Double> prrs) {
+    var numLinks = srcs.size();
+    var src = new int[numLinks];
+    var snk = new int[numLinks];
+    for (int i = 0; i < numLinks; i++) {
+      src[i] = intern(srcs.get(i));
+      snk[i] = intern(snks.get(i));
+    }
+    /* counting sort on src, then sort each src's links by snk; later entries override earlier */
+    var numNodes = nodeIds.size();
+    linkStart = new int[numNodes + 1];
+    for (int i = 0; i < numLinks; i++) {
+      linkStart[src[i] + 1]++;
+    }
+    for (int s = 0; s < numNodes; s++) {
+      linkStart[s + 1] += linkStart[s];
+    }
+    var order = new long[numLinks];
+    var next = Arrays.copyOf(linkStart, numNodes);
+    for (int i = 0; i < numLinks; i++) {
+      order[next[src[i]]++] = ((long) snk[i] << 32) | i;
+    }
+    var snkIds = new int[numLinks];
+    var values = new double[numLinks];
+    var size = 0;
+    var start = new int[numNodes + 1];
+    for (int s = 0; s < numNodes; s++) {
+      start[s] = size;
+      Arrays.sort(order, linkStart[s], linkStart[s + 1]); // by snk id, then by line
+      for (int j = linkStart[s]; j < linkStart[s + 1]; j++) {
+        var id = (int) (order[j] >>> 32);
+        var line = (int) order[j];
+        if (size > start[s] && snkIds[size - 1] == id) {
+          values[size - 1] = prrs.get(line); // duplicate link: the last one listed wins
+        } else {
+          snkIds[size] = id;
+          values[size++] = prrs.get(line);
+        }
+      }
+    }
+    start[numNodes] = size;
+    linkStart = start;
+    linkSnk = Arrays.copyOf(snkIds, size);
+    linkPrr = Arrays.copyOf(values, size);
+  }
+
+  private int intern(String name) {
+    var id = nodeIds.get(name);
+    if (id == null) {
+      id = nodeIds.size();
+      nodeIds.put(name, id);
+    }
+    return id;
+  }
+
+  /**
+   * @return the PRR of links that are not listed
+   */
+  public Double getDefaultPrr() {
+    return defaultPrr;
+  }
+
+  /**
+   * @return the Gilbert-Elliott model of the links, or null when attempts are independent
+   */
+  public GilbertElliottModel getBurstModel() {
+    return burstModel;
+  }
+
+  /**
+   * @param burstModel the Gilbert-Elliott model of the links, or null for independent attempts
+   */
+  public void setBurstModel(GilbertElliottModel burstModel) {
+    this.burstModel = burstModel;
+  }
+
+  /**
+   * @return the number of links listed
+   */
+  public Integer numLinks() {
+    return linkSnk.length;
+  }
+
+  /**
+   * @return the id of the node, or -1 if no listed link uses it
+   */
+  public int getNodeId(String name) {
+    var id = nodeIds.get(name);
+    return (id == null) ? -1 : id;
+  }
+
+  /**
+   * Returns the PRR of link src->snk, falling back to snk->src and then to the default PRR.
+   *
+   * @param src name of the link's src node
+   * @param snk name of the link's snk node
+   * @return the PRR of the link
+   */
+  public double getPrr(String src, String snk) {
+    return getPrr(getNodeId(src), getNodeId(snk));
+  }
+
+  /**
+   * Returns the PRR of link src->snk, falling back to snk->src and then to the default PRR.
+   *
+   * @param src id of the link's src node (-1 if unknown)
+   * @param snk id of the link's snk node (-1 if unknown)
+   * @return the PRR of the link
+   */
+  public double getPrr(int src, int snk) {
+    var index = find(src, snk);
+    if (index < 0) {
+      index = find(snk, src);
+    }
+    return (index < 0) ? defaultPrr : linkPrr[index];
+  }
+
+  /**
+   * Adds the default PRR, the listed links, and the burst model to a digest. Equal digests imply
+   * equal link qualities. The converse doesn't hold: node ids are assigned in file order, so listing
+   * the same links in another order gives another digest.
+   */
+  void digest(MessageDigest md) {
+    var names = new String[nodeIds.size()];
+    nodeIds.forEach((name, id) -> names[id] = name);
+    var numbers = ByteBuffer.allocate(8 * (3 + linkStart.length + 2 * linkSnk.length));
+    numbers.putDouble(defaultPrr).putLong(names.length).putLong(linkSnk.length);
+    for (int start : linkStart) {
+      numbers.putLong(start);
+    }
+    for (int i = 0; i < linkSnk.length; i++) {
+      numbers.putLong(linkSnk[i]).putDouble(linkPrr[i]);
+    }
+    md.update(numbers.array());
+    for (String name : names) {
+      md.update((name + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+    md.update(String.valueOf(burstModel).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the index of link src->snk in the adjacency arrays, or -1 when it is not listed
+   */
+  private int find(int src, int snk) {
+    if (src < 0 || snk < 0) {
+      return -1;
+    }
+    var index = Arrays.binarySearch(linkSnk, linkStart[src], linkStart[src + 1], snk);
+    return (index < 0) ? -1 : index;
+  }
+}
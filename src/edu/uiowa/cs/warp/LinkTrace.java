@@ -0,0 +1,171 @@
+package edu.uiowa.cs.warp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * LinkTrace reads a recorded trace of link outcomes (.wtr): for each time slot and link, whether a
+ * transmission on the link in that slot succeeds. The outcomes are read by memory-mapping a window
+ * of the file at a time, so a trace of any length is read without loading it into the heap.
+ * <p>
+ *
+ * All numbers are little endian. The file starts with a header:
+ *
+ * <pre>
+ * offset  size  field
+ *  0      4     magic "WTRC"
+ *  4      4     int version (1)
+ *  8      4     int number of links
+ * 12      4     int reserved (0)
+ * 16      8     long number of time slots
+ * 24      8     long offset of the outcome section
+ * 32            links, each its src and snk node names, each an int byte length followed by its
+ *               UTF-8 bytes
+ * </pre>
+ *
+ * The outcome section starts at the next multiple of 8 and holds one bitmap per time slot, each
+ * (numLinks + 7) / 8 bytes long: bit (l % 8) of byte (l / 8) is 1 if a transmission on link l
+ * succeeds in the slot. Links are directed; a push or a pull of a flow's message from src to snk
+ * uses link src-&gt;snk. For example, numpy reads the outcomes with
+ * {@code np.unpackbits(np.memmap(file, np.uint8, 'r', offset, (numSlots, bytesPerSlot)), axis=1,
+ * bitorder='little')}.
+ */
+public class LinkTrace implements Closeable {
+
+  public static final String SUFFIX = ".wtr";
+  private static final byte[] MAGIC = {'W', 'T', 'R', 'C'};
+  private static final int VERSION = 1;
+  private static final int FIXED_HEADER_SIZE = 32;
+  private static final long WINDOW_SIZE = 1L << 28; // bytes of the outcome section mapped at once
+
+  private final FileChannel channel;
+  private final int numLinks;
+  private final long numSlots;
+  private final long dataOffset;
+  private final int bytesPerSlot;
+  private final long slotsPerWindow;
+  private final HashMap<String, Integer> linkIndex; // "src->snk" -> link
+  private MappedByteBuffer window;
+  private long windowStart; // first slot of the mapped window
+  private long windowEnd; // end (exclusive) slot of the mapped window
+
+  /**
+   * Opens a trace file and reads its header.
+   *
+   * @param fileName the .wtr file
+   * @throws IOException if the file can't be read or isn't a link trace
+   */
+  public LinkTrace(String fileName) throws IOException {
+    channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ);
+    try {
+      var header = ByteBuffer.allocate(FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      readFully(header, 0);
+      var magic = new byte[MAGIC.length];
+      header.get(magic);
+      if (!Arrays.equals(magic, MAGIC) || header.getInt() != VERSION) {
+        throw new IOException(fileName + " is not a version " + VERSION + " link trace file");
+      }
+      numLinks = header.getInt();
+      header.getInt(); // reserved
+      numSlots = header.getLong();
+      dataOffset = header.getLong();
+      bytesPerSlot = (numLinks + 7) / 8;
+      if (numLinks < 0 || numSlots < 0 || dataOffset < FIXED_HEADER_SIZE
+          || dataOffset + numSlots * bytesPerSlot > channel.size()) {
+        throw new IOException(fileName + " has an invalid link trace header");
+      }
+      var names = ByteBuffer.allocate((int) (dataOffset - FIXED_HEADER_SIZE))
+          .order(ByteOrder.LITTLE_ENDIAN);
+      readFully(names, FIXED_HEADER_SIZE);
+      linkIndex = new HashMap<>();
+      for (int link = 0; link < numLinks; link++) {
+        var src = readName(names);
+        var snk = readName(names);
+        linkIndex.put(src + "->" + snk, link);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw (e instanceof IOException) ? (IOException) e
+          : new IOException(fileName + " has an invalid link trace header", e);
+    }
+    slotsPerWindow = Math.max(1, WINDOW_SIZE / Math.max(1, bytesPerSlot));
+  }
+
+  /**
+   * @return the number of time slots recorded
+   */
+  public long getNumSlots() {
+    return numSlots;
+  }
+
+  /**
+   * @return the number of links recorded
+   */
+  public int getNumLinks() {
+    return numLinks;
+  }
+
+  /**
+   * @param src the node that transmits
+   * @param snk the node that receives
+   * @return the index of link src-&gt;snk, or -1 if the trace doesn't record it
+   */
+  public int getLinkIndex(String src, String snk) {
+    var link = linkIndex.get(src + "->" + snk);
+    return (link == null) ? -1 : link;
+  }
+
+  /**
+   * Reads an outcome. Slots are mapped a window at a time, so reading them in increasing order maps
+   * each part of the file once.
+   *
+   * @param slot the time slot, 0 &lt;= slot &lt; getNumSlots()
+   * @param link the link, 0 &lt;= link &lt; getNumLinks()
+   * @return true if a transmission on the link succeeds in the slot
+   * @throws IOException if the window of the slot can't be mapped
+   */
+  public boolean succeeds(long slot, int link) throws IOException {
+    if (slot < windowStart || slot >= windowEnd) {
+      map(slot);
+    }
+    var b = window.get((int) ((slot - windowStart) * bytesPerSlot) + (link >>> 3));
+    return (b & (1 << (link & 7))) != 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    window = null; // the mapping is released when it's collected
+    channel.close();
+  }
+
+  private void map(long slot) throws IOException {
+    windowStart = slot - slot % slotsPerWindow;
+    windowEnd = Math.min(numSlots, windowStart + slotsPerWindow);
+    window = channel.map(FileChannel.MapMode.READ_ONLY, dataOffset + windowStart * bytesPerSlot,
+        (windowEnd - windowStart) * bytesPerSlot);
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("unexpected end of file");
+      }
+    }
+    buffer.flip();
+  }
+
+  private static String readName(ByteBuffer names) {
+    var name = new byte[names.getInt()];
+    names.get(name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+}
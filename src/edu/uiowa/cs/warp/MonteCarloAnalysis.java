@@ -0,0 +1,294 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * MonteCarloAnalysis estimates the end-to-end reliability of each flow instance by executing the
+ * WARP program for many independent trials with random link outcomes.
+ * <p>
+ *
+ * Each trial runs the whole program once. At each release the flow's src node has the message and
+ * no other node does. In each time slot, every node executes its instruction: the first clause of
+ * the if/else chain whose guard holds is performed, and a push or pull on link src->snk delivers
+ * the message to snk with the link's success probability when src has the message and snk does
+ * not. Messages received in a time slot can be forwarded starting in the next time slot.
+ * <p>
+ *
+ * The program is read from its {@link TransmissionSchedule}, so the trial loop works only on
+ * primitive arrays. Trials are split into a fixed number of shards that run in parallel, each with
+ * its own {@link SplittableRandom} split from a seeded root generator, and the per-shard counters
+ * are summed. The shards depend only on the number of trials, so for a given seed the results do
+ * not depend on the number of threads.
+ * <p>
+ *
+ * The report gives, for each flow instance, the fraction of trials in which the message reached the
+ * flow's sink with a 95% Wilson score confidence interval, the analytic reliability computed by
+ * {@link ReliabilityAnalysis}, and the mean and maximum slot of delivery relative to the release.
+ */
+public class MonteCarloAnalysis {
+
+  public static final long DEFAULT_SEED = 2820L;
+  private static final String FLOW_SEPARATOR = "******************************\n";
+  private static final String OUTSIDE_INTERVAL = " => ANALYTIC OUTSIDE 95% CI";
+  private static final double Z_95 = 1.959963984540054; // two-sided 95% normal quantile
+  private static final int NUM_SHARDS = 256; // enough to keep every core of a large machine busy
+
+  private final Program program;
+  private final TransmissionSchedule ts;
+  private final ReliabilityAnalysis ra;
+  private final double[] linkSuccessProbability;
+  private final long numTrials;
+  private final long seed;
+
+  /* flattened flow instance index = instanceOffset[f] + k */
+  private final int[] instanceOffset;
+  /* releases in time order: slot t releases [releaseStart[t], releaseStart[t+1]) */
+  private final int[] releaseStart;
+  private final int[] releaseFlow;
+  private final int[] releaseInstance;
+  /* for each flattened flow node, the flow it is the sink of, or -1 */
+  private final int[] sinkOfFlow;
+
+  private Tally results;
+
+  MonteCarloAnalysis(WarpInterface warp, long numTrials, long seed) {
+    this(warp.toReliabilityAnalysis(), numTrials, seed);
+  }
+
+  MonteCarloAnalysis(Program program, long numTrials, long seed) {
+    this(new ReliabilityAnalysis(program), numTrials, seed);
+  }
+
+  private MonteCarloAnalysis(ReliabilityAnalysis ra, long numTrials, long seed) {
+    this.ra = ra;
+    this.program = ra.getProgram();
+    this.ts = program.getTransmissionSchedule();
+    this.linkSuccessProbability = ra.getLinkSuccessProbabilities();
+    this.numTrials = numTrials;
+    this.seed = seed;
+
+    var numFlows = ts.getNumFlows();
+    var numSlots = ts.getNumSlots();
+    instanceOffset = new int[numFlows + 1];
+    releaseStart = new int[numSlots + 1];
+    for (int f = 0; f < numFlows; f++) {
+      instanceOffset[f + 1] = instanceOffset[f] + ts.getNumInstances(f);
+      for (int k = 0; k < ts.getNumInstances(f); k++) {
+        var release = ts.getReleaseTime(f, k);
+        if (release < numSlots) {
+          releaseStart[release + 1]++;
+        }
+      }
+    }
+    for (int t = 0; t < numSlots; t++) {
+      releaseStart[t + 1] += releaseStart[t];
+    }
+    releaseFlow = new int[releaseStart[numSlots]];
+    releaseInstance = new int[releaseStart[numSlots]];
+    var next = releaseStart.clone();
+    for (int f = 0; f < numFlows; f++) {
+      for (int k = 0; k < ts.getNumInstances(f); k++) {
+        var release = ts.getReleaseTime(f, k);
+        if (release < numSlots) {
+          releaseFlow[next[release]] = f;
+          releaseInstance[next[release]++] = k;
+        }
+      }
+    }
+    sinkOfFlow = new int[ts.getTotalFlowNodes()];
+    Arrays.fill(sinkOfFlow, -1);
+    for (int f = 0; f < numFlows; f++) {
+      sinkOfFlow[ts.getFlowNodeOffset(f) + ts.getFlowLength(f) - 1] = f;
+    }
+  }
+
+  /**
+   * Runs the trials, in parallel, if they have not been run yet.
+   */
+  public void run() {
+    if (results != null) {
+      return;
+    }
+    var numShards = (int) Math.max(1, Math.min(numTrials, NUM_SHARDS));
+    /* split the generators up front so the streams assigned to shards are deterministic */
+    var root = new SplittableRandom(seed);
+    var generators = new SplittableRandom[numShards];
+    for (int s = 0; s < numShards; s++) {
+      generators[s] = root.split();
+    }
+    results = IntStream.range(0, numShards).parallel().mapToObj(s -> {
+      var first = numTrials * s / numShards;
+      var last = numTrials * (s + 1) / numShards;
+      return runShard(generators[s], last - first);
+    }).reduce(Tally::merge).orElseGet(() -> new Tally(instanceOffset[ts.getNumFlows()]));
+  }
+
+  private Tally runShard(SplittableRandom random, long trials) {
+    var numFlows = ts.getNumFlows();
+    var numSlots = ts.getNumSlots();
+    var tally = new Tally(instanceOffset[numFlows]);
+    var has = new boolean[ts.getTotalFlowNodes()];
+    var current = new int[numFlows]; // current instance of each flow
+    var released = new int[numFlows]; // release time of the current instance
+    var maxAttemptsPerSlot = 0;
+    for (int t = 0; t < numSlots; t++) {
+      maxAttemptsPerSlot = Math.max(maxAttemptsPerSlot, ts.slotAttemptEnd(t) - ts.slotAttemptStart(t));
+    }
+    var received = new int[maxAttemptsPerSlot]; // nodes receiving the message in the current slot
+    for (long trial = 0; trial < trials; trial++) {
+      Arrays.fill(has, false);
+      Arrays.fill(current, -1);
+      for (int t = 0; t < numSlots; t++) {
+        for (int r = releaseStart[t]; r < releaseStart[t + 1]; r++) {
+          var f = releaseFlow[r];
+          var offset = ts.getFlowNodeOffset(f);
+          Arrays.fill(has, offset, offset + ts.getFlowLength(f), false);
+          has[offset] = true;
+          current[f] = releaseInstance[r];
+          released[f] = t;
+        }
+        var numReceived = 0;
+        for (int i = ts.slotInstructionStart(t); i < ts.slotInstructionEnd(t); i++) {
+          for (int a = ts.instructionAttemptStart(i); a < ts.instructionAttemptEnd(i); a++) {
+            var link = ts.attemptLink(a);
+            var srcHas = has[link];
+            var snkHas = has[link + 1];
+            var kind = ts.attemptKind(a);
+            if ((kind == TransmissionSchedule.IF_HAS_PUSH && !(srcHas && !snkHas))
+                || (kind == TransmissionSchedule.IF_NOT_HAS_PULL && snkHas)) {
+              continue; // guard is false, try the else clause
+            }
+            if (srcHas && !snkHas && random.nextDouble() < linkSuccessProbability[link]) {
+              received[numReceived++] = link + 1;
+            }
+            break; // only one clause of an instruction is performed
+          }
+        }
+        for (int n = 0; n < numReceived; n++) {
+          var node = received[n];
+          if (has[node]) {
+            continue; // received on more than one link in this slot
+          }
+          has[node] = true;
+          var f = sinkOfFlow[node];
+          if (f >= 0 && current[f] >= 0) {
+            tally.deliver(instanceOffset[f] + current[f], t - released[f] + 1,
+                t - released[f] < ts.getDeadline(f));
+          }
+        }
+      }
+    }
+    return tally;
+  }
+
+  /**
+   * @return the number of trials in which instance k of flow f reached its sink
+   */
+  public long getDeliveries(int f, int k) {
+    run();
+    return results.delivered[instanceOffset[f] + k];
+  }
+
+  /**
+   * @return the fraction of trials in which instance k of flow f reached its sink
+   */
+  public double getDeliveryRate(int f, int k) {
+    return (double) getDeliveries(f, k) / numTrials;
+  }
+
+  /**
+   * @return the 95% Wilson score interval {lower, upper} of the delivery rate of instance k of
+   *         flow f
+   */
+  public double[] getConfidenceInterval(int f, int k) {
+    return wilson(getDeliveries(f, k), numTrials);
+  }
+
+  static double[] wilson(long successes, long trials) {
+    if (trials == 0) {
+      return new double[] {0.0, 1.0};
+    }
+    var n = (double) trials;
+    var p = successes / n;
+    var z2 = Z_95 * Z_95;
+    var denominator = 1 + z2 / n;
+    var center = (p + z2 / (2 * n)) / denominator;
+    var halfWidth = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4 * n * n)) / denominator;
+    return new double[] {Math.max(0.0, center - halfWidth), Math.min(1.0, center + halfWidth)};
+  }
+
+  /**
+   * Build a Monte Carlo report. Flows are output in priority order and each flow instance is
+   * reported as "FlowName:Instance delivered Rate [Lower, Upper] analytic Reliability, by deadline
+   * Rate, mean/max delivery slot Mean/Max". When the analytic reliability is outside the 95%
+   * confidence interval, " => ANALYTIC OUTSIDE 95% CI" is appended.
+   *
+   * @return the report
+   */
+  public Description monteCarloReport() {
+    run();
+    var report = new Description();
+    report.add(String.format("%d trials, seed %d, %s scheduler\n", numTrials, seed,
+        program.getSchedulerName()));
+    report.add(FLOW_SEPARATOR);
+    var analytic = ra.getInstanceReliabilities();
+    for (int f = 0; f < ts.getNumFlows(); f++) {
+      for (int k = 0; k < ts.getNumInstances(f); k++) {
+        var index = instanceOffset[f] + k;
+        var delivered = results.delivered[index];
+        var interval = wilson(delivered, numTrials);
+        var line = String.format("%s:%d delivered %.6f [%.6f, %.6f] analytic %.6f, by deadline %.6f",
+            ts.getFlowName(f), k, (double) delivered / numTrials, interval[0], interval[1],
+            analytic[f][k], (double) results.deliveredByDeadline[index] / numTrials);
+        if (delivered > 0) {
+          line += String.format(", mean/max delivery slot %.2f/%d",
+              (double) results.latencySum[index] / delivered, results.latencyMax[index]);
+        }
+        if (analytic[f][k] < interval[0] || analytic[f][k] > interval[1]) {
+          line += OUTSIDE_INTERVAL;
+        }
+        report.add(line + "\n");
+      }
+      report.add(FLOW_SEPARATOR);
+    }
+    return report;
+  }
+
+  /**
+   * Per flow instance counters of one shard.
+   */
+  private static final class Tally {
+    final long[] delivered;
+    final long[] deliveredByDeadline;
+    final long[] latencySum;
+    final int[] latencyMax;
+
+    Tally(int numInstances) {
+      delivered = new long[numInstances];
+      deliveredByDeadline = new long[numInstances];
+      latencySum = new long[numInstances];
+      latencyMax = new int[numInstances];
+    }
+
+    void deliver(int instance, int latency, boolean metDeadline) {
+      delivered[instance]++;
+      if (metDeadline) {
+        deliveredByDeadline[instance]++;
+      }
+      latencySum[instance] += latency;
+      latencyMax[instance] = Math.max(latencyMax[instance], latency);
+    }
+
+    Tally merge(Tally other) {
+      for (int i = 0; i < delivered.length; i++) {
+        delivered[i] += other.delivered[i];
+        deliveredByDeadline[i] += other.deliveredByDeadline[i];
+        latencySum[i] += other.latencySum[i];
+        latencyMax[i] = Math.max(latencyMax[i], other.latencyMax[i]);
+      }
+      return this;
+    }
+  }
+}
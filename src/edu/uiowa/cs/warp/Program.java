@@ -3,7 +3,9 @@ package edu.uiowa.cs.warp;
 import edu.uiowa.cs.utilities.Utilities;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 
 
 /**
@@ -33,6 +35,8 @@ public class Program implements SystemAttributes {
   Boolean verbose;
   Boolean reportLatency;
   private Description deadlineMisses;
+  private ArrayList<DeadlineMiss> deadlineMissList; // the instances reported in deadlineMisses
+  private TransmissionSchedule transmissionSchedule; // parsed view of scheduleBuilt, built on demand
 
   Program(WorkLoad workLoad, Integer nChannels, ScheduleChoices choice, Boolean verbose,
       Boolean reportLatency) {
@@ -61,6 +65,7 @@ public class Program implements SystemAttributes {
     this.channelsAvailable = new Channels(nChannels, verbose);
     this.reportLatency = reportLatency;
     this.deadlineMisses = new Description();
+    this.deadlineMissList = new ArrayList<>();
   }
 
   /**
@@ -705,6 +710,7 @@ public class Program implements SystemAttributes {
               "WARNING: This workload is not schedulable: Flow %s:%d latency %d > deadline %d\n",
               flowName, instance, latency, flowDeadline);
           deadlineMisses.add(deadlineMsg);
+          deadlineMissList.add(new DeadlineMiss(flowName, instance, latency, flowDeadline));
           // System.out.printf(deadlineMsg);
         }
       }
@@ -1144,6 +1150,16 @@ public class Program implements SystemAttributes {
 
   private void setSchedule(ProgramSchedule schedule) {
     scheduleBuilt = schedule;
+    transmissionSchedule = null;
+  }
+
+  /**
+   * Replaces the built schedule, or marks it changed when it was modified in place (e.g., by a
+   * schedule repair), so that its transmissions are parsed again when next requested.
+   * @param schedule the new schedule
+   */
+  void updateSchedule(ProgramSchedule schedule) {
+    setSchedule(schedule);
   }
 
   /**
@@ -1154,6 +1170,18 @@ public class Program implements SystemAttributes {
     return scheduleBuilt;
   }
 
+  /**
+   * Returns the transmission attempts of the built schedule, parsing the program the first time it
+   * is requested.
+   * @return transmissionSchedule
+   */
+  public TransmissionSchedule getTransmissionSchedule() {
+    if (transmissionSchedule == null) {
+      transmissionSchedule = new TransmissionSchedule(this);
+    }
+    return transmissionSchedule;
+  }
+
   @Override
   public String getSchedulerName() {
     return schedulerName;
@@ -1205,6 +1233,31 @@ public class Program implements SystemAttributes {
     return deadlineMisses;
   }
 
+  /**
+   * @return the flow instances reported by deadlineMisses(), in the same order
+   */
+  public List<DeadlineMiss> getDeadlineMisses() {
+    return Collections.unmodifiableList(deadlineMissList);
+  }
+
+  /**
+   * A flow instance whose latency, from its release to the last instruction of the instance, is
+   * greater than its deadline.
+   */
+  static final class DeadlineMiss {
+    final String flowName;
+    final int instance;
+    final int latency;
+    final int deadline;
+
+    DeadlineMiss(String flowName, int instance, int latency, int deadline) {
+      this.flowName = flowName;
+      this.instance = instance;
+      this.latency = latency;
+      this.deadline = deadline;
+    }
+  }
+
   @Override
   public Integer getNumFaults() {
     return workLoad.getNumFaults();
@@ -16,13 +16,13 @@ public class ProgramVisualization extends VisualizationObject {
   private static final String SOURCE_SUFFIX = ".dsl";
   private ProgramSchedule sourceCode;
   private Program program;
-  private Boolean deadlinesMet;
+  private WarpInterface warp;
 
   ProgramVisualization(WarpInterface warp) {
     super(new FileManager(), warp, SOURCE_SUFFIX);
     this.program = warp.toProgram();
     this.sourceCode = program.getSchedule();
-    this.deadlinesMet = warp.deadlinesMet();
+    this.warp = warp;
   }
 
   /**
@@ -63,7 +63,7 @@ public class ProgramVisualization extends VisualizationObject {
     Description footer = new Description();
     String deadlineMsg = null;
 
-    if (deadlinesMet) {
+    if (warp.deadlinesMet()) {
       deadlineMsg = "All flows meet their deadlines\n";
     } else {
       deadlineMsg = "WARNING: NOT all flows meet their deadlines. See deadline analysis report.\n";
@@ -97,18 +97,39 @@ public class ProgramVisualization extends VisualizationObject {
     if (visualizationData == null) {
       int numRows = sourceCode.getNumRows();
       int numColumns = sourceCode.getNumColumns();
-      visualizationData = new String[numRows][numColumns + 1];
+      visualizationData = new String[numRows][];
 
       for (int row = 0; row < numRows; row++) {
-        visualizationData[row][0] = String.format("%s", row);
-        for (int column = 0; column < numColumns; column++) {
-          visualizationData[row][column + 1] = sourceCode.get(row, column);
-        }
+        visualizationData[row] = createRow(row, numColumns);
       }
     }
     return visualizationData;
   }
 
+  @Override
+  protected int getNumVisualizationRows() {
+    return sourceCode.getNumRows();
+  }
+
+  /**
+   * Creates one row of the program, so the .dsl file is written without building the whole table
+   * @return the time slot followed by the instruction of each node
+   */
+  @Override
+  protected String[] createVisualizationRow(int row) {
+    return (visualizationData != null) ? visualizationData[row]
+        : createRow(row, sourceCode.getNumColumns());
+  }
+
+  private String[] createRow(int row, int numColumns) {
+    var rowData = new String[numColumns + 1];
+    rowData[0] = String.format("%s", row);
+    for (int column = 0; column < numColumns; column++) {
+      rowData[column + 1] = sourceCode.get(row, column);
+    }
+    return rowData;
+  }
+
   /**
    * Returns title
    * @return returns the title of the graph
@@ -1,6 +1,10 @@
 package edu.uiowa.cs.warp;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.PriorityQueue;
+import java.util.stream.IntStream;
 
 /**
  * ReliabilityAnalysis analyzes the end-to-end reliability of messages transmitted in flows for the
@@ -45,9 +49,19 @@ import java.util.ArrayList;
  * Class representing the reliability analysis of a network system.
  */
 public class ReliabilityAnalysis {
+  /* allowance for rounding when comparing a computed reliability with e2e */
+  private static final double E2E_TOLERANCE = 1e-12;
   private double e2e;
   private double minPacketReceptionRate;
   private int numFaults;
+  private WorkLoad workLoad; // source of per-link packet reception rates, if any
+  private GilbertElliottModel burstModel; // bursty links; null => independent attempts
+  private Program program;
+  private TransmissionSchedule transmissions;
+  private double[] linkSuccessProbabilities; // per flow link, indexed by flow node offset + hop
+  private double[][] instanceReliabilities; // [flow][instance], computed on demand
+  private LatencyDistribution[] latencyDistributions; // [flow], computed with the reliabilities
+  private ReliabilityTable reliabilityTable; // computed on demand and kept up to date by updates
 
   /**
    * Constructor to initialize ReliabilityAnalysis with e2e and minPacketReceptionRate.
@@ -60,6 +74,19 @@ public class ReliabilityAnalysis {
     this.minPacketReceptionRate = (minPacketReceptionRate != null) ? minPacketReceptionRate : 0.9;
   }
 
+  /**
+   * Constructor to initialize ReliabilityAnalysis with e2e and the packet reception rates of the
+   * links in a work load.
+   *
+   * @param e2e The end-to-end reliability requirement. Defaults to 0.99 if null.
+   * @param workLoad The work load whose link packet reception rates are used.
+   */
+  public ReliabilityAnalysis(Double e2e, WorkLoad workLoad) {
+    this(e2e, workLoad.getMinPacketReceptionRate());
+    this.workLoad = workLoad;
+    this.burstModel = workLoad.getBurstModel();
+  }
+
   /**
    * Constructor to initialize ReliabilityAnalysis with the number of faults.
    *
@@ -70,24 +97,403 @@ public class ReliabilityAnalysis {
   }
 
   /**
-   * Method to calculate reliabilities for the program (to be implemented).
+   * Constructor to analyze the program of a WARP system.
+   *
+   * @param warp The WARP system whose program is analyzed.
+   */
+  ReliabilityAnalysis(WarpInterface warp) {
+    this(warp.toProgram());
+  }
+
+  /**
+   * Constructor to analyze a program, using the e2e, M, and numFaults of its workload.
+   *
+   * @param program The program to be analyzed.
+   */
+  ReliabilityAnalysis(Program program) {
+    this(program.getE2e(), program.toWorkLoad());
+    this.numFaults = program.getNumFaults();
+    this.program = program;
+    this.transmissions = program.getTransmissionSchedule();
+    this.linkSuccessProbabilities = new double[transmissions.getTotalFlowNodes()];
+    for (int f = 0; f < transmissions.getNumFlows(); f++) {
+      var nodes = transmissions.getFlowNodes(f);
+      for (int hop = 0; hop < nodes.length - 1; hop++) {
+        linkSuccessProbabilities[transmissions.getFlowNodeOffset(f) + hop] =
+            linkPrr(nodes[hop], nodes[hop + 1]);
+      }
+    }
+  }
+
+  /**
+   * Method to calculate the reliabilities for the program. Each row of the table is a time slot and
+   * each column is a Flow:Node pair, with flows in priority order and nodes in flow order. The value
+   * is the probability that the node has received the current instance of the flow's message by the
+   * end of that time slot.
    *
    * @return A ReliabilityTable containing reliability data for the program.
-   * @throws UnsupportedOperationException If the method is not implemented.
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
    */
   public ReliabilityTable getReliabilities() {
-    // TODO implement this operation
-    throw new UnsupportedOperationException("not implemented");
+    requireProgram();
+    if (reliabilityTable == null) {
+      var table = new ReliabilityTable(transmissions.getNumSlots(), transmissions.getTotalFlowNodes());
+      var reliabilities = new double[transmissions.getNumFlows()][];
+      var distributions = new LatencyDistribution[reliabilities.length];
+      for (int f = 0; f < reliabilities.length; f++) {
+        var latencies = latencyBuilder(f);
+        reliabilities[f] = propagate(f, table, false, latencies);
+        distributions[f] = latencies.build();
+      }
+      reliabilityTable = table;
+      instanceReliabilities = reliabilities;
+      latencyDistributions = distributions;
+    }
+    return reliabilityTable;
+  }
+
+  /**
+   * Method to calculate the end-to-end reliability of every flow instance in the program, without
+   * building the full reliability table.
+   *
+   * @return reliabilities[f][k] for instance k of flow f, with flows indexed in priority order.
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
+   */
+  public double[][] getInstanceReliabilities() {
+    requireProgram();
+    var reliabilities = instanceReliabilities();
+    var copy = new double[reliabilities.length][];
+    for (int f = 0; f < copy.length; f++) {
+      copy[f] = reliabilities[f].clone();
+    }
+    return copy;
+  }
+
+  private double[][] instanceReliabilities() {
+    if (instanceReliabilities == null) {
+      var reliabilities = new double[transmissions.getNumFlows()][];
+      var distributions = new LatencyDistribution[reliabilities.length];
+      IntStream.range(0, reliabilities.length).parallel().forEach(f -> {
+        var latencies = latencyBuilder(f);
+        reliabilities[f] = propagate(f, null, false, latencies);
+        distributions[f] = latencies.build();
+      });
+      instanceReliabilities = reliabilities;
+      latencyDistributions = distributions;
+    }
+    return instanceReliabilities;
+  }
+
+  /**
+   * Method to get the probabilistic end-to-end latency of every flow instance, which is computed in
+   * the same pass as the reliabilities.
+   *
+   * @return the latency distribution of each flow, with flows indexed in priority order.
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
+   */
+  public LatencyDistribution[] getLatencyDistributions() {
+    requireProgram();
+    instanceReliabilities();
+    return latencyDistributions.clone();
+  }
+
+  private LatencyDistribution.Builder latencyBuilder(int f) {
+    return new LatencyDistribution.Builder(transmissions.getFlowName(f),
+        transmissions.getDeadline(f), transmissions.getNumInstances(f));
+  }
+
+  /**
+   * Method to change the packet reception rate of link src->snk and recompute the reliabilities of
+   * only the flows that use that link. The reliability table, if it has been computed, is updated
+   * in place. The change applies to this analysis only; the work load is not modified, and the
+   * reverse link snk->src keeps its current rate.
+   *
+   * @param src name of the link's src node
+   * @param snk name of the link's snk node
+   * @param prr the new packet reception rate of the link, in [0,1]
+   * @return names of the flows, in priority order, that met e2e before the change and don't after it
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
+   * @throws IllegalArgumentException If prr is null or not in [0,1]; nothing is changed.
+   */
+  public ArrayList<String> updateLinkQuality(String src, String snk, Double prr) {
+    requireProgram();
+    if (prr == null || !(prr >= 0.0 && prr <= 1.0)) { // also rejects NaN
+      throw new IllegalArgumentException(
+          String.format("the packet reception rate of %s->%s must be in [0,1]: %s", src, snk, prr));
+    }
+    var reliabilities = instanceReliabilities();
+    var newlyFailing = new ArrayList<String>();
+    var affected = new boolean[transmissions.getNumFlows()];
+    for (int link : transmissions.getLinkUses(src, snk)) {
+      linkSuccessProbabilities[link] = prr;
+      affected[transmissions.getFlowOfNode(link)] = true;
+    }
+    for (int f = 0; f < affected.length; f++) {
+      if (affected[f]) {
+        var metBefore = meetsE2e(reliabilities[f]);
+        var latencies = latencyBuilder(f);
+        reliabilities[f] = propagate(f, reliabilityTable, false, latencies);
+        latencyDistributions[f] = latencies.build();
+        if (metBefore && !meetsE2e(reliabilities[f])) {
+          newlyFailing.add(transmissions.getFlowName(f));
+        }
+      }
+    }
+    return newlyFailing;
+  }
+
+  /**
+   * @return true when every instance reliability is at least e2e
+   */
+  boolean meetsE2e(double[] reliabilities) {
+    for (double reliability : reliabilities) {
+      if (!meetsE2e(reliability)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  boolean meetsE2e(double reliability) {
+    return reliability + E2E_TOLERANCE >= e2e;
+  }
+
+  /**
+   * Computes the end-to-end reliability of each instance of flow f for a candidate list of its
+   * attempts, e.g., its scheduled attempts plus attempts a schedule repair is adding, without
+   * changing this analysis.
+   *
+   * @param f flow index in the transmission schedule
+   * @param slots time slot of each attempt, in time order
+   * @param hops hop of each attempt, with at most one attempt per hop per time slot
+   * @param numAttempts the number of attempts in slots and hops
+   * @return the end-to-end reliability of each instance of the flow
+   */
+  double[] flowReliabilities(int f, int[] slots, int[] hops, int numAttempts) {
+    requireProgram();
+    return propagate(f, slots, hops, 0, numAttempts, null, false, null);
+  }
+
+  /**
+   * Adopts the program's schedule after attempts of some flows were added to it in place, as by a
+   * {@link ScheduleRepair}, and recomputes the results already computed for only those flows. The
+   * schedule must keep its time slots and flows.
+   *
+   * @param changed changed[f] is true if the attempts of flow f changed
+   */
+  void scheduleChanged(boolean[] changed) {
+    requireProgram();
+    transmissions = program.getTransmissionSchedule();
+    for (int f = 0; f < changed.length; f++) {
+      if (changed[f] && instanceReliabilities != null) {
+        var latencies = latencyBuilder(f);
+        instanceReliabilities[f] = propagate(f, reliabilityTable, false, latencies);
+        latencyDistributions[f] = latencies.build();
+      }
+    }
+  }
+
+  /**
+   * Method to get the success probability of every flow link, indexed by the flow's node offset in
+   * the transmission schedule plus the hop (src position) of the link.
+   *
+   * @return link success probabilities
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
+   */
+  public double[] getLinkSuccessProbabilities() {
+    requireProgram();
+    return linkSuccessProbabilities.clone();
+  }
+
+  /**
+   * @return the column names of the reliability table, Flow:Node
+   */
+  public String[] getColumnNames() {
+    requireProgram();
+    var names = new String[transmissions.getTotalFlowNodes()];
+    for (int f = 0; f < transmissions.getNumFlows(); f++) {
+      var nodes = transmissions.getFlowNodes(f);
+      for (int n = 0; n < nodes.length; n++) {
+        names[transmissions.getFlowNodeOffset(f) + n] = transmissions.getFlowName(f) + ":" + nodes[n];
+      }
+    }
+    return names;
+  }
+
+  /**
+   * @return the program analyzed, or null when this analysis was not created for a program
+   */
+  public Program getProgram() {
+    return program;
   }
 
   /**
-   * Method to verify if the reliabilities meet a specific threshold (to be implemented).
+   * @return the packet reception rate of link src->snk, which is M unless the work load has a
+   *         link quality
+   */
+  private double linkPrr(String src, String snk) {
+    return (workLoad == null) ? minPacketReceptionRate : workLoad.getLinkPrr(src, snk);
+  }
+
+  private void requireProgram() {
+    if (transmissions == null) {
+      throw new UnsupportedOperationException("reliabilities require a program to analyze");
+    }
+  }
+
+  /**
+   * Applies the reliability model to the attempts of flow f in time order, optionally stopping at
+   * the end of the first instance that misses e2e. The flow state is reset at each release (src =
+   * 1.0, all others 0.0) and each attempt on link src->snk in a time slot sets NewSnkState =
+   * (1-M)*PrevSnkState + M*PrevSrcState, using the states at the end of the previous time slot.
+   * When it stops early, the reliabilities of later instances are left at 0.0.
+   * <p>
+   *
+   * With a burst model the links are Gilbert-Elliott channels instead, and the states are computed
+   * by a {@link GilbertElliottModel.FlowState} that also tracks the channel state of each link.
+   *
+   * @param f flow index in the transmission schedule
+   * @param table if not null, the flow's columns of this table are filled in
+   * @param stopAtFirstMiss true to stop at the first instance below e2e
+   * @param latencies if not null, each increase of the flow's sink state is added to it
+   * @return the end-to-end reliability of each instance of the flow
+   */
+  private double[] propagate(int f, ReliabilityTable table, boolean stopAtFirstMiss,
+      LatencyDistribution.Builder latencies) {
+    return propagate(f, transmissions.flowAttemptSlots(), transmissions.flowAttemptHops(),
+        transmissions.flowAttemptStart(f), transmissions.flowAttemptEnd(f), table, stopAtFirstMiss,
+        latencies);
+  }
+
+  /**
+   * Applies the reliability model to the given attempts of flow f, which are in time order with at
+   * most one attempt per hop per time slot, as in the flow-major view of the transmission schedule.
+   *
+   * @param f flow index in the transmission schedule
+   * @param slots time slot of each attempt
+   * @param hops hop of each attempt
+   * @param start index of the flow's first attempt in slots and hops
+   * @param end index after the flow's last attempt in slots and hops
+   * @param table if not null, the flow's columns of this table are filled in
+   * @param stopAtFirstMiss true to stop at the first instance below e2e
+   * @param latencies if not null, each increase of the flow's sink state is added to it
+   * @return the end-to-end reliability of each instance of the flow
+   */
+  private double[] propagate(int f, int[] slots, int[] hops, int start, int end,
+      ReliabilityTable table, boolean stopAtFirstMiss, LatencyDistribution.Builder latencies) {
+    var ts = transmissions;
+    var numNodes = ts.getFlowLength(f);
+    var offset = ts.getFlowNodeOffset(f);
+    var numInstances = ts.getNumInstances(f);
+    var numSlots = ts.getNumSlots();
+    var prr = linkSuccessProbabilities;
+    var state = new double[numNodes];
+    var prev = new double[numNodes];
+    var instanceReliability = new double[numInstances];
+    var bursty = (burstModel == null) ? null
+        : new GilbertElliottModel.FlowState(burstModel,
+            Arrays.copyOfRange(prr, offset, offset + numNodes - 1));
+    var slotHops = new int[numNodes]; // links attempted in a slot, for the burst model
+    var instance = -1;
+    var nextRow = 0;
+    var i = start;
+    while (true) {
+      var nextAttempt = (i < end) ? slots[i] : Integer.MAX_VALUE;
+      var nextRelease =
+          (instance + 1 < numInstances) ? ts.getReleaseTime(f, instance + 1) : Integer.MAX_VALUE;
+      var t = Math.min(nextAttempt, nextRelease);
+      if (t >= numSlots) {
+        break;
+      }
+      fillRows(table, offset, state, nextRow, t);
+      if (t == nextRelease) {
+        if (instance >= 0) {
+          instanceReliability[instance] = state[numNodes - 1];
+          if (stopAtFirstMiss && instanceReliability[instance] + E2E_TOLERANCE < e2e) {
+            return instanceReliability;
+          }
+        }
+        instance++;
+        Arrays.fill(state, 0.0);
+        state[0] = 1.0;
+        if (bursty != null) {
+          bursty.release(t);
+        }
+      }
+      System.arraycopy(state, 0, prev, 0, numNodes);
+      if (bursty != null) {
+        var count = 0;
+        for (; i < end && slots[i] == t; i++) {
+          slotHops[count++] = hops[i];
+        }
+        bursty.attempt(t, slotHops, count);
+        bursty.reached(state);
+      }
+      for (; i < end && slots[i] == t; i++) {
+        var hop = hops[i];
+        var m = prr[offset + hop];
+        state[hop + 1] = (1 - m) * prev[hop + 1] + m * prev[hop];
+      }
+      if (latencies != null && instance >= 0 && state[numNodes - 1] > prev[numNodes - 1]) {
+        latencies.add(instance, t - ts.getReleaseTime(f, instance) + 1, state[numNodes - 1]);
+      }
+      fillRows(table, offset, state, t, t + 1);
+      nextRow = t + 1;
+    }
+    fillRows(table, offset, state, nextRow, numSlots);
+    if (instance >= 0) {
+      instanceReliability[instance] = state[numNodes - 1];
+    }
+    return instanceReliability;
+  }
+
+  private static void fillRows(ReliabilityTable table, int offset, double[] state, int from, int to) {
+    if (table == null) {
+      return;
+    }
+    for (int row = from; row < to; row++) {
+      for (int n = 0; n < state.length; n++) {
+        table.set(row, offset + n, state[n]);
+      }
+    }
+  }
+
+  /**
+   * Method to verify that every instance of every flow reaches its sink with at least the e2e
+   * reliability. Flows are checked in parallel directly from the schedule, without building the
+   * reliability table, and the check stops at the first instance that misses e2e.
    *
    * @return A Boolean indicating whether the reliabilities meet the required threshold.
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
    */
   public Boolean verifyReliabilities() {
-    // TODO Auto-generated method stub
-    return true;
+    requireProgram();
+    if (instanceReliabilities != null) {
+      return Arrays.stream(instanceReliabilities).allMatch(this::meetsE2e);
+    }
+    return IntStream.range(0, transmissions.getNumFlows()).parallel()
+        .allMatch(f -> meetsE2e(propagate(f, null, true, null)));
+  }
+
+  /**
+   * Method to find the flows that don't meet e2e. Flows are analyzed in parallel without building
+   * the reliability table.
+   *
+   * @return the failing flows, in priority order, mapped to the lowest end-to-end reliability
+   *         achieved by any of their instances; empty when all flows meet e2e
+   * @throws UnsupportedOperationException If this analysis was not created for a program.
+   */
+  public LinkedHashMap<String, Double> getReliabilityFailures() {
+    requireProgram();
+    instanceReliabilities();
+    var failures = new LinkedHashMap<String, Double>();
+    for (int f = 0; f < instanceReliabilities.length; f++) {
+      if (!meetsE2e(instanceReliabilities[f])) {
+        var achieved = Arrays.stream(instanceReliabilities[f]).min().orElse(0.0);
+        failures.put(transmissions.getFlowName(f), achieved);
+      }
+    }
+    return failures;
   }
 
   /**
@@ -102,7 +508,9 @@ public class ReliabilityAnalysis {
     if (numFaults > 0) {
       txResults = getFixedTxPerLinkAndTotalTxCost(flow);
     } else {
-      txResults = numTxAttemptsPerLinkAndTotalTxAttempts(flow, e2e, minPacketReceptionRate, false);
+      var optimizationRequested = (workLoad != null) && workLoad.getOptimizeTxAllocation();
+      txResults = numTxAttemptsPerLinkAndTotalTxAttempts(flow, e2e, minPacketReceptionRate,
+          optimizationRequested);
     }
 
     return txResults;
@@ -134,14 +542,20 @@ public class ReliabilityAnalysis {
    *
    * @param flow The flow for which transmission attempts are to be calculated.
    * @param e2e The end-to-end reliability requirement.
-   * @param M The minimum packet reception rate per link.
-   * @param optimizationRequested A flag indicating whether optimization is requested.
+   * @param M The minimum packet reception rate per link, used when the work load has no link quality.
+   * @param optimizationRequested A flag indicating whether the reduced total allocation is requested.
    * @return An ArrayList containing the number of transmission attempts per link and the total transmission attempts.
    */
   private ArrayList<Integer> numTxAttemptsPerLinkAndTotalTxAttempts(Flow flow, Double e2e, Double M, boolean optimizationRequested) {
     int nNodesInFlow = flow.getNodes().size();
     int nHops = nNodesInFlow - 1;
 
+    var nodes = flow.getNodes();
+    double[] linkM = new double[Math.max(nHops, 0)]; // success probability of each link
+    for (int i = 0; i < nHops; i++) {
+      linkM[i] = (workLoad == null) ? M : linkPrr(nodes.get(i).getName(), nodes.get(i + 1).getName());
+    }
+
     ArrayList<Integer> nPushesArrayList = new ArrayList<>();
     for (int i = 0; i <= nNodesInFlow; i++) {
       nPushesArrayList.add(0);
@@ -158,9 +572,15 @@ public class ReliabilityAnalysis {
 
     int timeSlot = 0;
     double e2eReliabilityState = 0.0;
+    var bursty = (burstModel == null) ? null : new GilbertElliottModel.FlowState(burstModel, linkM);
+    int[] pushes = new int[Math.max(nHops, 0)]; // links pushing in the slot, for the burst model
+    if (bursty != null) {
+      bursty.release(0);
+    }
 
     while (e2eReliabilityState < e2e) {
       ArrayList<Double> prevReliabilityRow = new ArrayList<>(currentReliabilityRow);
+      int numPushes = 0;
 
       for (int nodeIndex = 0; nodeIndex < nHops; nodeIndex++) {
         double prevSrcNodeState = prevReliabilityRow.get(nodeIndex);
@@ -168,8 +588,9 @@ public class ReliabilityAnalysis {
         double nextSnkState;
 
         if (prevSnkNodeState < minLinkReliabilityNeeded && prevSrcNodeState > 0) {
-          nextSnkState = (1 - M) * prevSnkNodeState + M * prevSrcNodeState;
+          nextSnkState = (1 - linkM[nodeIndex]) * prevSnkNodeState + linkM[nodeIndex] * prevSrcNodeState;
           nPushesArrayList.set(nodeIndex, nPushesArrayList.get(nodeIndex) + 1);
+          pushes[numPushes++] = nodeIndex;
         } else {
           nextSnkState = prevSnkNodeState;
         }
@@ -177,14 +598,144 @@ public class ReliabilityAnalysis {
         currentReliabilityRow.set(nodeIndex + 1, nextSnkState);
       }
 
+      if (bursty != null) { // the same pushes on bursty links
+        bursty.attempt(timeSlot, pushes, numPushes);
+        for (int nodeIndex = 1; nodeIndex <= nHops; nodeIndex++) {
+          currentReliabilityRow.set(nodeIndex, bursty.reached(nodeIndex));
+        }
+      }
+
       e2eReliabilityState = currentReliabilityRow.get(nHops);
       timeSlot++;
     }
 
     nPushesArrayList.set(nNodesInFlow, timeSlot);
+    if (optimizationRequested) {
+      return minTotalTxAllocation(nPushesArrayList, e2e, linkM);
+    }
     return nPushesArrayList;
   }
-}
 
+  /**
+   * Helper method to reduce the total number of transmission attempts of a flow subject to reaching
+   * e2e. Reliability is evaluated with the same slot-by-slot model as the per-hop
+   * allocation: link i starts pushing in slot i and pushes in consecutive slots until it has used
+   * its attempts. Starting from the per-hop allocation, which reaches e2e, the attempt whose removal
+   * loses the least E2E reliability is removed as long as e2e is still reached. The links are kept
+   * in a priority queue ordered by their last computed loss; because removing an attempt from one
+   * link changes the losses of the others, a popped loss that is stale is recomputed and re-queued
+   * rather than used. (Adding attempts to one attempt per link instead doesn't work in this model,
+   * as an extra attempt on a link only helps once the next link has attempts left after it.)
+   * <p>
+   *
+   * The removal is greedy, so the result is a local minimum: no single attempt can be removed
+   * without missing e2e, and the total is never more than the per-hop allocation's. It isn't
+   * guaranteed to be the allocation with the fewest attempts, since a cheaper allocation may need
+   * attempts moved between links rather than only removed. Flows don't share attempts, so each
+   * flow's total is reduced independently.
+   *
+   * @param perHopAllocation The per-hop allocation of the flow, in linkTxAndTotalCost format.
+   * @param e2e The end-to-end reliability requirement.
+   * @param linkM The success probability of each link in the flow.
+   * @return An ArrayList containing the number of transmission attempts per link (0 for the sink)
+   *         and, last, the number of slots needed to make them.
+   */
+  private ArrayList<Integer> minTotalTxAllocation(ArrayList<Integer> perHopAllocation, double e2e,
+      double[] linkM) {
+    int nHops = linkM.length;
+    int[] numTx = new int[nHops];
+    for (int i = 0; i < nHops; i++) {
+      numTx[i] = perHopAllocation.get(i);
+    }
+    double reliability = e2eReliability(linkM, numTx);
+    double[] loss = new double[nHops]; // loss of one less attempt when last computed
+    int[] computedAt = new int[nHops]; // number of attempts removed when loss was computed
+    var queue = new PriorityQueue<Integer>(Math.max(nHops, 1),
+        (a, b) -> Double.compare(loss[a], loss[b]));
+    for (int i = 0; i < nHops; i++) {
+      if (numTx[i] > 1) { // every link needs at least one attempt
+        loss[i] = marginalLoss(linkM, numTx, i, reliability);
+        queue.add(i);
+      }
+    }
+    int numRemoved = 0;
+    while (!queue.isEmpty()) {
+      int link = queue.poll();
+      if (computedAt[link] != numRemoved) { // stale: recompute and try again
+        loss[link] = marginalLoss(linkM, numTx, link, reliability);
+        computedAt[link] = numRemoved;
+        queue.add(link);
+        continue;
+      }
+      if (reliability - loss[link] < e2e) {
+        continue; // this link keeps its attempts
+      }
+      numTx[link]--;
+      numRemoved++;
+      reliability = e2eReliability(linkM, numTx);
+      if (numTx[link] > 1) {
+        loss[link] = marginalLoss(linkM, numTx, link, reliability);
+        computedAt[link] = numRemoved;
+        queue.add(link);
+      }
+    }
+
+    ArrayList<Integer> nPushesArrayList = new ArrayList<>(perHopAllocation);
+    int numSlots = 0;
+    for (int i = 0; i < nHops; i++) {
+      nPushesArrayList.set(i, numTx[i]);
+      numSlots = Math.max(numSlots, i + numTx[i]);
+    }
+    nPushesArrayList.set(nPushesArrayList.size() - 1, numSlots);
+    return nPushesArrayList;
+  }
 
+  /**
+   * @return the decrease in E2E reliability when link gets one less attempt
+   */
+  private double marginalLoss(double[] linkM, int[] numTx, int link, double reliability) {
+    numTx[link]--;
+    double loss = reliability - e2eReliability(linkM, numTx);
+    numTx[link]++;
+    return loss;
+  }
 
+  /**
+   * Computes the probability that the message reaches the flow's sink when link i pushes in slots
+   * i through i + numTx[i] - 1, with the burst model if there is one.
+   */
+  private double e2eReliability(double[] linkM, int[] numTx) {
+    int nHops = linkM.length;
+    int numSlots = 0;
+    for (int i = 0; i < nHops; i++) {
+      numSlots = Math.max(numSlots, i + numTx[i]);
+    }
+    if (burstModel != null) {
+      var bursty = new GilbertElliottModel.FlowState(burstModel, linkM);
+      int[] pushes = new int[nHops];
+      bursty.release(0);
+      for (int slot = 0; slot < numSlots; slot++) {
+        int numPushes = 0;
+        for (int i = 0; i < nHops; i++) {
+          if (slot >= i && slot < i + numTx[i]) {
+            pushes[numPushes++] = i;
+          }
+        }
+        bursty.attempt(slot, pushes, numPushes);
+      }
+      return bursty.delivered();
+    }
+    double[] state = new double[nHops + 1];
+    double[] prev = new double[nHops + 1];
+    state[0] = 1.0;
+    for (int slot = 0; slot < numSlots; slot++) {
+      System.arraycopy(state, 0, prev, 0, nHops + 1);
+      for (int i = 0; i < nHops; i++) {
+        if (slot >= i && slot < i + numTx[i]) {
+          state[i + 1] = (1 - linkM[i]) * prev[i + 1] + linkM[i] * prev[i];
+        }
+      }
+    }
+    return state[nHops];
+  }
+}
@@ -0,0 +1,223 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * ReliabilityMatrixFile reads and writes the reliability matrix of a WARP program in a columnar
+ * binary (.rab) format. Files are written through a {@link FileChannel} and read by memory-mapping
+ * them, so a value is read directly by time slot (row) and flow node (column) without parsing the
+ * rest of the file.
+ * <p>
+ *
+ * All numbers are little endian. The file starts with a header:
+ *
+ * <pre>
+ * offset  size  field
+ *  0      4     magic "WRAB"
+ *  4      4     int version (1)
+ *  8      4     int bytes per value: 4 for float32 or 8 for float64
+ * 12      4     int number of rows (time slots)
+ * 16      4     int number of columns (flow nodes, e.g., F0:A)
+ * 20      4     int reserved (0)
+ * 24      8     long offset of the data section
+ * 32            column names, each an int byte length followed by its UTF-8 bytes
+ * </pre>
+ *
+ * The data section starts at the next multiple of 8 and holds the columns one after the other,
+ * each with one value per row. For example, numpy reads a float64 file with
+ * {@code np.memmap(file, '<f8', 'r', offset, (numColumns, numRows))}.
+ */
+public class ReliabilityMatrixFile {
+
+  public static final String SUFFIX = ".rab";
+  private static final byte[] MAGIC = {'W', 'R', 'A', 'B'};
+  private static final int VERSION = 1;
+  private static final int FIXED_HEADER_SIZE = 32;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  private final int numRows;
+  private final int numColumns;
+  private final int bytesPerValue;
+  private final String[] columnNames;
+  private final HashMap<String, Integer> columnIndex;
+  private final ByteBuffer data; // mapped data section
+
+  /**
+   * Opens a .rab file by memory-mapping it.
+   *
+   * @param fileName the .rab file
+   * @throws IOException if the file can't be read or isn't a .rab file
+   */
+  public ReliabilityMatrixFile(String fileName) throws IOException {
+    ByteBuffer file;
+    try (var channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException(fileName + " is too large to map");
+      }
+      file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } // the mapping stays valid after the channel is closed
+    file.order(ByteOrder.LITTLE_ENDIAN);
+    if (file.limit() < FIXED_HEADER_SIZE) {
+      throw new IOException(fileName + " is not a reliability matrix file");
+    }
+    var magic = new byte[MAGIC.length];
+    file.get(magic);
+    if (!Arrays.equals(magic, MAGIC) || file.getInt() != VERSION) {
+      throw new IOException(fileName + " is not a version " + VERSION + " reliability matrix file");
+    }
+    bytesPerValue = file.getInt();
+    numRows = file.getInt();
+    numColumns = file.getInt();
+    file.getInt(); // reserved
+    var dataOffset = file.getLong();
+    if ((bytesPerValue != Float.BYTES && bytesPerValue != Double.BYTES) || numRows < 0
+        || numColumns < 0
+        || dataOffset + (long) numRows * numColumns * bytesPerValue > file.limit()) {
+      throw new IOException(fileName + " has an invalid reliability matrix header");
+    }
+    columnNames = new String[numColumns];
+    columnIndex = new HashMap<>();
+    for (int column = 0; column < numColumns; column++) {
+      var name = new byte[file.getInt()];
+      file.get(name);
+      columnNames[column] = new String(name, StandardCharsets.UTF_8);
+      columnIndex.put(columnNames[column], column);
+    }
+    file.position((int) dataOffset);
+    data = file.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  /**
+   * Writes the reliability matrix of a program to a .rab file.
+   *
+   * @param table the reliability matrix, one row per time slot
+   * @param columnNames the name of each column of the matrix
+   * @param fileName the file to write
+   * @param singlePrecision true to write float32 values, false to write float64 values
+   * @return true if the file was written
+   */
+  public static Boolean write(ReliabilityTable table, String[] columnNames, String fileName,
+      Boolean singlePrecision) {
+    var numRows = table.getNumRows();
+    var numColumns = columnNames.length;
+    var bytesPerValue = singlePrecision ? Float.BYTES : Double.BYTES;
+    var names = new byte[numColumns][];
+    var headerSize = FIXED_HEADER_SIZE;
+    for (int column = 0; column < numColumns; column++) {
+      names[column] = columnNames[column].getBytes(StandardCharsets.UTF_8);
+      headerSize += Integer.BYTES + names[column].length;
+    }
+    var dataOffset = (headerSize + 7) & ~7; // align the data section to 8 bytes
+
+    var header = ByteBuffer.allocate(dataOffset).order(ByteOrder.LITTLE_ENDIAN);
+    header.put(MAGIC).putInt(VERSION).putInt(bytesPerValue).putInt(numRows).putInt(numColumns)
+        .putInt(0).putLong(dataOffset);
+    for (byte[] name : names) {
+      header.putInt(name.length).put(name);
+    }
+    header.position(dataOffset).flip();
+
+    try (var channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeFully(channel, header);
+      var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+      for (int column = 0; column < numColumns; column++) {
+        for (int row = 0; row < numRows; row++) {
+          if (buffer.remaining() < bytesPerValue) {
+            writeFully(channel, buffer.flip());
+            buffer.clear();
+          }
+          var value = table.get(row, column);
+          var reliability = (value == null) ? 0.0 : value;
+          if (singlePrecision) {
+            buffer.putFloat((float) reliability);
+          } else {
+            buffer.putDouble(reliability);
+          }
+        }
+      }
+      writeFully(channel, buffer.flip());
+    } catch (IOException e) {
+      System.err.println("Error on writing reliability matrix to file " + fileName + ": "
+          + e.getMessage());
+      return false;
+    }
+    return true;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  /**
+   * @return the number of rows (time slots)
+   */
+  public int getNumRows() {
+    return numRows;
+  }
+
+  /**
+   * @return the number of columns (flow nodes)
+   */
+  public int getNumColumns() {
+    return numColumns;
+  }
+
+  /**
+   * @return true if the values are stored as float32
+   */
+  public boolean isSinglePrecision() {
+    return bytesPerValue == Float.BYTES;
+  }
+
+  /**
+   * @return the column names, e.g., F0:A
+   */
+  public String[] getColumnNames() {
+    return columnNames.clone();
+  }
+
+  /**
+   * @return the index of the named column, or -1 if there is no such column
+   */
+  public int getColumnIndex(String columnName) {
+    var column = columnIndex.get(columnName);
+    return (column == null) ? -1 : column;
+  }
+
+  /**
+   * @param row the time slot
+   * @param column the flow node column
+   * @return the reliability of the flow node at the end of the time slot
+   */
+  public double get(int row, int column) {
+    if (row < 0 || row >= numRows || column < 0 || column >= numColumns) {
+      throw new IndexOutOfBoundsException(
+          String.format("(%d, %d) is outside the %d x %d matrix", row, column, numRows, numColumns));
+    }
+    var offset = ((long) column * numRows + row) * bytesPerValue;
+    return isSinglePrecision() ? data.getFloat((int) offset) : data.getDouble((int) offset);
+  }
+
+  /**
+   * @param column the flow node column
+   * @return the reliability of the flow node at the end of each time slot
+   */
+  public double[] getColumn(int column) {
+    var values = new double[numRows];
+    for (int row = 0; row < numRows; row++) {
+      values[row] = get(row, column);
+    }
+    return values;
+  }
+}
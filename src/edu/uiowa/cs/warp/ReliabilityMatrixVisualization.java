@@ -0,0 +1,54 @@
+package edu.uiowa.cs.warp;
+
+/**
+ * ReliabilityMatrixVisualization writes the reliability matrix of the WARP program to a columnar
+ * binary (.rab) file, which is described in {@link ReliabilityMatrixFile}. The file holds the
+ * same values as the .ra file, without rounding, and is much faster to write and to load.
+ * <p>
+ *
+ * The text visualization is a short summary of the matrix.
+ */
+public class ReliabilityMatrixVisualization extends VisualizationObject {
+
+  private static final String OBJECT_NAME = "Reliability Matrix";
+  private WarpInterface warp;
+  private Program program;
+  private Boolean singlePrecision;
+
+  ReliabilityMatrixVisualization(WarpInterface warp) {
+    this(warp, false);
+  }
+
+  ReliabilityMatrixVisualization(WarpInterface warp, Boolean singlePrecision) {
+    super(new FileManager(), warp, ReliabilityMatrixFile.SUFFIX);
+    this.warp = warp;
+    this.program = warp.toProgram();
+    this.singlePrecision = singlePrecision;
+  }
+
+  @Override
+  public Description visualization() {
+    var columns = warp.toReliabilityAnalysis().getColumnNames();
+    return new Description(String.format("%s for graph %s: %d time slots x %d flow nodes (%s)",
+        OBJECT_NAME, program.getName(), program.getSchedule().getNumRows(), columns.length,
+        singlePrecision ? "float32" : "float64"));
+  }
+
+  @Override
+  public Description fileVisualization() {
+    return visualization();
+  }
+
+  /* .rab files are memory-mapped when they're read, so they're never compressed */
+  @Override
+  protected Boolean isCompressible() {
+    return false;
+  }
+
+  @Override
+  public void writeFile(String fileName) {
+    var ra = warp.toReliabilityAnalysis();
+    ReliabilityMatrixFile.write(ra.getReliabilities(), ra.getColumnNames(), fileName,
+        singlePrecision);
+  }
+}
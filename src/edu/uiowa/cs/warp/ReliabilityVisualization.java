@@ -17,17 +17,81 @@ package edu.uiowa.cs.warp;
  */
 public class ReliabilityVisualization  extends VisualizationObject {
 
-	// TODO Auto-generated class stub for unimplemented visualization
-	
 	private static final String SOURCE_SUFFIX = ".ra";
 	private static final String OBJECT_NAME = "Reliability Analysis";
+	private static final double PRECISION = 1e6; // reliabilities are rounded to 6 decimal places
 	private WarpInterface warp;
-	private ReliabilityAnalysis ra;
+	private Program program;
 	
 	ReliabilityVisualization(WarpInterface warp) {
 		super(new FileManager(), warp, SOURCE_SUFFIX);
 		this.warp = warp;
-		this.ra = warp.toReliabilityAnalysis();
+		this.program = warp.toProgram();
+	}
+
+	@Override
+	public GuiVisualization displayVisualization() {
+		return new GuiVisualization(createTitle(), createColumnHeader(), createVisualizationData());
+	}
+
+	@Override
+	protected Description createHeader() {
+		Description header = new Description();
+		
+		header.add(createTitle());
+		header.add(String.format("Scheduler Name:\t%s\n", program.getSchedulerName()));
+		if (program.getNumFaults() > 0) { // only specify when deterministic fault model is assumed
+			header.add(String.format("numFaults:\t%d\n", program.getNumFaults()));
+		}
+		header.add(String.format("M:\t%s\n", String.valueOf(program.getMinPacketReceptionRate())));
+		header.add(String.format("E2E:\t%s\n", String.valueOf(program.getE2e())));
+		header.add(String.format("nChannels:\t%d\n", program.getNumChannels()));
+		return header;
+	}
+
+	@Override
+	protected String[] createColumnHeader() {
+		return warp.toReliabilityAnalysis().getColumnNames();
+	}
+
+	@Override
+	protected String[][] createVisualizationData() {
+		if (visualizationData == null) {
+			int numRows = warp.toReliabilityAnalysis().getReliabilities().getNumRows();
+			visualizationData = new String[numRows][];
+			
+			for (int row = 0; row < numRows; row++) {
+				visualizationData[row] = createRow(row);
+			}
+		}
+		return visualizationData;
+	}
+
+	@Override
+	protected int getNumVisualizationRows() {
+		return warp.toReliabilityAnalysis().getReliabilities().getNumRows();
+	}
+
+	/* rows are rounded one at a time when the .ra file is written */
+	@Override
+	protected String[] createVisualizationRow(int row) {
+		return (visualizationData != null) ? visualizationData[row] : createRow(row);
+	}
+
+	private String[] createRow(int row) {
+		var reliabilities = warp.toReliabilityAnalysis().getReliabilities();
+		int numColumns = reliabilities.getNumColumns();
+		var rowData = new String[numColumns];
+		for (int column = 0; column < numColumns; column++) {
+			var value = Math.round(reliabilities.get(row, column) * PRECISION) / PRECISION;
+			rowData[column] = String.valueOf(value);
+		}
+		return rowData;
+	}
+
+	private String createTitle() {
+		return String.format("%s for graph %s created with the following parameters:\n", 
+				OBJECT_NAME, program.getName());
 	}
 	
 /* File Visualization for workload defined in Example.txt follows. 
@@ -1,14 +1,27 @@
 package edu.uiowa.cs.warp;
 
+import java.util.function.Supplier;
+
+/**
+ * ReportVisualization creates a text report (.txt) with a title line followed by the report's
+ * content. The content is created when the report is first written or displayed, and the report
+ * is created once no matter how many times it's used.
+ */
 public class ReportVisualization extends VisualizationObject{
 
 	private static final String SUFFIX = ".txt";
-	private Description content;
+	private Supplier<Description> content;
 	private String title;
-	
+	private Description report; // created by the first visualization()
+
 
-	ReportVisualization (FileManager fm, SystemAttributes warp, 
+	ReportVisualization (FileManager fm, SystemAttributes warp,
 			Description content, String title) {
+		this(fm, warp, () -> content, title);
+	}
+
+	ReportVisualization (FileManager fm, SystemAttributes warp,
+			Supplier<Description> content, String title) {
 		super(fm, warp, new String(title + "Report"), SUFFIX);
 		this.content = content;
 		this.title = title;
@@ -17,11 +30,16 @@ public class ReportVisualization extends VisualizationObject{
 
 	@Override
 	public Description visualization() {
-		return createReport();
+		if (report == null) {
+			report = createReport();
+			content = null; // the content is part of the report now
+		}
+		return report;
 	}
-	
+
 	private Description createReport () {
 		Description report;
+		var content = this.content.get();
 		if (content.size() > 0) {
 			report = new Description(new String (title + " Report"));
 			report.addAll(content);
@@ -30,5 +48,5 @@ public class ReportVisualization extends VisualizationObject{
 		}
 		return report;
 	}
-	
+
 }
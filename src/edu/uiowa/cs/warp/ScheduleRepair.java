@@ -0,0 +1,251 @@
+package edu.uiowa.cs.warp;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * ScheduleRepair adds transmission attempts to a built program schedule for the flows that miss the
+ * end-to-end reliability target, instead of rebuilding the program with different M or E2E
+ * settings.
+ * <p>
+ *
+ * For each instance of a failing flow, attempts are added one at a time to the flow's weakest link:
+ * the link whose attempts in the instance are most likely to all fail. An attempt is an
+ * "if has(flow) push" instruction for the link's src node and a wait instruction for its snk node,
+ * placed in a time slot before the instance's deadline in which both nodes sleep and a channel is
+ * free. The channel must not be used by another instruction in the slot or by either node in the
+ * adjacent slots, as when the schedule is built. The slot is the first one after the last attempt
+ * on the previous link of the instance, if any, so the src node may already have the message. An
+ * attempt that doesn't raise the instance's reliability is taken back, and the link is not used
+ * again for that instance.
+ * <p>
+ *
+ * Only the flows being repaired are analyzed: each one's attempts are kept in its own arrays and
+ * its reliabilities are recomputed from them after each added attempt. When the repair is done the
+ * program's transmissions are parsed again, and the reliability analysis recomputes the results of
+ * the repaired flows only.
+ */
+public class ScheduleRepair {
+
+  private static final String SLEEP_INSTRUCTION = "sleep";
+
+  private final ReliabilityAnalysis ra;
+  private final Program program;
+  private final TransmissionSchedule ts;
+  private final HashMap<String, Integer> nodeIndex; // node name -> schedule column
+  private final double[] linkPrr;
+  private final int numChannels;
+  private final HashMap<Integer, BitSet> addedChannels; // slot -> channels of added attempts
+  private int numAttemptsAdded;
+
+  ScheduleRepair(WarpInterface warp) {
+    this(warp.toReliabilityAnalysis());
+  }
+
+  /**
+   * @param ra the reliability analysis of the program to repair, which is updated by the repair
+   */
+  ScheduleRepair(ReliabilityAnalysis ra) {
+    this.ra = ra;
+    this.program = ra.getProgram();
+    this.ts = program.getTransmissionSchedule();
+    this.nodeIndex = program.getNodeMapIndex();
+    this.linkPrr = ra.getLinkSuccessProbabilities();
+    this.numChannels = program.getNumChannels();
+    this.addedChannels = new HashMap<>();
+  }
+
+  /**
+   * @return the number of attempts added by repair
+   */
+  public int getNumAttemptsAdded() {
+    return numAttemptsAdded;
+  }
+
+  /**
+   * Adds attempts to the schedule for the given flows until each of their instances meets e2e or no
+   * free slot and channel helps. The schedule is modified in place and becomes the program's
+   * schedule.
+   *
+   * @param schedule the program's schedule
+   * @param flowNames names of the flows to repair, e.g., the keys of getReliabilityFailures()
+   * @return the flows that are still below e2e, in priority order, mapped to the lowest end-to-end
+   *         reliability of their instances; empty when all of them were repaired
+   */
+  public LinkedHashMap<String, Double> repair(ProgramSchedule schedule,
+      Collection<String> flowNames) {
+    var changed = new boolean[ts.getNumFlows()];
+    var failures = new LinkedHashMap<String, Double>();
+    for (int f = 0; f < ts.getNumFlows(); f++) {
+      if (!flowNames.contains(ts.getFlowName(f))) {
+        continue;
+      }
+      var reliabilities = repairFlow(schedule, f, changed);
+      if (!ra.meetsE2e(reliabilities)) {
+        failures.put(ts.getFlowName(f), Arrays.stream(reliabilities).min().orElse(0.0));
+      }
+    }
+    program.updateSchedule(schedule);
+    ra.scheduleChanged(changed);
+    return failures;
+  }
+
+  /**
+   * Repairs the instances of flow f that miss e2e.
+   *
+   * @return the end-to-end reliability of each instance of the flow after the repair
+   */
+  private double[] repairFlow(ProgramSchedule schedule, int f, boolean[] changed) {
+    var start = ts.flowAttemptStart(f);
+    var numAttempts = ts.flowAttemptEnd(f) - start;
+    /* room for added attempts; the padding is zeros, not the next flow's attempts */
+    var slots = Arrays.copyOf(
+        Arrays.copyOfRange(ts.flowAttemptSlots(), start, start + numAttempts), numAttempts + 8);
+    var hops = Arrays.copyOf(
+        Arrays.copyOfRange(ts.flowAttemptHops(), start, start + numAttempts), numAttempts + 8);
+    var reliabilities = ra.flowReliabilities(f, slots, hops, numAttempts);
+    var nodes = ts.getFlowNodes(f);
+    var numHops = nodes.length - 1;
+    var offset = ts.getFlowNodeOffset(f);
+    var failure = new double[numHops]; // probability that all attempts on the link fail
+    var lastSlot = new int[numHops]; // last attempt on the link in the instance
+    var exhausted = new boolean[numHops];
+    for (int k = 0; k < reliabilities.length; k++) {
+      var release = ts.getReleaseTime(f, k);
+      var end = Math.min(Math.min(release + ts.getDeadline(f), ts.getWindowEnd(f, k)),
+          ts.getNumSlots());
+      Arrays.fill(exhausted, false);
+      while (!ra.meetsE2e(reliabilities[k])) {
+        Arrays.fill(failure, 1.0);
+        Arrays.fill(lastSlot, release - 1);
+        for (int i = 0; i < numAttempts && slots[i] < end; i++) {
+          if (slots[i] >= release) {
+            failure[hops[i]] *= 1.0 - linkPrr[offset + hops[i]];
+            lastSlot[hops[i]] = slots[i];
+          }
+        }
+        var weakest = -1;
+        for (int h = 0; h < numHops; h++) {
+          if (!exhausted[h] && (weakest < 0 || failure[h] > failure[weakest])) {
+            weakest = h;
+          }
+        }
+        if (weakest < 0) {
+          break; // no link can be helped
+        }
+        var from = (weakest == 0) ? release : lastSlot[weakest - 1] + 1;
+        var src = nodeIndex.get(nodes[weakest]);
+        var snk = nodeIndex.get(nodes[weakest + 1]);
+        var slot = freeSlot(schedule, src, snk, from, end);
+        if (slot < 0) {
+          slot = freeSlot(schedule, src, snk, release, from);
+        }
+        if (slot < 0) {
+          exhausted[weakest] = true;
+          continue;
+        }
+        var channel = freeChannel(schedule, src, snk, slot);
+        if (numAttempts == slots.length) {
+          slots = Arrays.copyOf(slots, 2 * numAttempts);
+          hops = Arrays.copyOf(hops, 2 * numAttempts);
+        }
+        var position = insertionPoint(slots, numAttempts, slot);
+        System.arraycopy(slots, position, slots, position + 1, numAttempts - position);
+        System.arraycopy(hops, position, hops, position + 1, numAttempts - position);
+        slots[position] = slot;
+        hops[position] = weakest;
+        var repaired = ra.flowReliabilities(f, slots, hops, numAttempts + 1);
+        if (repaired[k] <= reliabilities[k]) { // no help: take the attempt back
+          System.arraycopy(slots, position + 1, slots, position, numAttempts - position);
+          System.arraycopy(hops, position + 1, hops, position, numAttempts - position);
+          exhausted[weakest] = true;
+          continue;
+        }
+        numAttempts++;
+        reliabilities = repaired;
+        addAttempt(schedule, slot, channel, ts.getFlowName(f), nodes[weakest], nodes[weakest + 1],
+            src, snk);
+        changed[f] = true;
+      }
+    }
+    return reliabilities;
+  }
+
+  /**
+   * @return the first slot in [from, end) in which the src and snk columns sleep and a channel is
+   *         free, or -1 if there is none
+   */
+  private int freeSlot(ProgramSchedule schedule, int src, int snk, int from, int end) {
+    for (int t = Math.max(from, 0); t < end; t++) {
+      if (SLEEP_INSTRUCTION.equals(schedule.get(t, src))
+          && SLEEP_INSTRUCTION.equals(schedule.get(t, snk))
+          && freeChannel(schedule, src, snk, t) >= 0) {
+        return t;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return the lowest channel that no instruction uses in slot t and neither node uses in the
+   *         adjacent slots, or -1 if there is none
+   */
+  private int freeChannel(ProgramSchedule schedule, int src, int snk, int t) {
+    var used = new BitSet(numChannels);
+    for (int a = ts.slotAttemptStart(t); a < ts.slotAttemptEnd(t); a++) {
+      if (ts.attemptChannel(a) >= 0) {
+        used.set(ts.attemptChannel(a));
+      }
+    }
+    var added = addedChannels.get(t);
+    if (added != null) {
+      used.or(added);
+    }
+    for (int adjacent = t - 1; adjacent <= t + 1; adjacent += 2) {
+      if (adjacent >= 0 && adjacent < schedule.getNumRows()) {
+        markChannels(schedule.get(adjacent, src), used);
+        markChannels(schedule.get(adjacent, snk), used);
+      }
+    }
+    var channel = used.nextClearBit(0);
+    return (channel < numChannels) ? channel : -1;
+  }
+
+  /* marks each #channel in the instruction */
+  private static void markChannels(String instruction, BitSet used) {
+    var index = instruction.indexOf('#');
+    while (index >= 0) {
+      var end = index + 1;
+      while (end < instruction.length() && Character.isDigit(instruction.charAt(end))) {
+        end++;
+      }
+      if (end > index + 1) {
+        used.set(Integer.parseInt(instruction.substring(index + 1, end)));
+      }
+      index = instruction.indexOf('#', end);
+    }
+  }
+
+  private void addAttempt(ProgramSchedule schedule, int slot, int channel, String flow,
+      String srcName, String snkName, int src, int snk) {
+    schedule.set(slot, src, String.format("if has(%1$s) push(%1$s: %2$s -> %3$s, #%4$d)", flow,
+        srcName, snkName, channel));
+    schedule.set(slot, snk, String.format("wait(#%d)", channel));
+    addedChannels.computeIfAbsent(slot, t -> new BitSet(numChannels)).set(channel);
+    program.channelsAvailable.removeChannel(slot, String.valueOf(channel));
+    numAttemptsAdded++;
+  }
+
+  /* index of the first attempt after slot */
+  private static int insertionPoint(int[] slots, int numAttempts, int slot) {
+    var index = Arrays.binarySearch(slots, 0, numAttempts, slot + 1);
+    index = (index < 0) ? -index - 1 : index;
+    while (index > 0 && slots[index - 1] > slot) {
+      index--;
+    }
+    return index;
+  }
+}
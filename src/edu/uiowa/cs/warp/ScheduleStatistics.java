@@ -0,0 +1,200 @@
+package edu.uiowa.cs.warp;
+
+/**
+ * ScheduleStatistics summarizes how full a program schedule is: the utilization of each channel,
+ * the duty cycle (non-sleep time slots) of each node, a histogram of the number of instructions
+ * that transmit in a time slot, the ratio of idle time slots, and the transmissions scheduled for
+ * each flow versus the number required by the workload.
+ * <p>
+ *
+ * All counters are primitive arrays filled in one pass over the time slots of the schedule. The
+ * poset schedulers convert their schedules to a {@link ProgramSchedule} too, so the statistics
+ * compare every scheduler the same way.
+ */
+public class ScheduleStatistics {
+
+  private static final String SLEEP_INSTRUCTION = "sleep";
+
+  private final Program program;
+  private final TransmissionSchedule ts;
+  private final String[] nodeNames; // schedule columns
+  private final int numSlots;
+  private final int[] channelSlots; // slots in which each channel is used
+  private final int[] nodeBusySlots; // non-sleep slots of each node
+  private final int[] concurrency; // [n]: slots with n transmitting instructions
+  private final int[] flowPushes; // push attempts of each flow
+  private final int[] flowPulls; // pull attempts of each flow
+  private final int[] flowRequired; // transmissions required by all instances of each flow
+  private int idleSlots; // slots with no transmissions
+  private int outOfRangeChannels; // attempts on channels outside [0, numChannels)
+
+  ScheduleStatistics(WarpInterface warp) {
+    this(warp.toProgram());
+  }
+
+  ScheduleStatistics(Program program) {
+    this.program = program;
+    this.ts = program.getTransmissionSchedule();
+    this.nodeNames = program.toWorkLoad().getNodeNamesOrderedAlphabetically();
+    this.numSlots = ts.getNumSlots();
+    this.channelSlots = new int[program.getNumChannels()];
+    this.nodeBusySlots = new int[nodeNames.length];
+    this.concurrency = new int[nodeNames.length + 1];
+    this.flowPushes = new int[ts.getNumFlows()];
+    this.flowPulls = new int[ts.getNumFlows()];
+    this.flowRequired = new int[ts.getNumFlows()];
+    collect(program.getSchedule());
+  }
+
+  private void collect(ProgramSchedule schedule) {
+    var lastUse = new int[channelSlots.length]; // last slot + 1 in which each channel was counted
+    var numColumns = Math.min(schedule.getNumColumns(), nodeNames.length);
+    for (int t = 0; t < numSlots; t++) {
+      for (int column = 0; column < numColumns; column++) {
+        if (!SLEEP_INSTRUCTION.equals(schedule.get(t, column))) {
+          nodeBusySlots[column]++;
+        }
+      }
+      var numInstructions = ts.slotInstructionEnd(t) - ts.slotInstructionStart(t);
+      concurrency[Math.min(numInstructions, concurrency.length - 1)]++;
+      if (numInstructions == 0) {
+        idleSlots++;
+      }
+      for (int a = ts.slotAttemptStart(t); a < ts.slotAttemptEnd(t); a++) {
+        var channel = ts.attemptChannel(a);
+        if (channel < 0 || channel >= channelSlots.length) {
+          outOfRangeChannels++;
+        } else if (lastUse[channel] != t + 1) { // clauses of one slot count once
+          lastUse[channel] = t + 1;
+          channelSlots[channel]++;
+        }
+        var kind = ts.attemptKind(a);
+        if (kind == TransmissionSchedule.PULL || kind == TransmissionSchedule.IF_NOT_HAS_PULL) {
+          flowPulls[ts.attemptFlow(a)]++;
+        } else {
+          flowPushes[ts.attemptFlow(a)]++;
+        }
+      }
+    }
+    var workLoad = program.toWorkLoad();
+    for (int f = 0; f < flowRequired.length; f++) {
+      flowRequired[f] =
+          workLoad.getTotalTxAttemptsInFlow(ts.getFlowName(f)) * ts.getNumInstances(f);
+    }
+  }
+
+  /**
+   * @return the number of time slots in which each channel is used
+   */
+  public int[] getChannelSlots() {
+    return channelSlots.clone();
+  }
+
+  /**
+   * @return the number of non-sleep time slots of each node, in schedule column order
+   */
+  public int[] getNodeBusySlots() {
+    return nodeBusySlots.clone();
+  }
+
+  /**
+   * @return histogram[n] is the number of time slots with n transmitting instructions
+   */
+  public int[] getConcurrencyHistogram() {
+    return concurrency.clone();
+  }
+
+  /**
+   * @return the fraction of time slots with no transmissions
+   */
+  public double getIdleSlotRatio() {
+    return (numSlots == 0) ? 0.0 : (double) idleSlots / numSlots;
+  }
+
+  /**
+   * @return the push and pull attempts scheduled for flow f
+   */
+  public int getScheduledTransmissions(int f) {
+    return flowPushes[f] + flowPulls[f];
+  }
+
+  /**
+   * @return the push attempts scheduled for flow f
+   */
+  public int getScheduledPushes(int f) {
+    return flowPushes[f];
+  }
+
+  /**
+   * @return the pull attempts scheduled for flow f
+   */
+  public int getScheduledPulls(int f) {
+    return flowPulls[f];
+  }
+
+  /**
+   * @return the number of attempts on channels outside [0, numChannels)
+   */
+  public int getOutOfRangeChannelAttempts() {
+    return outOfRangeChannels;
+  }
+
+  /**
+   * @return the transmissions that all instances of flow f require
+   */
+  public int getRequiredTransmissions(int f) {
+    return flowRequired[f];
+  }
+
+  /**
+   * Builds the statistics report: one section per statistic, flows in priority order.
+   *
+   * @return the report
+   */
+  public Description statisticsReport() {
+    var report = new Description();
+    report.add(String.format("Schedule statistics for graph %s, scheduler %s\n", program.getName(),
+        program.getSchedulerName()));
+    report.add(String.format("Time slots: %d, channels: %d, nodes: %d\n", numSlots,
+        channelSlots.length, nodeNames.length));
+    report.add(String.format("Idle time slots: %d (%s)\n", idleSlots,
+        percent(idleSlots, numSlots)));
+    if (outOfRangeChannels > 0) {
+      report.add(String.format("Attempts on channels outside 0..%d: %d\n",
+          channelSlots.length - 1, outOfRangeChannels));
+    }
+    report.add("\nChannel utilization (time slots used):\n");
+    for (int channel = 0; channel < channelSlots.length; channel++) {
+      report.add(String.format("  #%d: %d (%s)\n", channel, channelSlots[channel],
+          percent(channelSlots[channel], numSlots)));
+    }
+    report.add("\nNode duty cycle (non-sleep time slots):\n");
+    var busiest = 0;
+    for (int node = 0; node < nodeNames.length; node++) {
+      report.add(String.format("  %s: %d (%s)\n", nodeNames[node], nodeBusySlots[node],
+          percent(nodeBusySlots[node], numSlots)));
+      busiest = (nodeBusySlots[node] > nodeBusySlots[busiest]) ? node : busiest;
+    }
+    if (nodeNames.length > 0) {
+      report.add(String.format("  Busiest node: %s\n", nodeNames[busiest]));
+    }
+    report.add("\nTransmitting instructions per time slot (time slots):\n");
+    for (int n = 0; n < concurrency.length; n++) {
+      if (concurrency[n] > 0) {
+        report.add(String.format("  %d: %d (%s)\n", n, concurrency[n],
+            percent(concurrency[n], numSlots)));
+      }
+    }
+    report.add("\nTransmissions per flow (scheduled vs. required):\n");
+    for (int f = 0; f < flowRequired.length; f++) {
+      report.add(String.format("  %s: %d pushes + %d pulls scheduled, %d required (%d instances)%s\n",
+          ts.getFlowName(f), flowPushes[f], flowPulls[f], flowRequired[f], ts.getNumInstances(f),
+          (flowPushes[f] < flowRequired[f]) ? " => FEWER PUSHES THAN REQUIRED" : ""));
+    }
+    return report;
+  }
+
+  private static String percent(int count, int total) {
+    return String.format("%.1f%%", (total == 0) ? 0.0 : 100.0 * count / total);
+  }
+}
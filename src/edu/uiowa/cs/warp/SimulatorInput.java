@@ -1,12 +1,196 @@
 /**
- * 
+ *
  */
 package edu.uiowa.cs.warp;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
 /**
+ * SimulatorInput generates the simulator input of a WARP program in the format of the SimFile
+ * grammar (edu.uiowa.cs.warpdsls.SimFile.g4 in CS2820.jar), with one line per time slot:
+ *
+ * <pre>
+ * line  : entry+
+ * entry : '#' 'CHANNEL' channel '#'                         the channel of the entries that follow
+ *       | '#' 'NCP' '(' src ',' dest ')' (',' pair)* '#'    the links that use the channel
+ *       | '#' '*' coordinator '@' flow '.' instance (',' '@' flow '.' instance)* '#'
+ *       | '#' '#'                                           a time slot without transmissions
+ * </pre>
+ *
+ * A time slot has a CHANNEL entry for each channel used in it, in channel order, followed by the
+ * channel's node communication pairs (src, dest) and one coordinator entry per instruction on the
+ * channel: the node that executes it and the flow instances it transmits. Nodes are numbered by
+ * {@link Node#getIndex()} and flows by {@link Flow#getIndex()}, the order in which the workload
+ * lists them, and instances by the release they belong to.
+ * <p>
+ *
+ * The file is written from the {@link TransmissionSchedule} of the program one time slot at a
+ * time, so a long hyperperiod is written without building its lines first. Attempts on a channel
+ * that isn't a number are left out.
+ *
  * @author sgoddard
  *
  */
 public class SimulatorInput {
-	// TODO Auto-generated method stub
+
+  private final TransmissionSchedule ts;
+  private final int[] flowIndex; // workload index of each flow of the transmission schedule
+  private final int[] nodeIndex; // workload index of each flattened flow node
+  private final int[] columnIndex; // workload index of the node of each schedule column
+
+  SimulatorInput(Program program) {
+    var workLoad = program.toWorkLoad();
+    this.ts = program.getTransmissionSchedule();
+    this.flowIndex = new int[ts.getNumFlows()];
+    this.nodeIndex = new int[ts.getTotalFlowNodes()];
+    for (int f = 0; f < flowIndex.length; f++) {
+      flowIndex[f] = workLoad.getFlows().get(ts.getFlowName(f)).getIndex();
+      var nodes = ts.getFlowNodes(f);
+      for (int n = 0; n < nodes.length; n++) {
+        nodeIndex[ts.getFlowNodeOffset(f) + n] = workLoad.getNodeIndex(nodes[n]);
+      }
+    }
+    var columns = workLoad.getNodeNamesOrderedAlphabetically();
+    this.columnIndex = new int[columns.length];
+    for (int column = 0; column < columns.length; column++) {
+      columnIndex[column] = workLoad.getNodeIndex(columns[column]);
+    }
+  }
+
+  /**
+   * @return the number of lines (time slots) of the simulator input
+   */
+  public int getNumSlots() {
+    return ts.getNumSlots();
+  }
+
+  /**
+   * Writes the simulator input, one line per time slot.
+   *
+   * @param out the writer of the simulator input, which should be buffered
+   * @throws IOException if writing fails
+   */
+  public void write(Writer out) throws IOException {
+    for (int t = 0; t < ts.getNumSlots(); t++) {
+      writeSlot(out, t);
+      out.write('\n');
+    }
+  }
+
+  private void writeSlot(Writer out, int t) throws IOException {
+    var channels = slotChannels(t);
+    if (channels.length == 0) {
+      out.write("##");
+      return;
+    }
+    for (int c = 0; c < channels.length; c++) {
+      if (c > 0) {
+        out.write(' ');
+      }
+      out.write("#CHANNEL ");
+      out.write(Integer.toString(channels[c]));
+      out.write("# #NCP ");
+      writePairs(out, t, channels[c]);
+      out.write('#');
+      for (int i = ts.slotInstructionStart(t); i < ts.slotInstructionEnd(t); i++) {
+        writeCoordinator(out, t, i, channels[c]);
+      }
+    }
+  }
+
+  /* the distinct channels of the attempts in slot t, in increasing order */
+  private int[] slotChannels(int t) {
+    var channels = new int[ts.slotAttemptEnd(t) - ts.slotAttemptStart(t)];
+    var numChannels = 0;
+    for (int a = ts.slotAttemptStart(t); a < ts.slotAttemptEnd(t); a++) {
+      if (ts.attemptChannel(a) >= 0) {
+        channels[numChannels++] = ts.attemptChannel(a);
+      }
+    }
+    Arrays.sort(channels, 0, numChannels);
+    var numDistinct = 0;
+    for (int c = 0; c < numChannels; c++) {
+      if (numDistinct == 0 || channels[c] != channels[numDistinct - 1]) {
+        channels[numDistinct++] = channels[c];
+      }
+    }
+    return Arrays.copyOf(channels, numDistinct);
+  }
+
+  /* the distinct (src,dest) pairs of the links of the attempts on channel in slot t */
+  private void writePairs(Writer out, int t, int channel) throws IOException {
+    var first = true;
+    for (int a = ts.slotAttemptStart(t); a < ts.slotAttemptEnd(t); a++) {
+      if (ts.attemptChannel(a) != channel || isLinkWritten(t, channel, a)) {
+        continue;
+      }
+      if (!first) {
+        out.write(',');
+      }
+      first = false;
+      var link = ts.attemptLink(a);
+      out.write('(');
+      out.write(Integer.toString(nodeIndex[link]));
+      out.write(',');
+      out.write(Integer.toString(nodeIndex[link + 1]));
+      out.write(')');
+    }
+  }
+
+  /* true if an earlier attempt on channel in slot t has the same src and dest as attempt a */
+  private boolean isLinkWritten(int t, int channel, int a) {
+    var link = ts.attemptLink(a);
+    for (int b = ts.slotAttemptStart(t); b < a; b++) {
+      var other = ts.attemptLink(b);
+      if (ts.attemptChannel(b) == channel && nodeIndex[other] == nodeIndex[link]
+          && nodeIndex[other + 1] == nodeIndex[link + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* the coordinator entry of instruction i, if it transmits on channel */
+  private void writeCoordinator(Writer out, int t, int i, int channel) throws IOException {
+    var first = true;
+    for (int a = ts.instructionAttemptStart(i); a < ts.instructionAttemptEnd(i); a++) {
+      if (ts.attemptChannel(a) != channel || isFlowWritten(i, channel, a)) {
+        continue;
+      }
+      var f = ts.attemptFlow(a);
+      if (first) {
+        out.write(" #*");
+        out.write(Integer.toString(columnIndex[ts.attemptCoordinator(a)]));
+        out.write(' ');
+      } else {
+        out.write(',');
+      }
+      first = false;
+      out.write('@');
+      out.write(Integer.toString(flowIndex[f]));
+      out.write('.');
+      out.write(Integer.toString(instance(f, t)));
+    }
+    if (!first) {
+      out.write('#');
+    }
+  }
+
+  /* true if an earlier attempt of instruction i on channel is for the same flow as attempt a */
+  private boolean isFlowWritten(int i, int channel, int a) {
+    for (int b = ts.instructionAttemptStart(i); b < a; b++) {
+      if (ts.attemptChannel(b) == channel && ts.attemptFlow(b) == ts.attemptFlow(a)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* the instance of flow f whose window contains slot t */
+  private int instance(int f, int t) {
+    var k = (t - ts.getReleaseTime(f, 0)) / ts.getPeriod(f);
+    return Math.max(0, Math.min(k, ts.getNumInstances(f) - 1));
+  }
 }
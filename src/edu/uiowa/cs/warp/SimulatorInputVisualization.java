@@ -0,0 +1,41 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * SimulatorInputVisualization creates the simulator input file (.sim) of the WARP program. The
+ * file is the {@link SimulatorInput} of the system, with no header or footer, since every line of
+ * it must be in the SimFile grammar.
+ */
+public class SimulatorInputVisualization extends VisualizationObject {
+
+  private static final String SOURCE_SUFFIX = ".sim";
+  private WarpInterface warp;
+
+  SimulatorInputVisualization(WarpInterface warp) {
+    super(new FileManager(), warp, SOURCE_SUFFIX);
+    this.warp = warp;
+  }
+
+  @Override
+  public Description visualization() {
+    var text = new StringWriter();
+    try {
+      warp.toSimulator().write(text);
+    } catch (IOException e) {
+      throw new IllegalStateException(e); // a StringWriter doesn't throw
+    }
+    return new Description(text.toString());
+  }
+
+  /* the simulator input is written to the file one time slot at a time */
+  @Override
+  public void writeFile(String fileName) {
+    try (var out = getFileManager().openWriter(fileName)) {
+      warp.toSimulator().write(out);
+    } catch (IOException e) {
+      System.err.println("Error on writing file contents to file" + fileName + ": " + e.getMessage());
+    }
+  }
+}
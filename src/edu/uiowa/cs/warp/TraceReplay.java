@@ -0,0 +1,255 @@
+package edu.uiowa.cs.warp;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * TraceReplay executes a WARP program against recorded link outcomes ({@link LinkTrace}) instead
+ * of random ones, to find exactly which messages the program delivers on the recorded links and
+ * when.
+ * <p>
+ *
+ * The program runs once per hyperperiod of the trace: trace slot s is time slot s % numSlots of run
+ * s / numSlots, and slots after the last complete hyperperiod are ignored. Within a run the program
+ * executes as in {@link MonteCarloAnalysis}: at each release the flow's src node has the message and
+ * no other node does; every node performs the first clause of its instruction whose guard holds,
+ * and a push or pull on link src-&gt;snk delivers the message to snk when src has it, snk doesn't,
+ * and the trace records a success on the link in that slot. Messages received in a time slot can be
+ * forwarded starting in the next time slot. A link the trace doesn't record always fails.
+ * <p>
+ *
+ * The trace is read once, in slot order, so it's streamed through its memory-mapped windows.
+ */
+public class TraceReplay {
+
+  private static final String FLOW_SEPARATOR = "******************************\n";
+
+  private final Program program;
+  private final TransmissionSchedule ts;
+  private final LinkTrace trace;
+  private final int[] traceLink; // trace link of each flattened flow link, or -1
+  private final int[] instanceOffset; // flattened flow instance index = instanceOffset[f] + k
+  /* releases in time order: slot t releases [releaseStart[t], releaseStart[t+1]) */
+  private final int[] releaseStart;
+  private final int[] releaseFlow;
+  private final int[] releaseInstance;
+  private final int[] sinkOfFlow; // for each flattened flow node, the flow it is the sink of, or -1
+  private final long numRuns;
+
+  private long[] delivered;
+  private long[] deliveredByDeadline;
+  private long[] latencySum;
+  private int[] latencyMax;
+
+  TraceReplay(WarpInterface warp, LinkTrace trace) {
+    this(warp.toProgram(), trace);
+  }
+
+  TraceReplay(Program program, LinkTrace trace) {
+    this.program = program;
+    this.ts = program.getTransmissionSchedule();
+    this.trace = trace;
+    var numFlows = ts.getNumFlows();
+    traceLink = new int[ts.getTotalFlowNodes()];
+    Arrays.fill(traceLink, -1);
+    sinkOfFlow = new int[ts.getTotalFlowNodes()];
+    Arrays.fill(sinkOfFlow, -1);
+    instanceOffset = new int[numFlows + 1];
+    for (int f = 0; f < numFlows; f++) {
+      var nodes = ts.getFlowNodes(f);
+      var offset = ts.getFlowNodeOffset(f);
+      for (int hop = 0; hop < nodes.length - 1; hop++) {
+        traceLink[offset + hop] = trace.getLinkIndex(nodes[hop], nodes[hop + 1]);
+      }
+      sinkOfFlow[offset + nodes.length - 1] = f;
+      instanceOffset[f + 1] = instanceOffset[f] + ts.getNumInstances(f);
+    }
+    var numSlots = ts.getNumSlots();
+    releaseStart = new int[numSlots + 1];
+    for (int f = 0; f < numFlows; f++) {
+      for (int k = 0; k < ts.getNumInstances(f); k++) {
+        var release = ts.getReleaseTime(f, k);
+        if (release < numSlots) {
+          releaseStart[release + 1]++;
+        }
+      }
+    }
+    for (int t = 0; t < numSlots; t++) {
+      releaseStart[t + 1] += releaseStart[t];
+    }
+    releaseFlow = new int[releaseStart[numSlots]];
+    releaseInstance = new int[releaseStart[numSlots]];
+    var next = releaseStart.clone();
+    for (int f = 0; f < numFlows; f++) {
+      for (int k = 0; k < ts.getNumInstances(f); k++) {
+        var release = ts.getReleaseTime(f, k);
+        if (release < numSlots) {
+          releaseFlow[next[release]] = f;
+          releaseInstance[next[release]++] = k;
+        }
+      }
+    }
+    numRuns = (ts.getNumSlots() == 0) ? 0 : trace.getNumSlots() / ts.getNumSlots();
+  }
+
+  /**
+   * Replays the program against the trace, if it hasn't been replayed yet.
+   *
+   * @throws IOException if the trace can't be read
+   */
+  public void run() throws IOException {
+    if (delivered != null) {
+      return;
+    }
+    var numFlows = ts.getNumFlows();
+    var numSlots = ts.getNumSlots();
+    var numInstances = instanceOffset[numFlows];
+    var counts = new long[numInstances];
+    var byDeadline = new long[numInstances];
+    var sums = new long[numInstances];
+    var maxima = new int[numInstances];
+    var has = new boolean[ts.getTotalFlowNodes()];
+    var current = new int[numFlows]; // current instance of each flow
+    var released = new int[numFlows]; // release time of the current instance
+    var received = new int[ts.getNumAttempts()]; // nodes receiving the message in the current slot
+    for (long run = 0; run < numRuns; run++) {
+      Arrays.fill(has, false);
+      Arrays.fill(current, -1);
+      var first = run * numSlots; // trace slot of time slot 0
+      for (int t = 0; t < numSlots; t++) {
+        for (int r = releaseStart[t]; r < releaseStart[t + 1]; r++) {
+          var f = releaseFlow[r];
+          var offset = ts.getFlowNodeOffset(f);
+          Arrays.fill(has, offset, offset + ts.getFlowLength(f), false);
+          has[offset] = true;
+          current[f] = releaseInstance[r];
+          released[f] = t;
+        }
+        var numReceived = 0;
+        for (int i = ts.slotInstructionStart(t); i < ts.slotInstructionEnd(t); i++) {
+          for (int a = ts.instructionAttemptStart(i); a < ts.instructionAttemptEnd(i); a++) {
+            var link = ts.attemptLink(a);
+            var srcHas = has[link];
+            var snkHas = has[link + 1];
+            var kind = ts.attemptKind(a);
+            if ((kind == TransmissionSchedule.IF_HAS_PUSH && !(srcHas && !snkHas))
+                || (kind == TransmissionSchedule.IF_NOT_HAS_PULL && snkHas)) {
+              continue; // guard is false, try the else clause
+            }
+            if (srcHas && !snkHas && traceLink[link] >= 0
+                && trace.succeeds(first + t, traceLink[link])) {
+              received[numReceived++] = link + 1;
+            }
+            break; // only one clause of an instruction is performed
+          }
+        }
+        for (int n = 0; n < numReceived; n++) {
+          var node = received[n];
+          if (has[node]) {
+            continue; // received on more than one link in this slot
+          }
+          has[node] = true;
+          var f = sinkOfFlow[node];
+          if (f >= 0 && current[f] >= 0) {
+            var index = instanceOffset[f] + current[f];
+            var latency = t - released[f] + 1;
+            counts[index]++;
+            if (latency <= ts.getDeadline(f)) {
+              byDeadline[index]++;
+            }
+            sums[index] += latency;
+            maxima[index] = Math.max(maxima[index], latency);
+          }
+        }
+      }
+    }
+    delivered = counts;
+    deliveredByDeadline = byDeadline;
+    latencySum = sums;
+    latencyMax = maxima;
+  }
+
+  /**
+   * @return the number of runs (complete hyperperiods) of the program in the trace
+   */
+  public long getNumRuns() {
+    return numRuns;
+  }
+
+  /**
+   * @return the number of runs in which instance k of flow f reached its sink
+   * @throws IOException if the trace can't be read
+   */
+  public long getDeliveries(int f, int k) throws IOException {
+    run();
+    return delivered[instanceOffset[f] + k];
+  }
+
+  /**
+   * @return the largest latency, in slots from its release, with which instance k of flow f reached
+   *         its sink in any run, or 0 if it never did
+   * @throws IOException if the trace can't be read
+   */
+  public int getMaxLatency(int f, int k) throws IOException {
+    run();
+    return latencyMax[instanceOffset[f] + k];
+  }
+
+  /**
+   * Build a trace replay report. Flows are output in priority order and each flow instance is
+   * reported as "FlowName:Instance delivered Delivered/Runs (Rate), by deadline Rate, mean/max
+   * latency Mean/Max", followed by the totals of the flow's instances.
+   *
+   * @return the report
+   * @throws IOException if the trace can't be read
+   */
+  public Description replayReport() throws IOException {
+    run();
+    var report = new Description();
+    report.add(String.format("%d runs of %d time slots replayed from %d trace slots, %s scheduler\n",
+        numRuns, ts.getNumSlots(), trace.getNumSlots(), program.getSchedulerName()));
+    var numMissing = 0;
+    for (int link : traceLink) {
+      numMissing += (link < 0) ? 1 : 0;
+    }
+    numMissing -= ts.getNumFlows(); // the sink of each flow has no link
+    if (numMissing > 0) {
+      report.add(String.format("%d flow links aren't in the trace and always fail\n", numMissing));
+    }
+    report.add(FLOW_SEPARATOR);
+    for (int f = 0; f < ts.getNumFlows(); f++) {
+      long flowDelivered = 0;
+      long flowByDeadline = 0;
+      long flowLatencySum = 0;
+      var flowLatencyMax = 0;
+      for (int k = 0; k < ts.getNumInstances(f); k++) {
+        var index = instanceOffset[f] + k;
+        report.add(String.format("%s:%d %s\n", ts.getFlowName(f), k, summary(delivered[index],
+            deliveredByDeadline[index], latencySum[index], latencyMax[index], numRuns)));
+        flowDelivered += delivered[index];
+        flowByDeadline += deliveredByDeadline[index];
+        flowLatencySum += latencySum[index];
+        flowLatencyMax = Math.max(flowLatencyMax, latencyMax[index]);
+      }
+      report.add(String.format("%s %s\n", ts.getFlowName(f), summary(flowDelivered,
+          flowByDeadline, flowLatencySum, flowLatencyMax, numRuns * ts.getNumInstances(f))));
+      report.add(FLOW_SEPARATOR);
+    }
+    return report;
+  }
+
+  private static String summary(long delivered, long byDeadline, long latencySum, int latencyMax,
+      long messages) {
+    var line = String.format("delivered %d/%d (%.6f), by deadline %.6f", delivered, messages,
+        rate(delivered, messages), rate(byDeadline, messages));
+    if (delivered > 0) {
+      line += String.format(", mean/max latency %.2f/%d", (double) latencySum / delivered,
+          latencyMax);
+    }
+    return line;
+  }
+
+  private static double rate(long count, long total) {
+    return (total == 0) ? 0.0 : (double) count / total;
+  }
+}
@@ -0,0 +1,504 @@
+package edu.uiowa.cs.warp;
+
+import edu.uiowa.cs.warp.WarpDSL.InstructionParameters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * TransmissionSchedule is a compact, pre-parsed view of the transmission attempts in a
+ * {@link ProgramSchedule}. Each distinct instruction string in the program is parsed once with
+ * {@link WarpDSL}, and every push or pull it contains is stored as an attempt in primitive arrays.
+ * Analyses that walk the program repeatedly (reliability, Monte Carlo simulation) use these arrays
+ * instead of re-parsing instruction strings.
+ * <p>
+ *
+ * Attempts are indexed two ways:<br>
+ * (1) slot-major: time slot -> instructions -> attempts. The attempts of one instruction are stored
+ * in the order of its if/else chain; when the program executes, the first attempt whose guard
+ * holds is the one performed. <br>
+ * (2) flow-major: for each flow, the (time slot, hop) pairs of its attempts in time order, with at
+ * most one entry per hop per time slot. This is the view used by the analytic reliability model.
+ * <br>
+ * (3) link-major: for each flow link (flow, src, snk), the sorted time slots of its flow-major
+ * attempts, so the attempts of a link in any time window are found with binary searches.
+ * <p>
+ *
+ * Flows are indexed in the priority order used to build the program, and hops are indexed by the
+ * position of the link's src node in the flow (hop h is the link nodes[h] -> nodes[h+1]).
+ */
+public class TransmissionSchedule {
+
+  /** Unconditional push (e.g., RealTime HART). */
+  static final byte PUSH = 0;
+  /** Unconditional pull (e.g., the else clause of an original schedule instruction). */
+  static final byte PULL = 1;
+  /** Push guarded by has(flow), performed when the src has the message and the snk does not. */
+  static final byte IF_HAS_PUSH = 2;
+  /** Pull guarded by !has(flow), performed when the snk does not have the message. */
+  static final byte IF_NOT_HAS_PULL = 3;
+
+  private final String[] flowNames;
+  private final String[][] flowNodes;
+  private final int[] flowPeriod;
+  private final int[] flowDeadline;
+  private final int[] flowPhase;
+  private final int[] flowNumInstances;
+  private final int[] flowNodeOffset; // offset of each flow's first node in a flattened node array
+  private final int[] flowOfNode; // flow of each flattened node
+  private final HashMap<String, Integer> nodeIds; // node name -> dense id, for the link index
+  private final HashMap<Long, int[]> linkUses; // (src id, snk id) -> flattened links using it
+  private final int numSlots;
+  private final int numColumns;
+
+  /* slot-major view */
+  private final int[] slotInstructionStart; // instructions of slot t: [start[t], start[t+1])
+  private final int[] instructionAttemptStart; // attempts of instruction i: [start[i], start[i+1])
+  private final int[] attemptFlow;
+  private final int[] attemptHop;
+  private final int[] attemptLink; // flow node offset + hop, i.e., the flattened index of the src
+  private final int[] attemptChannel;
+  private final int[] attemptCoordinator; // schedule column of the node executing the instruction
+  private final byte[] attemptKind;
+
+  /* flow-major view */
+  private final int[] flowAttemptStart; // attempts of flow f: [start[f], start[f+1])
+  private final int[] flowAttemptSlot;
+  private final int[] flowAttemptHop;
+
+  /* link-major view, indexed by flattened link (flow node offset + hop) */
+  private final int[] linkAttemptStart; // attempts of link l: [start[l], start[l+1])
+  private final int[] linkAttemptSlot; // sorted within each link
+
+  TransmissionSchedule(Program program) {
+    var workload = program.toWorkLoad();
+    var schedule = program.getSchedule();
+
+    /* flow parameters, in the priority order used to build the program */
+    var flows = workload.getFlowNamesInPriorityOrder();
+    var numFlows = flows.size();
+    var hyperPeriod = workload.getHyperPeriod();
+    var flowIndex = new HashMap<String, Integer>();
+    flowNames = new String[numFlows];
+    flowNodes = new String[numFlows][];
+    flowPeriod = new int[numFlows];
+    flowDeadline = new int[numFlows];
+    flowPhase = new int[numFlows];
+    flowNumInstances = new int[numFlows];
+    flowNodeOffset = new int[numFlows + 1];
+    var hopIndex = new ArrayList<HashMap<String, Integer>>(numFlows);
+    for (int f = 0; f < numFlows; f++) {
+      var name = flows.get(f);
+      flowIndex.put(name, f);
+      flowNames[f] = name;
+      flowNodes[f] = workload.getNodesInFlow(name);
+      flowPeriod[f] = workload.getFlowPeriod(name);
+      flowDeadline[f] = workload.getFlowDeadline(name);
+      flowPhase[f] = workload.getFlowPhase(name);
+      flowNumInstances[f] = hyperPeriod / flowPeriod[f];
+      flowNodeOffset[f + 1] = flowNodeOffset[f] + flowNodes[f].length;
+      var hops = new HashMap<String, Integer>();
+      for (int h = 0; h < flowNodes[f].length - 1; h++) {
+        hops.put(flowNodes[f][h] + "->" + flowNodes[f][h + 1], h);
+      }
+      hopIndex.add(hops);
+    }
+
+    /* reverse index from each link src->snk to the flow hops that use it */
+    flowOfNode = new int[flowNodeOffset[numFlows]];
+    nodeIds = new HashMap<>();
+    var uses = new HashMap<Long, IntList>();
+    for (int f = 0; f < numFlows; f++) {
+      Arrays.fill(flowOfNode, flowNodeOffset[f], flowNodeOffset[f + 1], f);
+      for (int h = 0; h < flowNodes[f].length - 1; h++) {
+        var key = linkKey(internNode(flowNodes[f][h]), internNode(flowNodes[f][h + 1]));
+        uses.computeIfAbsent(key, k -> new IntList(2)).add(flowNodeOffset[f] + h);
+      }
+    }
+    linkUses = new HashMap<>();
+    uses.forEach((key, links) -> linkUses.put(key, links.toArray()));
+
+    numSlots = schedule.getNumRows();
+    numColumns = schedule.getNumColumns();
+
+    /* parse each distinct instruction once */
+    var dsl = new WarpDSL();
+    var parsed = new HashMap<String, ArrayList<InstructionParameters>>();
+    var slotStart = new IntList(numSlots + 1);
+    var instructionStart = new IntList(numSlots);
+    var flow = new IntList(numSlots);
+    var hop = new IntList(numSlots);
+    var channel = new IntList(numSlots);
+    var coordinator = new IntList(numSlots);
+    var kind = new IntList(numSlots);
+    for (int t = 0; t < numSlots; t++) {
+      slotStart.add(instructionStart.size());
+      for (int column = 0; column < numColumns; column++) {
+        var instruction = schedule.get(t, column);
+        if (instruction == null || !instruction.contains("(")) {
+          continue; // sleep, or an empty entry
+        }
+        var parameters = parsed.get(instruction);
+        if (parameters == null) {
+          parameters = dsl.getInstructionParameters(instruction);
+          parsed.put(instruction, parameters);
+        }
+        var firstAttempt = flow.size();
+        for (InstructionParameters p : parameters) {
+          var name = p.getName();
+          if (!name.equals("push") && !name.equals("pull")) {
+            continue; // wait and sleep do not transmit
+          }
+          var f = flowIndex.get(p.getFlow());
+          var h = (f == null) ? null : hopIndex.get(f).get(p.getSrc() + "->" + p.getSnk());
+          if (h == null) {
+            System.err.printf("Ignoring %s in time slot %d: %s:%s->%s is not a link in the workload%n",
+                name, t, p.getFlow(), p.getSrc(), p.getSnk());
+            continue;
+          }
+          flow.add(f);
+          hop.add(h);
+          channel.add(toChannel(p.getChannel()));
+          coordinator.add(column);
+          var condition = p.getCondition();
+          if (name.equals("push")) {
+            kind.add(condition.equals(WarpDSL.HAS) ? IF_HAS_PUSH : PUSH);
+          } else {
+            kind.add(condition.equals(WarpDSL.NOT_HAS) ? IF_NOT_HAS_PULL : PULL);
+          }
+        }
+        if (flow.size() > firstAttempt) {
+          instructionStart.add(firstAttempt);
+        }
+      }
+    }
+    slotStart.add(instructionStart.size());
+    instructionStart.add(flow.size());
+    slotInstructionStart = slotStart.toArray();
+    instructionAttemptStart = instructionStart.toArray();
+    attemptFlow = flow.toArray();
+    attemptHop = hop.toArray();
+    attemptLink = new int[attemptHop.length];
+    for (int a = 0; a < attemptLink.length; a++) {
+      attemptLink[a] = flowNodeOffset[attemptFlow[a]] + attemptHop[a];
+    }
+    attemptChannel = channel.toArray();
+    attemptCoordinator = coordinator.toArray();
+    attemptKind = new byte[kind.size()];
+    for (int a = 0; a < attemptKind.length; a++) {
+      attemptKind[a] = (byte) kind.get(a);
+    }
+
+    /* build the flow-major view with a counting sort on flow, keeping time order */
+    flowAttemptStart = new int[numFlows + 1];
+    var lastSlot = new int[flowNodeOffset[numFlows]];
+    Arrays.fill(lastSlot, -1);
+    var keep = new boolean[attemptFlow.length];
+    for (int t = 0; t < numSlots; t++) {
+      for (int a = slotAttemptStart(t); a < slotAttemptEnd(t); a++) {
+        if (lastSlot[attemptLink[a]] != t) { // at most one entry per hop per slot
+          lastSlot[attemptLink[a]] = t;
+          keep[a] = true;
+          flowAttemptStart[attemptFlow[a] + 1]++;
+        }
+      }
+    }
+    for (int f = 0; f < numFlows; f++) {
+      flowAttemptStart[f + 1] += flowAttemptStart[f];
+    }
+    flowAttemptSlot = new int[flowAttemptStart[numFlows]];
+    flowAttemptHop = new int[flowAttemptStart[numFlows]];
+    var next = Arrays.copyOf(flowAttemptStart, numFlows);
+    for (int t = 0; t < numSlots; t++) {
+      for (int a = slotAttemptStart(t); a < slotAttemptEnd(t); a++) {
+        if (keep[a]) {
+          var position = next[attemptFlow[a]]++;
+          flowAttemptSlot[position] = t;
+          flowAttemptHop[position] = attemptHop[a];
+        }
+      }
+    }
+
+    /* build the link-major view from the flow-major one with a counting sort on link */
+    linkAttemptStart = new int[flowNodeOffset[numFlows] + 1];
+    for (int f = 0; f < numFlows; f++) {
+      for (int i = flowAttemptStart[f]; i < flowAttemptStart[f + 1]; i++) {
+        linkAttemptStart[flowNodeOffset[f] + flowAttemptHop[i] + 1]++;
+      }
+    }
+    for (int l = 0; l < flowNodeOffset[numFlows]; l++) {
+      linkAttemptStart[l + 1] += linkAttemptStart[l];
+    }
+    linkAttemptSlot = new int[flowAttemptSlot.length];
+    next = Arrays.copyOf(linkAttemptStart, flowNodeOffset[numFlows]);
+    for (int f = 0; f < numFlows; f++) {
+      for (int i = flowAttemptStart[f]; i < flowAttemptStart[f + 1]; i++) {
+        linkAttemptSlot[next[flowNodeOffset[f] + flowAttemptHop[i]]++] = flowAttemptSlot[i];
+      }
+    }
+  }
+
+  private int internNode(String name) {
+    var id = nodeIds.get(name);
+    if (id == null) {
+      id = nodeIds.size();
+      nodeIds.put(name, id);
+    }
+    return id;
+  }
+
+  private static long linkKey(int src, int snk) {
+    return ((long) src << 32) | snk;
+  }
+
+  private static int toChannel(String channel) {
+    try {
+      return Integer.parseInt(channel);
+    } catch (NumberFormatException e) {
+      return -1; // unknown channel
+    }
+  }
+
+  /** @return the number of time slots in the program */
+  public int getNumSlots() {
+    return numSlots;
+  }
+
+  /** @return the number of columns (nodes) in the program schedule */
+  public int getNumColumns() {
+    return numColumns;
+  }
+
+  /** @return the number of flows */
+  public int getNumFlows() {
+    return flowNames.length;
+  }
+
+  /** @return the name of flow f */
+  public String getFlowName(int f) {
+    return flowNames[f];
+  }
+
+  /** @return the names of the nodes in flow f, in flow order */
+  public String[] getFlowNodes(int f) {
+    return flowNodes[f];
+  }
+
+  /** @return the number of nodes in flow f */
+  public int getFlowLength(int f) {
+    return flowNodes[f].length;
+  }
+
+  /** @return the offset of flow f's first node when the nodes of all flows are flattened */
+  public int getFlowNodeOffset(int f) {
+    return flowNodeOffset[f];
+  }
+
+  /** @return the total number of flow nodes when the nodes of all flows are flattened */
+  public int getTotalFlowNodes() {
+    return flowNodeOffset[flowNames.length];
+  }
+
+  /** @return the flow of a flattened node (or link) index */
+  public int getFlowOfNode(int node) {
+    return flowOfNode[node];
+  }
+
+  /**
+   * Returns the flow links that use link src->snk. Each is the flattened index of the link's src
+   * node (flow node offset + hop).
+   *
+   * @param src name of the link's src node
+   * @param snk name of the link's snk node
+   * @return the flattened links, in flow priority order; empty if no flow uses src->snk
+   */
+  public int[] getLinkUses(String src, String snk) {
+    var srcId = nodeIds.get(src);
+    var snkId = nodeIds.get(snk);
+    if (srcId == null || snkId == null) {
+      return new int[0];
+    }
+    var links = linkUses.get(linkKey(srcId, snkId));
+    return (links == null) ? new int[0] : links.clone();
+  }
+
+  /** @return the period of flow f */
+  public int getPeriod(int f) {
+    return flowPeriod[f];
+  }
+
+  /** @return the relative deadline of flow f */
+  public int getDeadline(int f) {
+    return flowDeadline[f];
+  }
+
+  /** @return the number of instances of flow f released in the hyper period */
+  public int getNumInstances(int f) {
+    return flowNumInstances[f];
+  }
+
+  /** @return the release time of instance k of flow f */
+  public int getReleaseTime(int f, int k) {
+    return flowPhase[f] + k * flowPeriod[f];
+  }
+
+  /**
+   * @return the end (exclusive) of the window of instance k of flow f, which is the next release of
+   *         the flow or the end of the program, whichever is first
+   */
+  public int getWindowEnd(int f, int k) {
+    return Math.min(getReleaseTime(f, k) + flowPeriod[f], numSlots);
+  }
+
+  /** @return the first instruction index of slot t */
+  int slotInstructionStart(int t) {
+    return slotInstructionStart[t];
+  }
+
+  /** @return the end (exclusive) instruction index of slot t */
+  int slotInstructionEnd(int t) {
+    return slotInstructionStart[t + 1];
+  }
+
+  /** @return the first attempt index of instruction i */
+  int instructionAttemptStart(int i) {
+    return instructionAttemptStart[i];
+  }
+
+  /** @return the end (exclusive) attempt index of instruction i */
+  int instructionAttemptEnd(int i) {
+    return instructionAttemptStart[i + 1];
+  }
+
+  /** @return the first attempt index of slot t */
+  int slotAttemptStart(int t) {
+    return instructionAttemptStart[slotInstructionStart[t]];
+  }
+
+  /** @return the end (exclusive) attempt index of slot t */
+  int slotAttemptEnd(int t) {
+    return instructionAttemptStart[slotInstructionStart[t + 1]];
+  }
+
+  /** @return the total number of attempts in the program */
+  public int getNumAttempts() {
+    return attemptFlow.length;
+  }
+
+  int attemptFlow(int a) {
+    return attemptFlow[a];
+  }
+
+  int attemptHop(int a) {
+    return attemptHop[a];
+  }
+
+  /** @return the flattened index of the src node of attempt a (flow node offset + hop) */
+  int attemptLink(int a) {
+    return attemptLink[a];
+  }
+
+  int attemptChannel(int a) {
+    return attemptChannel[a];
+  }
+
+  int attemptCoordinator(int a) {
+    return attemptCoordinator[a];
+  }
+
+  byte attemptKind(int a) {
+    return attemptKind[a];
+  }
+
+  /** @return the first flow-major attempt index of flow f */
+  int flowAttemptStart(int f) {
+    return flowAttemptStart[f];
+  }
+
+  /** @return the end (exclusive) flow-major attempt index of flow f */
+  int flowAttemptEnd(int f) {
+    return flowAttemptStart[f + 1];
+  }
+
+  int flowAttemptSlot(int i) {
+    return flowAttemptSlot[i];
+  }
+
+  int flowAttemptHop(int i) {
+    return flowAttemptHop[i];
+  }
+
+  /**
+   * @param f the flow, in priority order
+   * @param hop the hop of the link in the flow
+   * @return the sorted time slots of the attempts on the link
+   */
+  public int[] getLinkAttemptSlots(int f, int hop) {
+    var link = flowNodeOffset[f] + hop;
+    return Arrays.copyOfRange(linkAttemptSlot, linkAttemptStart[link], linkAttemptStart[link + 1]);
+  }
+
+  /** @return the first link-major attempt index of flattened link l (flow node offset + hop) */
+  int linkAttemptStart(int l) {
+    return linkAttemptStart[l];
+  }
+
+  /** @return the end (exclusive) link-major attempt index of flattened link l */
+  int linkAttemptEnd(int l) {
+    return linkAttemptStart[l + 1];
+  }
+
+  int linkAttemptSlot(int i) {
+    return linkAttemptSlot[i];
+  }
+
+  /**
+   * @return the index of the first attempt of flattened link l in or after slot t, or
+   *         linkAttemptEnd(l) if there is none
+   */
+  int linkAttemptAtOrAfter(int l, int t) {
+    var index = Arrays.binarySearch(linkAttemptSlot, linkAttemptStart[l], linkAttemptStart[l + 1], t);
+    return (index < 0) ? -index - 1 : index; // slots are distinct within a link
+  }
+
+  /** @return the slots of all flow-major attempts, indexed like flowAttemptSlot (not a copy) */
+  int[] flowAttemptSlots() {
+    return flowAttemptSlot;
+  }
+
+  /** @return the hops of all flow-major attempts, indexed like flowAttemptHop (not a copy) */
+  int[] flowAttemptHops() {
+    return flowAttemptHop;
+  }
+
+  /**
+   * Minimal growable int array, used while building the schedule to avoid boxing.
+   */
+  private static final class IntList {
+    private int[] values;
+    private int size;
+
+    IntList(int capacity) {
+      values = new int[Math.max(capacity, 8)];
+    }
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int get(int index) {
+      return values[index];
+    }
+
+    int size() {
+      return size;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
@@ -10,7 +10,9 @@ package edu.uiowa.cs.warp;
 public interface Visualization {
 
   public enum SystemChoices {
-    SOURCE, RELIABILITIES, SIMULATOR_INPUT, LATENCY, LATENCY_REPORT, DEADLINE_REPORT, CHANNEL
+    SOURCE, RELIABILITIES, BINARY_RELIABILITIES, SIMULATOR_INPUT, LATENCY, LATENCY_REPORT,
+    LATENCY_DISTRIBUTION_REPORT, DEADLINE_REPORT, CHANNEL, SCHEDULE_STATISTICS, JSON_SCHEDULE,
+    JSON_RELIABILITIES, JSON_LATENCY_REPORT, JSON_DEADLINE_REPORT, JSON_SCHEDULE_STATISTICS
   }
 
   public enum WorkLoadChoices {
@@ -20,6 +20,10 @@ public class VisualizationFactory {
 			String outputDirectory, SystemChoices choice) {
 		return new VisualizationImplementation(warp, outputDirectory, choice);
 	}
+	public static Visualization createReport(WarpInterface warp, 
+			String outputDirectory, Description content, String title) {
+		return new VisualizationImplementation(warp, outputDirectory, content, title);
+	}
 	public static Visualization createVisualization(
 			WorkLoad workload, String outputDirectory, WorkLoadChoices choice) {
 		return new VisualizationImplementation(workload, outputDirectory, choice);
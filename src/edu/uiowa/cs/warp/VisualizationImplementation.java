@@ -11,8 +11,6 @@ import java.io.File;
  */
 public class VisualizationImplementation implements Visualization {
 
-  private Description visualization;
-  private Description fileContent;
   private GuiVisualization window;
   private String fileName;
   private String inputFileName;
@@ -21,6 +19,7 @@ public class VisualizationImplementation implements Visualization {
   private WarpInterface warp = null;
   private WorkLoad workLoad = null;
   private VisualizationObject visualizationObject;
+  private String text; // the visualization, rendered by the first toString()
 
 
   public VisualizationImplementation(WarpInterface warp, String outputDirectory,
@@ -33,6 +32,16 @@ public class VisualizationImplementation implements Visualization {
     createVisualization(choice);
   }
 
+  public VisualizationImplementation(WarpInterface warp, String outputDirectory,
+      Description content, String title) {
+    this.fm = new FileManager();
+    this.warp = warp;
+    inputFileName = warp.toWorkload().getInputFileName();
+    this.fileNameTemplate = createFileNameTemplate(outputDirectory);
+    visualizationObject = null;
+    createVisualization(new ReportVisualization(fm, warp, content, title));
+  }
+
   public VisualizationImplementation(WorkLoad workLoad, String outputDirectory,
       WorkLoadChoices choice) {
     this.fm = new FileManager();
@@ -54,12 +63,15 @@ public class VisualizationImplementation implements Visualization {
 
   @Override
   public void toFile() {
-    fm.writeFile(fileName, fileContent.toString());
+    visualizationObject.writeFile(fileName);
   }
 
   @Override
   public String toString() {
-    return visualization.toString();
+    if (text == null) {
+      text = visualizationObject.visualization().toString();
+    }
+    return text;
   }
 
   private void createVisualization(SystemChoices choice) {
@@ -73,9 +85,12 @@ public class VisualizationImplementation implements Visualization {
         createVisualization(new ReliabilityVisualization(warp));
         break;
 
+      case BINARY_RELIABILITIES:
+        createVisualization(new ReliabilityMatrixVisualization(warp));
+        break;
+
       case SIMULATOR_INPUT:
-        // TODO Implement Simulator Input Visualization
-        createVisualization(new NotImplentedVisualization("SimInputNotImplemented"));
+        createVisualization(new SimulatorInputVisualization(warp));
         break;
 
       case LATENCY:
@@ -90,12 +105,43 @@ public class VisualizationImplementation implements Visualization {
 
       case LATENCY_REPORT:
         createVisualization(new ReportVisualization(fm, warp,
-            new LatencyAnalysis(warp).latencyReport(), "Latency"));
+            () -> new LatencyAnalysis(warp).latencyReport(), "Latency"));
+        break;
+
+      case LATENCY_DISTRIBUTION_REPORT:
+        createVisualization(new ReportVisualization(fm, warp,
+            () -> new LatencyAnalysis(warp).latencyDistributionReport(), "LatencyDistribution"));
+        break;
+
+      case SCHEDULE_STATISTICS:
+        createVisualization(new ReportVisualization(fm, warp,
+            () -> new ScheduleStatistics(warp).statisticsReport(), "ScheduleStatistics"));
         break;
 
       case DEADLINE_REPORT:
+        createVisualization(new ReportVisualization(fm, warp,
+            () -> warp.toProgram().deadlineMisses(), "DeadlineMisses"));
+        break;
+
+      case JSON_SCHEDULE:
+        createVisualization(new JsonVisualization(warp, JsonVisualization.Content.SCHEDULE));
+        break;
+
+      case JSON_RELIABILITIES:
+        createVisualization(new JsonVisualization(warp, JsonVisualization.Content.RELIABILITIES));
+        break;
+
+      case JSON_LATENCY_REPORT:
+        createVisualization(new JsonVisualization(warp, JsonVisualization.Content.LATENCY_REPORT));
+        break;
+
+      case JSON_DEADLINE_REPORT:
+        createVisualization(new JsonVisualization(warp, JsonVisualization.Content.DEADLINE_REPORT));
+        break;
+
+      case JSON_SCHEDULE_STATISTICS:
         createVisualization(
-            new ReportVisualization(fm, warp, warp.toProgram().deadlineMisses(), "DeadlineMisses"));
+            new JsonVisualization(warp, JsonVisualization.Content.SCHEDULE_STATISTICS));
         break;
 
       default:
@@ -112,7 +158,7 @@ public class VisualizationImplementation implements Visualization {
         break;
 
       case GRAPHVIZ:
-        createVisualization(new GraphViz(fm, workLoad.toString()));
+        createVisualization(new GraphViz(fm, workLoad));
         break;
 
       case INPUT_GRAPH:
@@ -126,9 +172,7 @@ public class VisualizationImplementation implements Visualization {
   }
 
   private <T extends VisualizationObject> void createVisualization(T obj) {
-    visualization = obj.visualization();
-    fileContent = obj.fileVisualization();
-    /* display is file content printed to console */
+    /* the visualization and the file are created when they're requested */
     fileName = obj.createFile(fileNameTemplate); // in output directory
     visualizationObject = obj;
   }
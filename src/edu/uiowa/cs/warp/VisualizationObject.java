@@ -3,6 +3,9 @@
  */
 package edu.uiowa.cs.warp;
 
+import java.io.IOException;
+import java.io.Writer;
+
 /**
  * @author sgoddard
  * @version 1.5
@@ -95,8 +98,60 @@ abstract class VisualizationObject {
     return content;
   }
 
+  /**
+   * @param fileNameTemplate the output directory and input file name
+   * @return the name of the output file, with a .gz suffix when compressed output is requested
+   */
   public String createFile(String fileNameTemplate) {
-    return fm.createFile(fileNameTemplate, nameExtension, suffix);
+    var fileName = fm.createFile(fileNameTemplate, nameExtension, suffix);
+    if (FileManager.getCompressOutput() && isCompressible()) {
+      fileName += FileManager.GZIP_SUFFIX; // writeFile() compresses files named *.gz
+    }
+    return fileName;
+  }
+
+  /**
+   * @return true if the file can be written gzipped when compressed output is requested
+   */
+  protected Boolean isCompressible() {
+    return true;
+  }
+
+  /**
+   * Writes the file visualization to the file one row at a time: the header, the visualization,
+   * and the footer. Only the row being written is formatted, so writing a large table needs memory
+   * for one row. Visualizations whose files aren't text override this.
+   *
+   * @param fileName the file to write
+   */
+  public void writeFile(String fileName) {
+    try (var out = fm.openWriter(fileName)) {
+      write(out, createHeader());
+      writeVisualization(out);
+      write(out, createFooter());
+    } catch (IOException e) {
+      System.err.println("Error on writing file contents to file" + fileName + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the content of visualization() to out. A table is written from createColumnHeader()
+   * and createVisualizationRow(), one row at a time; any other visualization is written line by
+   * line from visualization().
+   *
+   * @param out the writer of the file
+   * @throws IOException if writing fails
+   */
+  protected void writeVisualization(Writer out) throws IOException {
+    var numRows = getNumVisualizationRows();
+    if (numRows < 0) {
+      write(out, visualization());
+      return;
+    }
+    writeRow(out, createColumnHeader());
+    for (int row = 0; row < numRows; row++) {
+      writeRow(out, createVisualizationRow(row));
+    }
   }
 
   public Description fileVisualization() {
@@ -127,4 +182,40 @@ abstract class VisualizationObject {
   protected String[][] createVisualizationData() {
     return visualizationData; // not implemented--returns null
   }
+
+  /**
+   * Table visualizations that can create their rows one at a time override this method and
+   * createVisualizationRow(), so the file is written without createVisualizationData().
+   *
+   * @return the number of rows of the visualization data, or -1 if the visualization isn't a table
+   */
+  protected int getNumVisualizationRows() {
+    var data = createVisualizationData();
+    return (data == null) ? -1 : data.length;
+  }
+
+  /**
+   * @param row the row index, 0 <= row < getNumVisualizationRows()
+   * @return the entries of the row of the visualization data
+   */
+  protected String[] createVisualizationRow(int row) {
+    return createVisualizationData()[row];
+  }
+
+  private static void write(Writer out, Description lines) throws IOException {
+    for (String line : lines) {
+      out.write(line);
+    }
+  }
+
+  /* the entries of the row separated by tabs, as in visualization() */
+  private static void writeRow(Writer out, String[] row) throws IOException {
+    for (int column = 0; column < row.length; column++) {
+      if (column > 0) {
+        out.write('\t');
+      }
+      out.write(String.valueOf(row[column]));
+    }
+    out.write('\n');
+  }
 }
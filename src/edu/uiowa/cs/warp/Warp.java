@@ -34,6 +34,10 @@ import argparser.StringHolder;
 import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
 import edu.uiowa.cs.warp.Visualization.SystemChoices;
 import edu.uiowa.cs.warp.Visualization.WorkLoadChoices;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 
 
@@ -59,9 +63,14 @@ public class Warp {
   private static final ScheduleChoices DEFAULT_SCHEDULER = ScheduleChoices.PRIORITY;
   /* default number of faults to be tolerated per transmission (command-line option */
   private static final Integer DEFAULT_FAULTS_TOLERATED = 0;
+  private static final Integer DEFAULT_SERVER_CACHE_SIZE = 64; // workloads and results cached
+  /* the machine-readable outputs written when JSON output is requested */
+  private static final SystemChoices[] JSON_CHOICES = {SystemChoices.JSON_SCHEDULE,
+      SystemChoices.JSON_RELIABILITIES, SystemChoices.JSON_LATENCY_REPORT,
+      SystemChoices.JSON_DEADLINE_REPORT, SystemChoices.JSON_SCHEDULE_STATISTICS};
 
   private static Integer nChannels; // number of wireless channels available for scheduling
-  private static Integer numFaults; // number of faults tolerated per edge
+  private static Integer numFaults; // number of faults tolerated per flow instance
   private static Double minLQ; // global variable for minimum Link Quality in system, later we can
                                // add local minLQ for each link
   private static Double e2e; // global variable for minimum Link Quality in system, later we can add
@@ -72,14 +81,31 @@ public class Warp {
   private static Boolean gvRequested; // GraphVis file requested flag
   private static Boolean wfRequested; // WARP file requested flag
   private static Boolean raRequested; // Reliability Analysis file requested flag
+  private static Boolean rabRequested; // binary Reliability Analysis file requested flag
   private static Boolean laRequested; // Latency Analysis file requested flag
   private static Boolean caRequested; // Channel Analysis file requested flag
   private static Boolean simRequested; // Simulation file requested flag
   private static Boolean allRequested; // all out files requested flag
   private static Boolean latencyRequested; // latency report requested flag
+  private static Boolean latencyDistributionRequested; // latency distribution report requested flag
+  private static Boolean statisticsRequested; // schedule statistics report requested flag
+  private static Integer monteCarloTrials; // number of Monte Carlo trials requested (0 => none)
   private static Boolean schedulerRequested = false;
   private static Boolean verboseMode; // verbose mode flag (mainly for running in IDE)
   private static String inputFile; // inputFile from which the graph workload is read
+  private static String linkQualityFile; // optional file of per-link packet reception rates
+  private static GilbertElliottModel burstModel; // optional bursty link model (null if none)
+  private static String traceFile; // optional trace of link outcomes to replay (null if none)
+  private static Boolean optimizeTxRequested; // reduced total Tx allocation requested flag
+  private static Boolean repairRequested; // schedule repair of flows below E2E requested flag
+  private static Boolean workLoadCacheRequested; // load/save the workload snapshot requested flag
+  private static Boolean gzipRequested; // gzipped text output files requested flag
+  private static Boolean jsonRequested; // JSON/NDJSON output files requested flag
+  private static String batchInput; // directory or glob of the workload files of a batch (or null)
+  private static Integer batchJobs; // number of workloads of a batch processed at a time
+  private static Integer serverPort; // port of the local HTTP analysis service (0 => no service)
+  private static Integer serverCacheSize; // workloads and results cached by the service
+  private static Boolean watchRequested; // process the input file again when it changes flag
   private static ScheduleChoices schedulerSelected; // Scheduler requested
   
   /**
@@ -100,9 +126,80 @@ public class Warp {
       printWarpParameters();
     }
 
-    // Create and visualize the workload
+    if (serverPort > 0) { // serve analysis requests until the JVM is stopped
+      startServer();
+    } else if (batchInput != null) { // process every workload file in the batch, in one JVM
+      new WarpBatch(batchInput, batchJobs, outputSubDirectory).run();
+    } else {
+      var systems = process(inputFile);
+      if (watchRequested && !systems.isEmpty()) { // process the file again whenever it changes
+        new WorkLoadWatcher(systems.get(0).toWorkload()).watch();
+      }
+    }
+  }
+
+  /**
+   * Starts the local HTTP analysis service, whose requests default to the command-line
+   * parameters. The service runs on its own threads until the JVM is stopped.
+   */
+  private static void startServer() {
+    var defaults = new WarpServer.Parameters(minLQ, e2e, numFaults, nChannels, schedulerSelected,
+        optimizeTxRequested);
+    try {
+      var server = new WarpServer(serverPort, serverCacheSize, defaults);
+      Runtime.getRuntime().addShutdownHook(new Thread(server::stop)); // e.g., on Ctrl-C
+      server.start();
+    } catch (IOException e) {
+      System.err.printf("\n\tERROR: Unable to start the analysis service on port %d: %s\n",
+          serverPort, e.getMessage());
+    }
+  }
+
+  /**
+   * Creates and visualizes the workload in inputFile and the WARP systems requested for it, and
+   * verifies their performance requirements. Only reads the static parameters, so workloads can be
+   * processed concurrently.
+   * @param inputFile the workload file, which may be null (the user is asked for a file)
+   * @return the WARP systems created, one per scheduler
+   */
+  static List<WarpInterface> process(String inputFile) {
+    return process(createWorkLoad(inputFile));
+  }
+
+  /**
+   * Creates the workload in inputFile with the command-line parameters. Only reads the static
+   * parameters, so workloads can be created concurrently.
+   * @param inputFile the workload file, which may be null (the user is asked for a file)
+   * @return the workload, which may not be parsed (see {@link WorkLoad#isParsed()})
+   */
+  static WorkLoad createWorkLoad(String inputFile) {
     // inputFile string, which may be null,
-    WorkLoad workLoad = new WorkLoad(numFaults, minLQ, e2e, inputFile);
+    // linkQualityFile, which may be null, overrides minLQ for the links it lists
+    LinkQuality linkQuality =
+        (linkQualityFile != null) ? new LinkQuality(minLQ, linkQualityFile) : null;
+    if (burstModel != null) { // bursty links keep the PRRs as their long-run rates
+      if (linkQuality == null) {
+        linkQuality = new LinkQuality(minLQ);
+      }
+      linkQuality.setBurstModel(burstModel);
+    }
+    // the workload snapshot is kept in the output directory, with the other output files
+    String snapshotDirectory = null;
+    if (workLoadCacheRequested) {
+      var fm = new FileManager();
+      snapshotDirectory = fm.createDirectory(fm.getBaseDirectory(), outputSubDirectory);
+    }
+    return new WorkLoad(numFaults, minLQ, e2e, inputFile, linkQuality, optimizeTxRequested,
+        snapshotDirectory);
+  }
+
+  /**
+   * Visualizes workLoad and creates, visualizes, and verifies the WARP systems requested for it.
+   * @param workLoad the finalized workload
+   * @return the WARP systems created, one per scheduler
+   */
+  static List<WarpInterface> process(WorkLoad workLoad) {
+    var systems = new ArrayList<WarpInterface>();
     if (allRequested) {
       for (WorkLoadChoices choice : WorkLoadChoices.values()) {
         visualize(workLoad, choice); // visualize all Program choices
@@ -110,18 +207,23 @@ public class Warp {
       // Create and visualize the Warp System
       if (schedulerRequested) {
         WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-        verifyPerformanceRequirements(warp);
+        systems.add(warp);
+        verifyPerformanceRequirements(warp, schedulerSelected);
         for (SystemChoices choice : SystemChoices.values()) {
           visualize(warp, choice); // visualize all System choices
         }
+        estimateReliabilities(warp);
+        replayTrace(warp);
       } else { // create a system for all scheduler choices
         for (ScheduleChoices sch : ScheduleChoices.values()) {
-          schedulerSelected = sch;
-          WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-          verifyPerformanceRequirements(warp);
+          WarpInterface warp = SystemFactory.create(workLoad, nChannels, sch);
+          systems.add(warp);
+          verifyPerformanceRequirements(warp, sch);
           for (SystemChoices choice : SystemChoices.values()) {
             visualize(warp, choice); // visualize all System choices
           }
+          estimateReliabilities(warp);
+          replayTrace(warp);
         }
       }
     } else { // visualize warp workload, source program and other requested items
@@ -133,7 +235,8 @@ public class Warp {
         visualize(workLoad, WorkLoadChoices.GRAPHVIZ);
       }
       WarpInterface warp = SystemFactory.create(workLoad, nChannels, schedulerSelected);
-      verifyPerformanceRequirements(warp);
+      systems.add(warp);
+      verifyPerformanceRequirements(warp, schedulerSelected);
       visualize(warp, SystemChoices.SOURCE);
       if (caRequested) {
         visualize(warp, SystemChoices.CHANNEL);
@@ -144,11 +247,30 @@ public class Warp {
       if (latencyRequested || laRequested) {
         visualize(warp, SystemChoices.LATENCY_REPORT);
       }
+      if (latencyDistributionRequested) {
+        visualize(warp, SystemChoices.LATENCY_DISTRIBUTION_REPORT);
+      }
+      if (statisticsRequested) {
+        visualize(warp, SystemChoices.SCHEDULE_STATISTICS);
+      }
       if (raRequested) {
         visualize(warp, SystemChoices.RELIABILITIES);
       }
+      if (rabRequested) {
+        visualize(warp, SystemChoices.BINARY_RELIABILITIES);
+      }
+      if (simRequested) {
+        visualize(warp, SystemChoices.SIMULATOR_INPUT);
+      }
+      if (jsonRequested) {
+        for (SystemChoices choice : JSON_CHOICES) {
+          visualize(warp, choice);
+        }
+      }
+      estimateReliabilities(warp);
+      replayTrace(warp);
     }
-
+    return systems;
   }
 
   /**
@@ -191,53 +313,150 @@ public class Warp {
     }
   }
 
+  /**
+   * Runs the requested number of Monte Carlo trials of the warp program and writes
+   * the MonteCarlo report. Does nothing when no trials were requested.
+   * @param warp
+   */
+  private static void estimateReliabilities(WarpInterface warp) {
+    if (monteCarloTrials > 0) {
+      var mc = new MonteCarloAnalysis(warp, monteCarloTrials, MonteCarloAnalysis.DEFAULT_SEED);
+      var viz = VisualizationFactory.createReport(warp, outputSubDirectory,
+          mc.monteCarloReport(), "MonteCarlo");
+      viz.toFile();
+      if (verboseMode) {
+        System.out.println(viz.toString());
+      }
+    }
+  }
+
+  private static void replayTrace(WarpInterface warp) {
+    if (traceFile != null) {
+      try (var trace = new LinkTrace(traceFile)) {
+        var viz = VisualizationFactory.createReport(warp, outputSubDirectory,
+            new TraceReplay(warp, trace).replayReport(), "TraceReplay");
+        viz.toFile();
+        if (verboseMode) {
+          System.out.println(viz.toString());
+        }
+      } catch (IOException e) {
+        System.err.printf("\n\tERROR: replaying link trace %s: %s\n", traceFile, e.getMessage());
+      }
+    }
+  }
+
   /**
    * Runs verification checks over if deadlines are met, if reliability targets
    * are met, and if there are channel conflicts for the input WarpInterface warp.
    * @param warp
+   * @param scheduler the scheduler that created warp
    */
-  private static void verifyPerformanceRequirements(WarpInterface warp) {
-    verifyDeadlines(warp);
-    verifyReliabilities(warp);
+  private static void verifyPerformanceRequirements(WarpInterface warp, ScheduleChoices scheduler) {
+    verifyDeadlines(warp, scheduler);
+    verifyReliabilities(warp, scheduler);
     verifyNoChannelConflicts(warp);
   }
 
   /**
    * Checks that the reliability targets are met in input warp. If reliability
-   * is not met, prints an error statement. If verboseMode is True with the input, 
+   * is not met, prints an error statement listing the failing flows. If verboseMode is True with the input, 
    * prints out statement that flows meet reliability in this instance.
    * @param warp
+   * @param scheduler the scheduler that created warp
    */
-  private static void verifyReliabilities(WarpInterface warp) {
-    if (schedulerSelected != ScheduleChoices.RTHART) {
+  private static void verifyReliabilities(WarpInterface warp, ScheduleChoices scheduler) {
+    if (scheduler != ScheduleChoices.RTHART) {
       /* RealTime HART doesn't adhere to reliability targets */
-      if (!warp.reliabilitiesMet()) {
+      if (numFaults > 0) {
+        verifyFaultTolerance(warp, scheduler);
+      } else if (!warp.reliabilitiesMet()) {
         System.err.printf(
             "\n\tERROR: Not all flows meet the end-to-end "
                 + "reliability of %s under %s scheduling.\n",
-            String.valueOf(e2e), schedulerSelected.toString());
+            String.valueOf(e2e), scheduler.toString());
+        var failures = warp.toReliabilityAnalysis().getReliabilityFailures();
+        for (var failure : failures.entrySet()) {
+          System.err.printf("\t\tFlow %s reaches its sink with reliability %s\n", failure.getKey(),
+              String.valueOf(failure.getValue()));
+        }
+        if (repairRequested) {
+          repairSchedule(warp, failures.keySet());
+        }
       } else if (verboseMode) {
         System.out.printf(
             "\n\tAll flows meet the end-to-end reliability " + "of %s under %s scheduling.\n",
-            String.valueOf(e2e), schedulerSelected.toString());
+            String.valueOf(e2e), scheduler.toString());
+      }
+    }
+  }
+
+  /**
+   * Adds retransmissions to the schedule of input warp for the flows that don't meet E2E, and
+   * prints the number of attempts added and the flows that still don't meet E2E.
+   * @param warp
+   * @param flowNames names of the flows that don't meet E2E
+   */
+  private static void repairSchedule(WarpInterface warp, Collection<String> flowNames) {
+    var repair = new ScheduleRepair(warp);
+    var failures = repair.repair(warp.toProgram().getSchedule(), flowNames);
+    System.out.printf("\n\tSchedule repair added %d transmission attempts.\n",
+        repair.getNumAttemptsAdded());
+    if (failures.isEmpty()) {
+      System.out.printf("\tAll flows meet the end-to-end reliability of %s after repair.\n",
+          String.valueOf(e2e));
+    } else {
+      System.err.printf("\tERROR: Not all flows meet the end-to-end reliability of %s after repair.\n",
+          String.valueOf(e2e));
+      for (var failure : failures.entrySet()) {
+        System.err.printf("\t\tFlow %s reaches its sink with reliability %s\n", failure.getKey(),
+            String.valueOf(failure.getValue()));
       }
     }
   }
 
+  /**
+   * Checks that every flow instance in input warp reaches its sink by its deadline with
+   * up to numFaults faults. If not, prints an error statement listing the failing flows
+   * with their worst-case latency. If verboseMode is True, prints out a statement that
+   * all flows tolerate the faults.
+   * @param warp
+   * @param scheduler the scheduler that created warp
+   */
+  private static void verifyFaultTolerance(WarpInterface warp, ScheduleChoices scheduler) {
+    if (!warp.reliabilitiesMet()) {
+      System.err.printf(
+          "\n\tERROR: Not all flows tolerate %d faults per flow instance under %s scheduling.\n",
+          numFaults, scheduler.toString());
+      var failures = warp.toFaultToleranceAnalysis().getFaultToleranceFailures();
+      for (var failure : failures.entrySet()) {
+        if (failure.getValue() == FaultToleranceAnalysis.UNKNOWN) {
+          System.err.printf("\t\tFlow %s may not reach its sink\n", failure.getKey());
+        } else {
+          System.err.printf("\t\tFlow %s has a worst-case latency of %d\n", failure.getKey(),
+              failure.getValue());
+        }
+      }
+    } else if (verboseMode) {
+      System.out.printf("\n\tAll flows tolerate %d faults per flow instance under %s scheduling.\n",
+          numFaults, scheduler.toString());
+    }
+  }
+
   /**
    * Checks if the deadlines are met in input warp. If deadlines are not met, prints
    * out an error message and visualizes a Deadline Report. If verboseMode is true for
    * input, prints out a message telling the deadlines are all met.
    * @param warp
+   * @param scheduler the scheduler that created warp
    */
-  private static void verifyDeadlines(WarpInterface warp) {
+  private static void verifyDeadlines(WarpInterface warp, ScheduleChoices scheduler) {
     if (!warp.deadlinesMet()) {
       System.err.printf("\n\tERROR: Not all flows meet their deadlines under %s scheduling.\n",
-          schedulerSelected.toString());
+          scheduler.toString());
       visualize(warp, SystemChoices.DEADLINE_REPORT);
     } else if (verboseMode) {
       System.out.printf("\n\tAll flows meet their deadlines under %s scheduling.\n",
-          schedulerSelected.toString());
+          scheduler.toString());
     }
   }
 
@@ -266,7 +485,7 @@ public class Warp {
    * schedulerSelected to see what the value wants to do and runs method before it breaks.
    * @param args
    */
-  private static void setWarpParameters(String[] args) { // move command line parsing into this
+  static void setWarpParameters(String[] args) { // move command line parsing into this
                                                          // function--need to set up globals?
 
     // create holder objects for storing results ...
@@ -280,13 +499,30 @@ public class Warp {
     BooleanHolder gv = new BooleanHolder();
     BooleanHolder wf = new BooleanHolder();
     BooleanHolder ra = new BooleanHolder();
+    BooleanHolder rab = new BooleanHolder();
     BooleanHolder la = new BooleanHolder();
     BooleanHolder ca = new BooleanHolder();
     BooleanHolder s = new BooleanHolder();
     BooleanHolder all = new BooleanHolder();
     BooleanHolder latency = new BooleanHolder();
+    BooleanHolder latencyDistribution = new BooleanHolder();
+    BooleanHolder statistics = new BooleanHolder();
+    IntHolder mc = new IntHolder();
+    BooleanHolder optimizeTx = new BooleanHolder();
+    BooleanHolder repair = new BooleanHolder();
+    BooleanHolder workLoadCache = new BooleanHolder();
+    BooleanHolder gzip = new BooleanHolder();
+    BooleanHolder json = new BooleanHolder();
+    StringHolder batch = new StringHolder();
+    IntHolder jobs = new IntHolder();
+    IntHolder serve = new IntHolder();
+    IntHolder serverCache = new IntHolder();
+    BooleanHolder watch = new BooleanHolder();
     BooleanHolder verbose = new BooleanHolder();
     StringHolder input = new StringHolder();
+    StringHolder lq = new StringHolder();
+    StringHolder ge = new StringHolder();
+    StringHolder trace = new StringHolder();
     StringHolder output = new StringHolder();
 
     // create the parser and specify the allowed options ...
@@ -298,7 +534,8 @@ public class Warp {
     parser.addOption(
         "-e, --e2e %f {[0.5,1.0]} #global end-to-end communcation reliability for all flows",
         end2end);
-    parser.addOption("-f, --faults %d {[1,10]} #number of faults per edge in a flow (per period)",
+    parser.addOption(
+        "-f, --faults %d {[1,10]} #number of transmission faults each flow instance must tolerate, on any of its edges (each edge gets faults+1 attempts)",
         faults);
     parser.addOption("-gui %v #create a gui visualizations", gui);
     parser.addOption("-gv %v #create a graph visualization (.gv) file for GraphViz", gv);
@@ -308,14 +545,67 @@ public class Warp {
     parser.addOption(
         "-ra  %v #create a reliability analysis file (tab delimited .csv) for the warp program",
         ra);
+    parser.addOption(
+        "-rab  %v #create a columnar binary reliability matrix file (.rab) for the warp program",
+        rab);
     parser.addOption(
         "-la  %v #create a latency analysis file (tab delimited .csv) for the warp program", la);
     parser.addOption(
         "-ca  %v #create a channel analysis file (tab delimited .csv) for the warp program", ca);
-    parser.addOption("-s  %v #create a simulator input file (.txt) for the warp program", s);
-    parser.addOption("-a, --all  %v #create all output files (activates -gv, -wf, -ra, -s)", all);
+    parser.addOption("-s  %v #create a simulator input file (.sim) for the warp program", s);
+    parser.addOption(
+        "-a, --all  %v #create all output files (activates -gv, -wf, -ra, -rab, -s, -la, -ca, -l, -ld, -st, -json, and the deadline misses report)",
+        all);
     parser.addOption("-l, --latency  %v #generates end-to-end latency report file (.txt)", latency);
+    parser.addOption(
+        "-ld, --latencyDistribution  %v #generates probabilistic end-to-end latency (p50/p99/p99.9) report file (.txt)",
+        latencyDistribution);
+    parser.addOption(
+        "-st, --statistics  %v #generates schedule statistics report file (.txt): channel utilization, node duty cycles, concurrency, and transmissions per flow",
+        statistics);
+    parser.addOption(
+        "-mc, --monteCarlo %d {[1,2000000000]} #number of Monte Carlo trials used to estimate flow reliabilities (.txt report)",
+        mc);
     parser.addOption("-i, --input %s #<InputFile> of graph flows (workload)", input);
+    parser.addOption(
+        "-opt, --optimizeTx %v #allocate retransmissions to links to reduce the total transmissions in each flow (greedy, a local minimum)",
+        optimizeTx);
+    parser.addOption(
+        "-repair, --repairSchedule %v #add retransmissions in free slots and channels for flows that miss E2E, instead of rescheduling",
+        repair);
+    parser.addOption(
+        "-wc, --workLoadCache %v #reuse a binary snapshot (.wls) of the parsed workload in the output directory while the input file and M/E2E/faults/link qualities are unchanged",
+        workLoadCache);
+    parser.addOption(
+        "-gz, --gzip %v #write the text output files gzipped (.gz); gzipped input files are always read",
+        gzip);
+    parser.addOption(
+        "-json, --json %v #also write the schedule and reliabilities (.ndjson, one line per time slot) and the latency report, deadline misses, and statistics (.json)",
+        json);
+    parser.addOption(
+        "-b, --batch %s #<Directory or glob> of workload files (e.g., inputs or 'inputs/*.txt') to process concurrently instead of -i; writes BatchSummary.txt",
+        batch);
+    parser.addOption(
+        "-j, --jobs %d {[1,256]} #number of workloads a batch processes at a time (default: number of processors)",
+        jobs);
+    parser.addOption(
+        "-serve, --serve %d {[1,65535]} #run a local HTTP analysis service on this port instead of processing -i: POST a workload to /analyze?scheduler=&m=&e2e=&channels=&faults=&optimizeTx= for JSON results",
+        serve);
+    parser.addOption(
+        "-serverCache, --serverCache %d {[1,100000]} #number of parsed workloads and of results the service caches (default 64)",
+        serverCache);
+    parser.addOption(
+        "-w, --watch %v #after processing -i, process it again each time the file is saved, reusing the Tx counts of unchanged flows (Ctrl-C to stop)",
+        watch);
+    parser.addOption(
+        "-lq, --linkQuality %s #<LinkQualityFile> of per-link packet reception rates (src snk prr per line); unlisted links use -m",
+        lq);
+    parser.addOption(
+        "-ge, --gilbertElliott %s #<pGoodToBad,pBadToGood[,badPrr]> bursty (Gilbert-Elliott) links per time slot, with the same long-run PRR as -m/-lq",
+        ge);
+    parser.addOption(
+        "-trace, --trace %s #<TraceFile> of recorded per-slot link outcomes (.wtr) to replay the warp program against (.txt report)",
+        trace);
     parser.addOption("-o, --output %s #<OutputDIRECTORY> where output files will be placed",
         output);
     parser.addOption(
@@ -334,7 +624,7 @@ public class Warp {
     } else {
       nChannels = NUM_CHANNELS; // set to default
     }
-    if (faults.value > 0) { // global variable for # of Faults tolerated per edge
+    if (faults.value > 0) { // global variable for # of Faults tolerated per flow instance
       numFaults = faults.value; // set option specified
     } else {
       numFaults = DEFAULT_FAULTS_TOLERATED; // set to default
@@ -359,46 +649,85 @@ public class Warp {
     gvRequested = gv.value; // GraphVis file requested flag
     wfRequested = wf.value; // WARP file requested flag
     raRequested = ra.value; // Reliability Analysis file requested flag
+    rabRequested = rab.value; // binary Reliability Analysis file requested flag
     laRequested = la.value; // Latency Analysis file requested flag
     caRequested = ca.value; // Latency Analysis file requested flag
     simRequested = s.value; // Simulation file requested flag
     allRequested = all.value; // all out files requested flag
     latencyRequested = latency.value; // latency report requested flag
+    latencyDistributionRequested = latencyDistribution.value; // latency distribution report flag
+    statisticsRequested = statistics.value; // schedule statistics report flag
+    monteCarloTrials = mc.value; // 0 when no Monte Carlo trials are requested
+    optimizeTxRequested = optimizeTx.value; // reduced total Tx allocation requested flag
+    repairRequested = repair.value; // schedule repair requested flag
+    workLoadCacheRequested = workLoadCache.value; // workload snapshot requested flag
+    gzipRequested = gzip.value; // gzipped output files requested flag
+    FileManager.setCompressOutput(gzipRequested);
+    jsonRequested = json.value; // JSON/NDJSON output files requested flag
+    batchInput = batch.value; // batch directory or glob specified (null if none)
+    if (jobs.value > 0) {
+      batchJobs = jobs.value; // set option specified
+    } else {
+      batchJobs = Runtime.getRuntime().availableProcessors(); // set to default
+    }
+    serverPort = serve.value; // 0 when no service is requested
+    if (serverCache.value > 0) {
+      serverCacheSize = serverCache.value; // set option specified
+    } else {
+      serverCacheSize = DEFAULT_SERVER_CACHE_SIZE; // set to default
+    }
+    watchRequested = watch.value; // watch the input file requested flag
     verboseMode = verbose.value; // verbose mode flag (mainly for running in IDE)
     // debugMode = debug.value; // debug mode flag (mainly for running in IDE)
     inputFile = input.value; // input file specified
+    linkQualityFile = lq.value; // link quality file specified (null if none)
+    traceFile = trace.value; // link trace file specified (null if none)
+    burstModel = null; // independent attempts unless a valid bursty link model is specified
+    if (ge.value != null) {
+      try {
+        burstModel = GilbertElliottModel.valueOf(ge.value);
+      } catch (IllegalArgumentException e) {
+        System.err.printf("\n\tERROR: %s; using independent link attempts.\n", e.getMessage());
+      }
+    }
     if (schedulerSelected.value != null) { // can't switch on a null value so check then switch
       schedulerRequested = true;
-      switch (schedulerSelected.value) {
-        case "priority":
-          Warp.schedulerSelected = ScheduleChoices.PRIORITY;
-          break;
-
-        case "rm":
-          Warp.schedulerSelected = ScheduleChoices.RM;
-          break;
-
-        case "dm":
-          Warp.schedulerSelected = ScheduleChoices.DM;
-          break;
-
-        case "rtHart":
-          Warp.schedulerSelected = ScheduleChoices.RTHART;
-          break;
-
-        case "poset":
-          Warp.schedulerSelected = ScheduleChoices.POSET_PRIORITY;
-          break;
-
-        default:
-          Warp.schedulerSelected = ScheduleChoices.PRIORITY;
-          break;
+      Warp.schedulerSelected = toScheduleChoice(schedulerSelected.value);
+      if (Warp.schedulerSelected == null) {
+        Warp.schedulerSelected = ScheduleChoices.PRIORITY;
       }
     } else { // null value when no scheduler specified; so use default
       Warp.schedulerSelected = DEFAULT_SCHEDULER;
     }
   }
 
+  /**
+   * Converts a -sch option value to its scheduler.
+   * @param name priority, rm, dm, rtHart, or poset
+   * @return the scheduler, or null if name isn't one of the options
+   */
+  static ScheduleChoices toScheduleChoice(String name) {
+    switch (name) {
+      case "priority":
+        return ScheduleChoices.PRIORITY;
+
+      case "rm":
+        return ScheduleChoices.RM;
+
+      case "dm":
+        return ScheduleChoices.DM;
+
+      case "rtHart":
+        return ScheduleChoices.RTHART;
+
+      case "poset":
+        return ScheduleChoices.POSET_PRIORITY;
+
+      default:
+        return null;
+    }
+  }
+
   /**
    * Prints out all system configuration parameters including the scheduler, channels,
    * number of faults, minimum Link Quality, end-to-end reliability, and if any flags
@@ -417,16 +746,41 @@ public class Warp {
     System.out.println("\tgvRequest flag=" + gvRequested);
     System.out.println("\twfRequest flag=" + wfRequested);
     System.out.println("\traRequest flag=" + raRequested);
+    System.out.println("\trabRequest flag=" + rabRequested);
     System.out.println("\tlaRequest flag=" + laRequested);
     System.out.println("\tcaRequest flag=" + caRequested);
     System.out.println("\tsimRequest flag=" + simRequested);
     System.out.println("\tallOutFilesRequest flag=" + allRequested);
     System.out.println("\tlatency flag=" + latencyRequested);
+    System.out.println("\tlatencyDistribution flag=" + latencyDistributionRequested);
+    System.out.println("\tstatistics flag=" + statisticsRequested);
+    System.out.println("\tmonteCarloTrials=" + monteCarloTrials);
+    System.out.println("\toptimizeTx flag=" + optimizeTxRequested);
+    System.out.println("\tworkLoadCache flag=" + workLoadCacheRequested);
+    System.out.println("\tgzip flag=" + gzipRequested);
+    System.out.println("\tjson flag=" + jsonRequested);
+    if (batchInput != null) {
+      System.out.println("\tbatch=" + batchInput + " (" + batchJobs + " jobs)");
+    }
+    if (serverPort > 0) {
+      System.out.println("\tserver port=" + serverPort + " (cache " + serverCacheSize + ")");
+    }
+    System.out.println("\twatch flag=" + watchRequested);
+    System.out.println("\trepairSchedule flag=" + repairRequested);
     if (inputFile != null) {
       System.out.println("\tinput file=" + inputFile);
     } else {
       System.out.println("\tNo input file specified; will be requested when needed.");
     }
+    if (linkQualityFile != null) {
+      System.out.println("\tlink quality file=" + linkQualityFile);
+    }
+    if (burstModel != null) {
+      System.out.println("\tGilbert-Elliott link model=" + burstModel);
+    }
+    if (traceFile != null) {
+      System.out.println("\tlink trace file=" + traceFile);
+    }
     System.out.println("\toutputSubDirectory=" + outputSubDirectory);
     System.out.println("\tverbose flag=" + verboseMode);
     // System.out.println ("\tdebug flag=" + debugMode);
@@ -0,0 +1,183 @@
+package edu.uiowa.cs.warp;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WarpBatch processes a batch of workload files in one JVM, so the JVM starts and the analyses are
+ * compiled once for the whole batch. The batch is a directory, whose .txt and .txt.gz files are the
+ * workloads, or a glob such as inputs/*.txt or 'inputs/**.txt'.
+ * <p>
+ *
+ * Each workload is created by {@link Warp#createWorkLoad(String)} and processed by
+ * {@link Warp#process(WorkLoad)} with the command-line parameters, on a fixed pool of numJobs
+ * threads. A workload that can't be parsed, or whose processing throws, is reported as failed in
+ * the summary and doesn't stop the others. The summary, one tab-delimited row per workload and
+ * scheduler in file name order, is printed and written to BatchSummary.txt in the output directory.
+ */
+final class WarpBatch {
+
+  private static final String SUMMARY_NAME = "BatchSummary";
+  private static final String SUMMARY_SUFFIX = ".txt";
+  private static final String[] WORKLOAD_SUFFIXES = {".txt", ".txt" + FileManager.GZIP_SUFFIX};
+  private static final String[] COLUMN_NAMES = {"Workload", "Scheduler", "Flows", "Time Slots",
+      "Deadlines Met", "E2E Met", "Channel Conflicts", "Seconds", "Status"};
+
+  private final String batch;
+  private final int numJobs;
+  private final String outputDirectory;
+  private final AtomicInteger numFailed = new AtomicInteger();
+
+  /**
+   * @param batch directory or glob of the workload files
+   * @param numJobs number of workloads processed at a time
+   * @param outputDirectory output subdirectory of the summary and the output files
+   */
+  WarpBatch(String batch, int numJobs, String outputDirectory) {
+    this.batch = batch;
+    this.numJobs = numJobs;
+    this.outputDirectory = outputDirectory;
+  }
+
+  /**
+   * Processes every workload of the batch and writes the summary.
+   *
+   * @return the number of workloads whose processing failed
+   */
+  int run() {
+    var files = findWorkLoads();
+    if (files.isEmpty()) {
+      System.err.printf("\n\tERROR: batch %s has no workload files\n", batch);
+      return 0;
+    }
+    var pool = Executors.newFixedThreadPool(Math.min(numJobs, files.size()));
+    var results = new ArrayList<Future<Description>>(files.size());
+    for (Path file : files) {
+      results.add(pool.submit(() -> process(file)));
+    }
+    pool.shutdown();
+    var summary = new Description();
+    summary.add(String.join("\t", COLUMN_NAMES) + "\n");
+    for (int i = 0; i < files.size(); i++) {
+      try {
+        summary.addAll(results.get(i).get());
+      } catch (InterruptedException | ExecutionException e) {
+        numFailed.incrementAndGet();
+        summary.add(failedRow(files.get(i), 0.0, e));
+      }
+    }
+    summary.add(String.format("// %d workloads, %d failed, %d jobs\n", files.size(),
+        numFailed.get(), Math.min(numJobs, files.size())));
+    writeSummary(summary);
+    return numFailed.get();
+  }
+
+  /**
+   * @return the workload files of the batch, sorted by name: the .txt and .txt.gz files of a
+   *         directory, or the files that match a glob
+   */
+  List<Path> findWorkLoads() {
+    var directory = Path.of(batch);
+    var isDirectory = Files.isDirectory(directory);
+    var glob = "glob:**";
+    if (!isDirectory) { // a glob: walk from the directory before the first wildcard
+      var wildcard = firstWildcard(batch);
+      var separator = batch.lastIndexOf(File.separatorChar, wildcard);
+      directory = Path.of((separator < 0) ? "." : batch.substring(0, separator + 1));
+      glob = "glob:" + batch.substring(separator + 1);
+    }
+    var matcher = FileSystems.getDefault().getPathMatcher(glob);
+    var start = directory;
+    try (var paths = Files.walk(start, isDirectory ? 1 : Integer.MAX_VALUE)) {
+      return paths.filter(Files::isRegularFile)
+          .filter(path -> isDirectory ? isWorkLoad(path) : matcher.matches(start.relativize(path)))
+          .map(Path::normalize).sorted().toList();
+    } catch (IOException e) {
+      System.err.printf("\n\tERROR: Unable to list batch %s: %s\n", batch, e.getMessage());
+      return new ArrayList<>();
+    }
+  }
+
+  /* one summary row per WARP system created for the workload, or a failed row */
+  private Description process(Path file) {
+    var start = System.nanoTime();
+    try {
+      var workLoad = Warp.createWorkLoad(file.toString());
+      if (!workLoad.isParsed()) { // don't schedule the flows before the syntax error
+        numFailed.incrementAndGet();
+        var rows = new Description();
+        rows.add(failedRow(file, (System.nanoTime() - start) / 1e9,
+            "parse error (see the log)"));
+        return rows;
+      }
+      var systems = Warp.process(workLoad);
+      var seconds = (System.nanoTime() - start) / 1e9;
+      var rows = new Description();
+      for (WarpInterface warp : systems) {
+        rows.add(String.format("%s\t%s\t%d\t%d\t%s\t%s\t%d\t%.3f\tOK\n", file,
+            warp.getSchedulerName(), warp.toWorkload().getFlowNames().length,
+            warp.toProgram().getSchedule().getNumRows(), warp.deadlinesMet(),
+            warp.reliabilitiesMet(), warp.toChannelAnalysis().getConflicts().size(), seconds));
+      }
+      return rows;
+    } catch (RuntimeException | StackOverflowError e) {
+      numFailed.incrementAndGet();
+      System.err.printf("\n\tERROR: Processing workload %s failed: %s\n", file, e);
+      var rows = new Description();
+      rows.add(failedRow(file, (System.nanoTime() - start) / 1e9, e));
+      return rows;
+    }
+  }
+
+  private static String failedRow(Path file, double seconds, Throwable e) {
+    var message = String.valueOf(e.getMessage()).replaceAll("\\s+", " ");
+    return failedRow(file, seconds, e.getClass().getSimpleName() + ": " + message);
+  }
+
+  private static String failedRow(Path file, double seconds, String reason) {
+    return String.format("%s\t\t\t\t\t\t\t%.3f\tFAILED: %s\n", file, seconds, reason);
+  }
+
+  private void writeSummary(Description summary) {
+    System.out.print(summary);
+    var fm = new FileManager();
+    var fileName = fm.createDirectory(fm.getBaseDirectory(), outputDirectory) + File.separator
+        + SUMMARY_NAME + SUMMARY_SUFFIX
+        + (FileManager.getCompressOutput() ? FileManager.GZIP_SUFFIX : "");
+    try (var out = fm.openWriter(fileName)) {
+      for (String row : summary) {
+        out.write(row);
+      }
+    } catch (IOException e) {
+      System.err.println("Error on writing file contents to file" + fileName + ": " + e.getMessage());
+    }
+  }
+
+  private static boolean isWorkLoad(Path path) {
+    var name = path.getFileName().toString();
+    for (String suffix : WORKLOAD_SUFFIXES) {
+      if (name.endsWith(suffix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int firstWildcard(String glob) {
+    for (int i = 0; i < glob.length(); i++) {
+      if ("*?[{".indexOf(glob.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return glob.length();
+  }
+}
@@ -21,6 +21,8 @@ public class WarpDSL {
 	private static final String UNKNOWN = "unknown";
 	public static final String UNUSED = "unused";
 	public static final String PUSH = "push";
+	public static final String HAS = "has";
+	public static final String NOT_HAS = "!has";
 	
 	public class InstructionParameters {
 		// initially parameters are marked unused. Once the grammar is updated, this will be set 
@@ -32,6 +34,8 @@ public class WarpDSL {
 		private String channel = UNUSED;
 		private String coordinator = UNKNOWN;
 		private String listener = UNKNOWN;
+		// guard of the action: HAS or NOT_HAS when the action follows an if condition, UNUSED otherwise 
+		private String condition = UNUSED;
 		
 		public String getName() {
         	return name;
@@ -60,6 +64,12 @@ public class WarpDSL {
 		public String getListener() {
 			return listener;
 		}
+		/**
+		 * @return the condition guarding this action (HAS, NOT_HAS, or UNUSED when unconditional)
+		 */
+		public String getCondition() {
+			return condition;
+		}
 		/**
 		 * @param coordinator the coordinator to set
 		 */
@@ -87,6 +97,9 @@ public class WarpDSL {
 		private void setChannel(String channel) {
        	 this.channel = channel;
         }
+		private void setCondition(String condition) {
+			this.condition = condition;
+		}
 		public String unused() {
 			return UNUSED;
 		}
@@ -118,11 +131,13 @@ public class WarpDSL {
     // Listener Class for DSL
     private final class ListenerDsl extends WARPdslBaseListener { // parses one instruction
         Boolean inAction; 
+        String pendingCondition; // condition of the most recent if, applied to the action that follows it
         ArrayList<InstructionParameters> instructionParametersArrayList;// vector of instruction parameters (each entry contains the parameters for a single structure
         InstructionParameters instructionParameters;
         
         ListenerDsl() {
             inAction = false;
+            pendingCondition = UNUSED;
             instructionParametersArrayList = new ArrayList<InstructionParameters>();
         }
         
@@ -133,6 +148,8 @@ public class WarpDSL {
         @Override public void enterAction(WARPdslParser.ActionContext ctx) {
             inAction = true;
             instructionParameters = new InstructionParameters();  // create a new instance of the parameter structure with default initialization
+            instructionParameters.setCondition(pendingCondition); // an action directly after 'else' is unconditional
+            pendingCondition = UNUSED;
         }
         
         @Override public void exitAction(WARPdslParser.ActionContext ctx) {
@@ -140,6 +157,10 @@ public class WarpDSL {
             instructionParametersArrayList.add(instructionParameters);  // this action is done, so add the parameters to the list
         }
         
+        @Override public void exitBool_expr(WARPdslParser.Bool_exprContext ctx) {
+            pendingCondition = ctx.getText().startsWith(NOT_HAS) ? NOT_HAS : HAS;
+        }
+        
         @Override public void exitFlowName(WARPdslParser.FlowNameContext ctx) {
             if (inAction) {
                 String flowName = ctx.getText(); // get the flow name
@@ -15,6 +15,8 @@ public interface WarpInterface extends SystemAttributes {
 
   public ReliabilityAnalysis toReliabilityAnalysis();
 
+  public FaultToleranceAnalysis toFaultToleranceAnalysis();
+
   public SimulatorInput toSimulator();
 
   public LatencyAnalysis toLatencyAnalysis();
@@ -0,0 +1,256 @@
+package edu.uiowa.cs.warp;
+
+import javax.json.stream.JsonGenerator;
+
+/**
+ * WarpJson writes the results of a WARP system as JSON through a streaming {@link JsonGenerator}
+ * (javax.json), so a result is written as it's read from the analyses and never built as a JSON
+ * tree. Flows are in priority order, the order of the program's transmission schedule.
+ * <p>
+ *
+ * The result of a system is one object:
+ *
+ * <pre>
+ * { "workload", "scheduler", "m", "e2e", "numChannels", "numFaults",
+ *   "program":     { "numSlots", "nodes": [name...], "schedule": [[instruction per node]...] },
+ *   "reliability": { "met", "flows": [{ "name", "instances": [e2e reliability...] }] },
+ *   "latency":     { "deadlinesMet", "flows": [{ "name", "deadline", "instances": [
+ *                      { "maxLatency", "deadlineMiss", "p50", "p99", "p99.9", "deliveredByDeadline" }
+ *                  ]}]},
+ *   "channels":    { "conflict", "conflicts": [message...] } }
+ * </pre>
+ *
+ * An unknown latency or percentile is null. Under the fixed fault model (numFaults &gt; 0) the
+ * reliability flows and latency percentiles are omitted, since they're probabilities of the
+ * independent link model.
+ */
+final class WarpJson {
+
+  private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p99", "p99.9"};
+
+  private WarpJson() {}
+
+  /**
+   * Writes the result object of warp.
+   *
+   * @param g the generator, positioned where a value can be written
+   * @param warp the WARP system
+   */
+  static void writeSystem(JsonGenerator g, WarpInterface warp) {
+    var program = warp.toProgram();
+    g.writeStartObject();
+    writeParameters(g, program);
+    g.writeStartObject("program");
+    writeProgram(g, program);
+    g.writeEnd();
+    g.writeStartObject("reliability");
+    writeReliabilities(g, warp);
+    g.writeEnd();
+    g.writeStartObject("latency");
+    writeLatencies(g, warp);
+    g.writeEnd();
+    g.writeStartObject("channels");
+    writeChannels(g, warp.toChannelAnalysis());
+    g.writeEnd();
+    g.writeEnd();
+  }
+
+  /**
+   * Writes the fields that identify the system of a program: its workload, scheduler, M, E2E,
+   * number of channels, and number of faults.
+   */
+  static void writeParameters(JsonGenerator g, Program program) {
+    g.write("workload", program.getName());
+    g.write("scheduler", program.getSchedulerName());
+    g.write("m", program.getMinPacketReceptionRate());
+    g.write("e2e", program.getE2e());
+    g.write("numChannels", program.getNumChannels());
+    g.write("numFaults", program.getNumFaults());
+  }
+
+  /**
+   * Writes the fields of the program: its number of time slots, its nodes (schedule columns), and
+   * its schedule, one array of instructions per time slot.
+   */
+  static void writeProgram(JsonGenerator g, Program program) {
+    var schedule = program.getSchedule();
+    var numColumns = schedule.getNumColumns();
+    g.write("numSlots", schedule.getNumRows());
+    g.writeStartArray("nodes");
+    for (String node : program.toWorkLoad().getNodeNamesOrderedAlphabetically()) {
+      g.write(node);
+    }
+    g.writeEnd();
+    g.writeStartArray("schedule");
+    for (int row = 0; row < schedule.getNumRows(); row++) {
+      g.writeStartArray();
+      for (int column = 0; column < numColumns; column++) {
+        writeInstruction(g, schedule.get(row, column));
+      }
+      g.writeEnd();
+    }
+    g.writeEnd();
+  }
+
+  /**
+   * Writes a schedule entry as an array value. Entries that hold no instruction, which some
+   * schedulers (e.g., poset) leave in the schedule, are written as null.
+   */
+  static void writeInstruction(JsonGenerator g, String instruction) {
+    if (instruction == null) {
+      g.writeNull();
+    } else {
+      g.write(instruction);
+    }
+  }
+
+  /**
+   * Writes the fields of the reliability analysis: whether every flow meets its reliability target
+   * and, under the independent link model, the end-to-end reliability of each flow instance.
+   */
+  static void writeReliabilities(JsonGenerator g, WarpInterface warp) {
+    g.write("met", warp.reliabilitiesMet());
+    if (warp.getNumFaults() > 0) {
+      return;
+    }
+    var ts = warp.toProgram().getTransmissionSchedule();
+    var reliabilities = warp.toReliabilityAnalysis().getInstanceReliabilities();
+    g.writeStartArray("flows");
+    for (int f = 0; f < reliabilities.length; f++) {
+      g.writeStartObject();
+      g.write("name", ts.getFlowName(f));
+      g.writeStartArray("instances");
+      for (double reliability : reliabilities[f]) {
+        g.write(reliability);
+      }
+      g.writeEnd();
+      g.writeEnd();
+    }
+    g.writeEnd();
+  }
+
+  /**
+   * Writes the fields of the latency analysis: whether every flow meets its deadlines, and for each
+   * flow instance its maximum latency and, under the independent link model, its latency
+   * percentiles and probability of delivery by the deadline.
+   */
+  static void writeLatencies(JsonGenerator g, WarpInterface warp) {
+    var ts = warp.toProgram().getTransmissionSchedule();
+    var latencies = warp.toLatencyAnalysis().getMaxLatencies();
+    var distributions = (warp.getNumFaults() > 0) ? null
+        : warp.toReliabilityAnalysis().getLatencyDistributions();
+    g.write("deadlinesMet", warp.deadlinesMet());
+    g.writeStartArray("flows");
+    for (int f = 0; f < latencies.length; f++) {
+      g.writeStartObject();
+      g.write("name", ts.getFlowName(f));
+      g.write("deadline", ts.getDeadline(f));
+      g.writeStartArray("instances");
+      for (int k = 0; k < latencies[f].length; k++) {
+        g.writeStartObject();
+        writeLatency(g, "maxLatency", latencies[f][k]);
+        g.write("deadlineMiss", isDeadlineMiss(latencies[f][k], ts.getDeadline(f)));
+        if (distributions != null && k < distributions[f].getNumInstances()) {
+          for (int p = 0; p < PERCENTILES.length; p++) {
+            writeLatency(g, PERCENTILE_NAMES[p], distributions[f].getPercentile(k, PERCENTILES[p]));
+          }
+          g.write("deliveredByDeadline", distributions[f].getProbabilityDeliveredByDeadline(k));
+        }
+        g.writeEnd();
+      }
+      g.writeEnd();
+      g.writeEnd();
+    }
+    g.writeEnd();
+  }
+
+  /**
+   * Writes the fields of the deadline misses of the program: whether every flow instance meets its
+   * deadline and, for each instance that doesn't, its flow, instance, latency, and deadline, as in
+   * the deadline misses report.
+   */
+  static void writeDeadlineMisses(JsonGenerator g, WarpInterface warp) {
+    g.write("deadlinesMet", warp.deadlinesMet());
+    g.writeStartArray("misses");
+    for (Program.DeadlineMiss miss : warp.toProgram().getDeadlineMisses()) {
+      g.writeStartObject();
+      g.write("flow", miss.flowName);
+      g.write("instance", miss.instance);
+      g.write("latency", miss.latency);
+      g.write("deadline", miss.deadline);
+      g.writeEnd();
+    }
+    g.writeEnd();
+  }
+
+  /**
+   * Writes the fields of the schedule statistics of a program: its time slots, idle time slots,
+   * time slots used on each channel, non-sleep time slots of each node, concurrency histogram, and
+   * the transmissions scheduled and required for each flow.
+   */
+  static void writeStatistics(JsonGenerator g, Program program, ScheduleStatistics statistics) {
+    var ts = program.getTransmissionSchedule();
+    var concurrency = statistics.getConcurrencyHistogram();
+    g.write("numSlots", ts.getNumSlots());
+    g.write("idleSlots", concurrency[0]);
+    g.write("outOfRangeChannelAttempts", statistics.getOutOfRangeChannelAttempts());
+    g.writeStartArray("channelSlots");
+    for (int slots : statistics.getChannelSlots()) {
+      g.write(slots);
+    }
+    g.writeEnd();
+    var nodeNames = program.toWorkLoad().getNodeNamesOrderedAlphabetically();
+    var busySlots = statistics.getNodeBusySlots();
+    g.writeStartArray("nodes");
+    for (int node = 0; node < nodeNames.length; node++) {
+      g.writeStartObject().write("name", nodeNames[node]).write("busySlots", busySlots[node])
+          .writeEnd();
+    }
+    g.writeEnd();
+    g.writeStartArray("concurrency");
+    for (int slots : concurrency) {
+      g.write(slots);
+    }
+    g.writeEnd();
+    g.writeStartArray("flows");
+    for (int f = 0; f < ts.getNumFlows(); f++) {
+      g.writeStartObject();
+      g.write("name", ts.getFlowName(f));
+      g.write("instances", ts.getNumInstances(f));
+      g.write("pushes", statistics.getScheduledPushes(f));
+      g.write("pulls", statistics.getScheduledPulls(f));
+      g.write("required", statistics.getRequiredTransmissions(f));
+      g.writeEnd();
+    }
+    g.writeEnd();
+  }
+
+  /**
+   * Writes the fields of the channel analysis: whether there's a conflict and one message per
+   * conflict.
+   */
+  static void writeChannels(JsonGenerator g, ChannelAnalysis ca) {
+    var conflicts = ca.getConflicts();
+    g.write("conflict", !conflicts.isEmpty());
+    g.writeStartArray("conflicts");
+    for (String conflict : conflicts) {
+      g.write(conflict.strip());
+    }
+    g.writeEnd();
+  }
+
+  /* an instance whose latency is unknown isn't delivered within its window, as the program reports */
+  private static boolean isDeadlineMiss(int latency, int deadline) {
+    return latency == LatencyAnalysis.UNKNOWN || latency > deadline;
+  }
+
+  /* LatencyAnalysis.UNKNOWN and LatencyDistribution.UNKNOWN are both -1 */
+  private static void writeLatency(JsonGenerator g, String name, int latency) {
+    if (latency < 0) {
+      g.writeNull(name);
+    } else {
+      g.write(name, latency);
+    }
+  }
+}
@@ -0,0 +1,377 @@
+package edu.uiowa.cs.warp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.json.Json;
+
+/**
+ * WarpServer is a resident WARP analysis service with a local HTTP API, so interactive requests
+ * don't pay for JVM startup and warm-up. It listens on the loopback address only.
+ * <p>
+ *
+ * POST /analyze takes a workload in the body and the parameters in the query string: scheduler
+ * (priority, rm, dm, rtHart, or poset), m, e2e, channels, faults, and optimizeTx (true or false).
+ * Parameters that aren't given have their command-line values. The response is the result of the
+ * WARP system as JSON ({@link WarpJson}); header X-Warp-Cache tells whether it was cached. GET /stats
+ * returns the cache counters.
+ * <p>
+ *
+ * Parsed workloads are cached by the SHA-256 of their text and the parameters that finalize them
+ * (m, e2e, faults, optimizeTx), and results by that key plus the scheduler and channels. Both caches
+ * evict their least recently used entries, and the posted file of an evicted workload is deleted.
+ * Building a program reorders the flows of its workload, so a cached workload is analyzed by one
+ * request at a time.
+ */
+final class WarpServer {
+
+  private static final String ANALYZE_PATH = "/analyze";
+  private static final String STATS_PATH = "/stats";
+  private static final String JSON_TYPE = "application/json; charset=utf-8";
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final Parameters defaults;
+  private final Path workLoadDirectory; // posted workloads, one file per cached workload
+  private final LruCache<String, WorkLoad> workLoads;
+  private final LruCache<String, byte[]> results;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * @param port the port, or 0 for any free port
+   * @param cacheSize the number of workloads and of results kept
+   * @param defaults the parameters of requests that don't give them
+   * @throws IOException if the server can't be created
+   */
+  WarpServer(int port, int cacheSize, Parameters defaults) throws IOException {
+    this.defaults = defaults;
+    this.workLoads = new LruCache<>(cacheSize, this::deleteFile);
+    this.results = new LruCache<>(cacheSize, null);
+    this.workLoadDirectory = Files.createTempDirectory("warp-server");
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext(ANALYZE_PATH, this::analyze);
+    server.createContext(STATS_PATH, this::stats);
+    executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    server.setExecutor(executor);
+  }
+
+  /**
+   * Starts the service on its own threads.
+   */
+  void start() {
+    server.start();
+    System.out.printf("WARP analysis service listening on http://%s:%d%s\n",
+        server.getAddress().getHostString(), getPort(), ANALYZE_PATH);
+  }
+
+  /**
+   * Stops the service and deletes the posted workloads.
+   */
+  void stop() {
+    server.stop(0);
+    executor.shutdown();
+    try (var files = Files.list(workLoadDirectory)) {
+      files.forEach(file -> file.toFile().delete());
+    } catch (IOException e) {
+      System.err.println("Failed to delete the posted workloads: " + e.getMessage());
+    }
+    workLoadDirectory.toFile().delete();
+  }
+
+  /**
+   * @return the port the service listens on
+   */
+  int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * @return the directory of the posted workloads
+   */
+  Path getWorkLoadDirectory() {
+    return workLoadDirectory;
+  }
+
+  private void analyze(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        sendError(exchange, 405, "use POST with the workload in the body");
+        return;
+      }
+      Parameters parameters;
+      try {
+        parameters = defaults.withQuery(exchange.getRequestURI().getRawQuery());
+      } catch (IllegalArgumentException e) {
+        sendError(exchange, 400, e.getMessage());
+        return;
+      }
+      var text = exchange.getRequestBody().readAllBytes();
+      var textHash = sha256(text);
+      var workLoadKey = textHash + parameters.workLoadKey();
+      var resultKey = workLoadKey + parameters.systemKey();
+      var result = results.get(resultKey);
+      var cached = result != null;
+      if (cached) {
+        hits.incrementAndGet();
+      } else {
+        misses.incrementAndGet();
+        try {
+          result = createResult(workLoadKey, textHash, text, parameters);
+        } catch (IllegalArgumentException e) {
+          sendError(exchange, 400, e.getMessage());
+          return;
+        } catch (RuntimeException | StackOverflowError e) {
+          sendError(exchange, 500, "analysis failed: " + e);
+          return;
+        }
+        results.put(resultKey, result);
+      }
+      exchange.getResponseHeaders().set("X-Warp-Cache", cached ? "hit" : "miss");
+      send(exchange, 200, result);
+    }
+  }
+
+  private void stats(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      var body = new ByteArrayOutputStream();
+      try (var g = Json.createGenerator(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+        g.writeStartObject();
+        g.write("workloads", workLoads.size());
+        g.write("results", results.size());
+        g.write("hits", hits.get());
+        g.write("misses", misses.get());
+        g.writeEnd();
+      }
+      send(exchange, 200, body.toByteArray());
+    }
+  }
+
+  /*
+   * parses the workload, or reuses its cached parse, and writes the result of its system. Each
+   * parse has its own file, which is deleted when its workload isn't cached or is evicted.
+   */
+  private byte[] createResult(String workLoadKey, String textHash, byte[] text,
+      Parameters parameters) throws IOException {
+    var workLoad = workLoads.get(workLoadKey);
+    if (workLoad == null) {
+      var file = Files.createTempFile(workLoadDirectory, textHash.substring(0, 16) + ".", ".txt");
+      Files.write(file, text);
+      workLoad = new WorkLoad(parameters.numFaults, parameters.m, parameters.e2e, file.toString(),
+          null, parameters.optimizeTx, null);
+      if (!workLoad.isParsed()) {
+        deleteFile(workLoad);
+        throw new IllegalArgumentException("the workload can't be parsed (see the server log)");
+      }
+      if (workLoad.getFlowNamesInOriginalOrder().isEmpty()) {
+        deleteFile(workLoad);
+        throw new IllegalArgumentException("the workload has no flows (see the server log)");
+      }
+      workLoads.put(workLoadKey, workLoad);
+    }
+    var body = new ByteArrayOutputStream();
+    synchronized (workLoad) { // programs reorder the flows of their workload
+      var warp = SystemFactory.create(workLoad, parameters.numChannels, parameters.scheduler);
+      try (var g = Json.createGenerator(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+        WarpJson.writeSystem(g, warp);
+      }
+    }
+    return body.toByteArray();
+  }
+
+  /* deletes the posted file of a workload */
+  private void deleteFile(WorkLoad workLoad) {
+    try {
+      Files.deleteIfExists(Path.of(workLoad.getInputFileName()));
+    } catch (IOException e) {
+      System.err.println("Failed to delete a posted workload: " + e.getMessage());
+    }
+  }
+
+  private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", JSON_TYPE);
+    exchange.sendResponseHeaders(status, body.length);
+    exchange.getResponseBody().write(body);
+  }
+
+  private static void sendError(HttpExchange exchange, int status, String message)
+      throws IOException {
+    var body = new ByteArrayOutputStream();
+    try (var g = Json.createGenerator(new OutputStreamWriter(body, StandardCharsets.UTF_8))) {
+      g.writeStartObject().write("error", message).writeEnd();
+    }
+    send(exchange, status, body.toByteArray());
+  }
+
+  private static String sha256(byte[] text) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e); // every JDK has SHA-256
+    }
+  }
+
+  /**
+   * The parameters of an analysis request.
+   */
+  static final class Parameters {
+    private final Double m;
+    private final Double e2e;
+    private final Integer numFaults;
+    private final Integer numChannels;
+    private final ScheduleChoices scheduler;
+    private final Boolean optimizeTx;
+
+    Parameters(Double m, Double e2e, Integer numFaults, Integer numChannels,
+        ScheduleChoices scheduler, Boolean optimizeTx) {
+      this.m = m;
+      this.e2e = e2e;
+      this.numFaults = numFaults;
+      this.numChannels = numChannels;
+      this.scheduler = scheduler;
+      this.optimizeTx = optimizeTx;
+    }
+
+    /**
+     * @param query the raw query string of a request, which may be null
+     * @return these parameters, with the ones given in the query replaced
+     * @throws IllegalArgumentException if a parameter is unknown or its value is invalid
+     */
+    Parameters withQuery(String query) {
+      var values = new LinkedHashMap<String, String>();
+      if (query != null && !query.isEmpty()) {
+        for (String pair : query.split("&")) {
+          var equals = pair.indexOf('=');
+          var name = URLDecoder.decode((equals < 0) ? pair : pair.substring(0, equals),
+              StandardCharsets.UTF_8);
+          values.put(name, (equals < 0) ? ""
+              : URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+      }
+      var m = this.m;
+      var e2e = this.e2e;
+      var numFaults = this.numFaults;
+      var numChannels = this.numChannels;
+      var scheduler = this.scheduler;
+      var optimizeTx = this.optimizeTx;
+      for (Map.Entry<String, String> entry : values.entrySet()) {
+        var value = entry.getValue();
+        switch (entry.getKey()) {
+          case "m":
+            m = parseDouble("m", value, 0.5, 1.0);
+            break;
+          case "e2e":
+            e2e = parseDouble("e2e", value, 0.5, 1.0);
+            break;
+          case "faults":
+            numFaults = parseInt("faults", value, 0, 10);
+            break;
+          case "channels":
+            numChannels = parseInt("channels", value, 1, 16);
+            break;
+          case "scheduler":
+            scheduler = Warp.toScheduleChoice(value);
+            if (scheduler == null) {
+              throw new IllegalArgumentException("unknown scheduler " + value);
+            }
+            break;
+          case "optimizeTx":
+            optimizeTx = Boolean.valueOf(value);
+            break;
+          default:
+            throw new IllegalArgumentException("unknown parameter " + entry.getKey());
+        }
+      }
+      return new Parameters(m, e2e, numFaults, numChannels, scheduler, optimizeTx);
+    }
+
+    /* the parameters a finalized workload depends on */
+    String workLoadKey() {
+      return String.format(":%s:%s:%d:%s", m, e2e, numFaults, optimizeTx);
+    }
+
+    /* the parameters a system depends on, besides its workload */
+    String systemKey() {
+      return String.format(":%s:%d", scheduler, numChannels);
+    }
+
+    private static double parseDouble(String name, String value, double min, double max) {
+      try {
+        var number = Double.parseDouble(value);
+        if (number >= min && number <= max) {
+          return number;
+        }
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      throw new IllegalArgumentException(
+          String.format("%s must be a number in [%s,%s]: %s", name, min, max, value));
+    }
+
+    private static int parseInt(String name, String value, int min, int max) {
+      try {
+        var number = Integer.parseInt(value);
+        if (number >= min && number <= max) {
+          return number;
+        }
+      } catch (NumberFormatException e) {
+        // reported below
+      }
+      throw new IllegalArgumentException(
+          String.format("%s must be an integer in [%d,%d]: %s", name, min, max, value));
+    }
+  }
+
+  /*
+   * a map that evicts its least recently used entry when it's full, and passes the evicted value to
+   * onEviction, if it isn't null
+   */
+  private static final class LruCache<K, V> {
+    private final LinkedHashMap<K, V> map;
+
+    LruCache(int maxEntries, Consumer<V> onEviction) {
+      map = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+          var evict = size() > maxEntries;
+          if (evict && onEviction != null) {
+            onEviction.accept(eldest.getValue());
+          }
+          return evict;
+        }
+      };
+    }
+
+    synchronized V get(K key) {
+      return map.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+      map.put(key, value);
+    }
+
+    synchronized int size() {
+      return map.size();
+    }
+  }
+}
@@ -14,8 +14,10 @@ public class WarpSystem implements WarpInterface {
   private Program program;
   private WorkLoad workLoad;
   private ReliabilityAnalysis ra;
+  private FaultToleranceAnalysis fta;
   private LatencyAnalysis la;
   private ChannelAnalysis ca;
+  private SimulatorInput si;
   private Integer numChannels;
   private Boolean verboseMode = false;
   private Boolean latencyRequested = false;
@@ -38,14 +40,26 @@ public class WarpSystem implements WarpInterface {
 
   @Override
   public ReliabilityAnalysis toReliabilityAnalysis() {
-      ra = new ReliabilityAnalysis(workLoad.getE2e(), workLoad.getMinPacketReceptionRate());
+      if (ra == null) {
+          ra = new ReliabilityAnalysis(program);
+      }
       return ra;
   }
 
+  @Override
+  public FaultToleranceAnalysis toFaultToleranceAnalysis() {
+      if (fta == null) {
+          fta = new FaultToleranceAnalysis(program);
+      }
+      return fta;
+  }
+
   @Override
   public SimulatorInput toSimulator() {
-    // TODO Auto-generated method stub
-    return null;
+      if (si == null) {
+          si = new SimulatorInput(program);
+      }
+      return si;
   }
 
   @Override
@@ -57,17 +71,18 @@ public class WarpSystem implements WarpInterface {
 
   @Override
   public ChannelAnalysis toChannelAnalysis() {
-    // TODO Auto-generated method stub
-    ca = new ChannelAnalysis(this);
+    if (ca == null) {
+      ca = new ChannelAnalysis(this);
+    }
     return ca;
   }
 
   @Override
   public Boolean reliabilitiesMet() {
-      if (ra == null) {
-          ra = new ReliabilityAnalysis(workLoad.getE2e(), workLoad.getMinPacketReceptionRate());
+      if (getNumFaults() > 0) { // fixed fault model: check worst-case delivery under numFaults
+          return toFaultToleranceAnalysis().verifyFaultTolerance();
       }
-      return ra.verifyReliabilities();
+      return toReliabilityAnalysis().verifyReliabilities();
   }
 
 
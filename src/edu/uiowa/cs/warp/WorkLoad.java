@@ -8,7 +8,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-// import java.util.HashMap;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -41,6 +41,8 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
   private Integer numFaults = 0;
   private Double minPacketReceptionRate = 0.0;
   private Double e2e = 0.0;
+  private LinkQuality linkQuality = null; // per-link PRRs; null => M for every link
+  private Boolean optimizeTxAllocation = false; // reduce total Tx per flow instead of per-hop targets
   private Boolean intForNodeNames = false;
   private Boolean intForFlowNames = false;
   private FlowMap flows; // map of all flow nodes in the WARP graph (<name, Flow>)
@@ -51,6 +53,9 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
                                                                           // flows to preserve their
                                                                           // order
   private ArrayList<String> flowNamesInPriorityOrder = new ArrayList<>();
+  private HashMap<String, Flow> reusableFlows = null; // finalized flows by definition, while parsing
+  private Integer numFlowsReused = 0;
+  private Boolean parsed = false; // true if the input file was read and parsed without errors
   // private FileManager fm;
 
   /**
@@ -71,7 +76,7 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
       setDefaultParameters();
       this.minPacketReceptionRate = (m != null) ? m : 0.9; // Default to 0.9 if null
       this.e2e = (e2e != null) ? e2e : 0.99; // Default to 0.99 if null
-      WorkLoadListener.buildNodesAndFlows(this);
+      parsed = WorkLoadParser.buildNodesAndFlows(this);
   }
 
   /**
@@ -82,12 +87,98 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
    * @param inputFileName Name of the input file
    */
   public WorkLoad(Integer numFaults, Double m, Double e2e, String inputFileName) {
+      this(numFaults, m, e2e, inputFileName, null);
+  }
+
+  /**
+   * Constructs a WorkLoad object with specified fault tolerance parameters and per-link packet
+   * reception rates by reading and processing an input file.
+   * @param numFaults Number of faults allowed per flow
+   * @param m Minimum packet reception rate, used for links without a listed PRR
+   * @param e2e End-to-end reliability requirement
+   * @param inputFileName Name of the input file
+   * @param linkQuality Per-link packet reception rates, or null to use m for every link
+   */
+  public WorkLoad(Integer numFaults, Double m, Double e2e, String inputFileName,
+      LinkQuality linkQuality) {
+      this(numFaults, m, e2e, inputFileName, linkQuality, false);
+  }
+
+  /**
+   * Constructs a WorkLoad object with specified fault tolerance parameters, per-link packet
+   * reception rates, and retransmission allocation by reading and processing an input file.
+   * @param numFaults Number of faults allowed per flow
+   * @param m Minimum packet reception rate, used for links without a listed PRR
+   * @param e2e End-to-end reliability requirement
+   * @param inputFileName Name of the input file
+   * @param linkQuality Per-link packet reception rates, or null to use m for every link
+   * @param optimizeTxAllocation true to allocate Tx attempts to links so that the total per flow is
+   *        greedily reduced to a local minimum, false to use a uniform reliability target for each link
+   */
+  public WorkLoad(Integer numFaults, Double m, Double e2e, String inputFileName,
+      LinkQuality linkQuality, Boolean optimizeTxAllocation) {
+      this(numFaults, m, e2e, inputFileName, linkQuality, optimizeTxAllocation, null);
+  }
+
+  /**
+   * Constructs a WorkLoad object like the constructor above, loading it from a binary snapshot of
+   * the finalized workload when the snapshot matches the input file and parameters, and otherwise
+   * parsing the input file and saving its snapshot.
+   * @param numFaults Number of faults allowed per flow
+   * @param m Minimum packet reception rate, used for links without a listed PRR
+   * @param e2e End-to-end reliability requirement
+   * @param inputFileName Name of the input file
+   * @param linkQuality Per-link packet reception rates, or null to use m for every link
+   * @param optimizeTxAllocation true to greedily reduce the total Tx attempts per flow
+   * @param snapshotDirectory directory of the workload snapshot (.wls), or null to always parse
+   */
+  public WorkLoad(Integer numFaults, Double m, Double e2e, String inputFileName,
+      LinkQuality linkQuality, Boolean optimizeTxAllocation, String snapshotDirectory) {
       super(inputFileName);
       setDefaultParameters();
       this.numFaults = (numFaults != null) ? numFaults : 1; // Default to 1 if null
       this.minPacketReceptionRate = (m != null) ? m : 0.9; // Default to 0.9 if null
       this.e2e = (e2e != null) ? e2e : 0.99; // Default to 0.99 if null
-      WorkLoadListener.buildNodesAndFlows(this);
+      this.linkQuality = linkQuality;
+      this.optimizeTxAllocation = optimizeTxAllocation;
+      if (snapshotDirectory == null) {
+        parsed = WorkLoadParser.buildNodesAndFlows(this);
+        return;
+      }
+      var snapshot = WorkLoadSnapshot.snapshotFile(snapshotDirectory, getInputFileName());
+      var key = WorkLoadSnapshot.key(this);
+      parsed = WorkLoadSnapshot.load(this, snapshot, key); // only parsed workloads are saved
+      if (!parsed) {
+        setDefaultParameters(); // discard anything a bad snapshot may have added
+        this.numFaults = (numFaults != null) ? numFaults : 1;
+        parsed = WorkLoadParser.buildNodesAndFlows(this);
+        if (parsed) {
+          WorkLoadSnapshot.save(this, snapshot, key);
+        }
+      }
+  }
+
+  /**
+   * Constructs a WorkLoad object by reading the input file of a previous WorkLoad again, with the
+   * previous workload's parameters. A flow whose definition hasn't changed (see
+   * {@link #flowDefinition(Flow)}) reuses the previous flow's finalized Tx counts instead of being
+   * finalized again.
+   * @param previous the workload read from the same file before it changed
+   */
+  WorkLoad(WorkLoad previous) {
+      super(previous.getInputFileName());
+      setDefaultParameters();
+      this.numFaults = previous.numFaults;
+      this.minPacketReceptionRate = previous.minPacketReceptionRate;
+      this.e2e = previous.e2e;
+      this.linkQuality = previous.linkQuality;
+      this.optimizeTxAllocation = previous.optimizeTxAllocation;
+      reusableFlows = new HashMap<>();
+      for (Flow flow : previous.flows.values()) {
+        reusableFlows.put(flowDefinition(flow), flow);
+      }
+      parsed = WorkLoadParser.buildNodesAndFlows(this);
+      reusableFlows = null;
   }
 
   /**
@@ -104,6 +195,14 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     numFaults = DEFAULT_TX_NUM;
   }
 
+  /**
+   * @return true if the input file was read and parsed without errors; false if it couldn't be read
+   *         or has a syntax error, in which case the workload holds only the flows before the error
+   */
+  public Boolean isParsed() {
+    return parsed;
+  }
+
   /**
    * @return the numFaults
    */
@@ -125,6 +224,38 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     return e2e;
   }
 
+  /**
+   * @return the per-link packet reception rates, or null when M is used for every link
+   */
+  public LinkQuality getLinkQuality() {
+    return linkQuality;
+  }
+
+  /**
+   * @return the Gilbert-Elliott model of bursty links, or null when attempts are independent
+   */
+  public GilbertElliottModel getBurstModel() {
+    return (linkQuality == null) ? null : linkQuality.getBurstModel();
+  }
+
+  /**
+   * @return true when Tx attempts are allocated to reduce the total per flow
+   */
+  public Boolean getOptimizeTxAllocation() {
+    return optimizeTxAllocation;
+  }
+
+  /**
+   * Returns the packet reception rate of link src->snk, which is M unless a link quality was
+   * provided for the work load.
+   * @param src name of the link's src node
+   * @param snk name of the link's snk node
+   * @return the PRR of the link
+   */
+  public Double getLinkPrr(String src, String snk) {
+    return (linkQuality == null) ? minPacketReceptionRate : linkQuality.getPrr(src, snk);
+  }
+
   /**
    * @return the intForNodeNames
    */
@@ -292,7 +423,7 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     var index = flows.size();
     var flowNode = new Flow(flowName, index, index);
     flows.put(flowName, flowNode);
-    if (!Utilities.isInteger(flowName) && intForFlowNames) {
+    if (intForFlowNames && !Utilities.isInteger(flowName)) {
       intForFlowNames = false; // set false because name not is a number; && above makes sure we
                                // only set it once
     }
@@ -316,7 +447,7 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
  * @param nodeName
  */
   public void addNodeToFlow(String flowName, String nodeName) {
-    if (!Utilities.isInteger(nodeName) && intForNodeNames) {
+    if (intForNodeNames && !Utilities.isInteger(nodeName)) {
       /* set false because name not is a number; && above makes sure we only set it once */
       intForNodeNames = false;
     }
@@ -525,6 +656,9 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
   }
 
   public void finalizeCurrentFlow(String flowName) {
+    if (reusableFlows != null && reuseFinalizedFlow(flowName)) {
+      return;
+    }
     if (numFaults > 0) {
       finalizeFlowWithFixedFaultTolerance(flowName);
     } else {
@@ -532,6 +666,42 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     }
   }
 
+  /**
+   * @return the number of flows whose finalized Tx counts were reused from a previous workload
+   */
+  Integer getNumFlowsReused() {
+    return numFlowsReused;
+  }
+
+  /**
+   * The definition of a flow is everything its finalized Tx counts depend on besides the workload
+   * parameters: its name, priority, period, deadline, phase, and nodes.
+   * @param flow the flow
+   * @return the definition of flow, equal for flows that finalize the same way
+   */
+  static String flowDefinition(Flow flow) {
+    var definition = new StringBuilder(flow.getName());
+    definition.append('(').append(flow.getPriority()).append(',').append(flow.getPeriod())
+        .append(',').append(flow.getDeadline()).append(',').append(flow.getPhase()).append("):");
+    for (Node node : flow.nodes) {
+      definition.append(node.getName()).append("->");
+    }
+    return definition.toString();
+  }
+
+  /* copies the finalized values of an unchanged flow of the previous workload */
+  private boolean reuseFinalizedFlow(String flowName) {
+    var flow = flows.get(flowName);
+    var previous = reusableFlows.get(flowDefinition(flow));
+    if (previous == null) {
+      return false;
+    }
+    flow.numTxPerLink = previous.numTxPerLink;
+    flow.linkTxAndTotalCost = new ArrayList<>(previous.linkTxAndTotalCost);
+    numFlowsReused++;
+    return true;
+  }
+
   public Integer nextReleaseTime(String flowName, Integer currentTime) {
     var flow = getFlow(flowName);
     flow.setLastUpdateTime(currentTime);
@@ -551,6 +721,10 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     var m = minPacketReceptionRate; // shorten the name :-)
     if (flowNode != null) {
       var nodes = flowNode.nodes;
+      /* a fixed number of Tx per link has to cover the weakest link in the flow */
+      for (int i = 0; i < nodes.size() - 1; i++) {
+        m = Math.min(m, getLinkPrr(nodes.get(i).getName(), nodes.get(i + 1).getName()));
+      }
       int nHops = nodes.size();
       if (nHops < 1) {
         /*
@@ -571,7 +745,7 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
       /* set numTxPerLink based on M, E2E, and flow length */
       flowNode.numTxPerLink = (int) Math.ceil(nTx);
       /* Now compute nTx per link to reach E2E requirement. */
-      ReliabilityAnalysis ra = new ReliabilityAnalysis(numFaults);
+      ReliabilityAnalysis ra = new ReliabilityAnalysis(e2e, this);
       ArrayList<Integer> linkTxAndTotalCost = ra.numTxPerLinkAndTotalTxCost(flowNode);
       flowNode.linkTxAndTotalCost = linkTxAndTotalCost;
       flows.put(flowName, flowNode); // update flow node in Flows array
@@ -586,8 +760,8 @@ public class WorkLoad extends WorkLoadDescription implements ReliabilityParamete
     if (flowNode != null) {
       /* set numTxPerLink based on numFaults */
       flowNode.numTxPerLink = numFaults + 1;
-      /* Now compute nTx per link to reach E2E requirement. */
-      ReliabilityAnalysis ra = new ReliabilityAnalysis(e2e, minPacketReceptionRate);
+      /* Now compute nTx per link to tolerate numFaults on each link. */
+      ReliabilityAnalysis ra = new ReliabilityAnalysis(numFaults);
       ArrayList<Integer> linkTxAndTotalCost = ra.numTxPerLinkAndTotalTxCost(flowNode);
       flowNode.linkTxAndTotalCost = linkTxAndTotalCost;
       flows.put(flowName, flowNode); // update flow node in Flows array
@@ -3,10 +3,16 @@
  */
 package edu.uiowa.cs.warp;
 
+import java.io.IOException;
+
 /**
  * Reads the input file, whose name is passed as input parameter to the constructor, and builds a
  * Description object based on the contents. Each line of the file is an entry (string) in the
  * Description object.
+ * <p>
+ * 
+ * The contents are not kept: WorkLoad parses the file as a stream with WorkLoadParser, and the file is
+ * read again, line by line, only when its Description or String is requested.
  * 
  * @author sgoddard
  * @version 1.8 Fall 2024
@@ -16,8 +22,6 @@ public class WorkLoadDescription extends VisualizationObject {
   private static final String EMPTY = "";
   private static final String INPUT_FILE_SUFFIX = ".wld";
 
-  private Description description;
-  private String inputGraphString;
   private FileManager fm;
   private String inputFileName;
 
@@ -29,17 +33,17 @@ public class WorkLoadDescription extends VisualizationObject {
 
   @Override
   public Description visualization() {
-    return description;
+    return readDescription();
   }
 
   @Override
   public Description fileVisualization() {
-    return description;
+    return readDescription();
   }
 
   @Override
   public String toString() {
-    return inputGraphString;
+    return fm.readFile(inputFileName);
   }
 
   public String getInputFileName() {
@@ -47,10 +51,29 @@ public class WorkLoadDescription extends VisualizationObject {
   }
 
   private void initialize(String inputFile) {
-    // Get the input graph file name and read its contents
+    // Get the input graph file name; its contents are read when needed
     InputGraphFile gf = new InputGraphFile(fm);
-    inputGraphString = gf.readGraphFile(inputFile);
-    this.inputFileName = gf.getGraphFileName();
-    description = new Description(inputGraphString);
+    this.inputFileName = gf.findGraphFile(inputFile);
+  }
+
+  /* one entry per line of the input file, without trailing blank lines */
+  private Description readDescription() {
+    var lines = new Description();
+    try (var reader = fm.openReader(inputFileName)) { // gzipped files are decompressed
+      var blankLines = 0;
+      for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (line.isEmpty()) {
+          blankLines++;
+          continue;
+        }
+        for (; blankLines > 0; blankLines--) {
+          lines.add("\n");
+        }
+        lines.add(line + "\n");
+      }
+    } catch (IOException e) {
+      System.err.println("Error on reading file" + inputFileName + ": " + e.getMessage());
+    }
+    return lines;
   }
 }
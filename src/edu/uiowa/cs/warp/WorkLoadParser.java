@@ -0,0 +1,263 @@
+package edu.uiowa.cs.warp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * WorkLoadParser is a recursive-descent parser for the WARP workload grammar (WARP.g4):
+ *
+ * <pre>
+ * warp       : warpName '{' flow+ '}'
+ * flow       : flowName [ '(' priority ',' period ',' deadline ',' phase ')' ] ':' chain
+ * chain      : node '->' node ( '->' node )*
+ * warpName   : NAME
+ * flowName, node : NAME | NUMBER
+ * priority, period, deadline, phase : NUMBER
+ * </pre>
+ *
+ * It reads the workload from a buffered Reader one token at a time and builds the WorkLoad as it
+ * goes, calling the same WorkLoad methods in the same order as the ANTLR listener did, one flow at a
+ * time, so neither the text of the file nor a parse tree is kept. A syntax error is reported on
+ * System.err with its line number and parsing stops; the flows finished before the error are kept,
+ * and buildNodesAndFlows() returns false so callers can reject the partial workload.
+ *
+ * @author sgoddard
+ */
+final class WorkLoadParser {
+
+  private static final int EOF = -1;
+  private static final int NUMBER = -2;
+  private static final int NAME = -3;
+  private static final int ARROW = -4; // '->'
+  private static final int INVALID = -5; // characters that aren't a token; text says why
+  private static final String[] PARAMETER_NAMES = {"priority", "period", "deadline", "phase"};
+
+  private final Reader in;
+  private final WorkLoad workLoad;
+  private final char[] buffer = new char[8192];
+  private int position;
+  private int limit;
+  private int line = 1;
+  private int token; // current token: a punctuation character or one of the constants above
+  private String text; // text of the current NUMBER or NAME token, or the error of an INVALID one
+  private int tokenLine;
+  private final ArrayList<String> nodes = new ArrayList<>(); // nodes of the current flow
+
+  private WorkLoadParser(Reader in, WorkLoad workLoad) {
+    this.in = in;
+    this.workLoad = workLoad;
+  }
+
+  /**
+   * Builds the nodes and flows of workLoad from its input file, which may be gzipped.
+   *
+   * @param workLoad the workload, whose getInputFileName() is the file to parse
+   * @return true if the whole file was read and parsed, false after a read or syntax error
+   */
+  public static Boolean buildNodesAndFlows(WorkLoad workLoad) {
+    try (var reader = workLoad.getFileManager().openReader(workLoad.getInputFileName())) {
+      return buildNodesAndFlows(reader, workLoad);
+    } catch (IOException e) {
+      System.err.println("ERROR: Unable to read graphFile " + workLoad.getInputFileName() + ": "
+          + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Builds the nodes and flows of workLoad from a workload description.
+   *
+   * @param reader the workload description
+   * @param workLoad the workload to build
+   * @return true if the description was parsed, false after a syntax error
+   * @throws IOException if the reader fails
+   */
+  static Boolean buildNodesAndFlows(Reader reader, WorkLoad workLoad) throws IOException {
+    var parser = new WorkLoadParser(
+        (reader instanceof BufferedReader) ? reader : new BufferedReader(reader), workLoad);
+    try {
+      parser.warp();
+      return true;
+    } catch (SyntaxError e) {
+      System.err.println("ERROR: Unable to parse graphFile " + workLoad.getInputFileName() + ": "
+          + e.getMessage());
+      return false;
+    }
+  }
+
+  private void warp() throws IOException {
+    next();
+    workLoad.setName(expect(NAME, "graph name"));
+    expect('{', "'{'");
+    do {
+      flow();
+    } while (token == NAME || token == NUMBER);
+    expect('}', "'}' or a flow name");
+    if (token != EOF) {
+      throw error("end of file");
+    }
+  }
+
+  /* the flow is added to the workload once it is complete, so a syntax error leaves no partial flow */
+  private void flow() throws IOException {
+    var flowName = name("flow name");
+    Integer[] parameters = null; // priority, period, deadline, phase
+    if (token == '(') {
+      next();
+      parameters = new Integer[4];
+      parameters[0] = number(PARAMETER_NAMES[0]);
+      for (int i = 1; i < parameters.length; i++) {
+        expect(',', "','");
+        parameters[i] = number(PARAMETER_NAMES[i]);
+      }
+      expect(')', "')'");
+    }
+    expect(':', "':'");
+    nodes.clear();
+    nodes.add(name("node name"));
+    do {
+      expect(ARROW, "'->'");
+      nodes.add(name("node name"));
+    } while (token == ARROW);
+    workLoad.addFlow(flowName);
+    if (parameters != null) {
+      workLoad.setFlowPriority(flowName, parameters[0]);
+      workLoad.setFlowPeriod(flowName, parameters[1]);
+      workLoad.setFlowDeadline(flowName, parameters[2]);
+      workLoad.setFlowPhase(flowName, parameters[3]);
+    }
+    for (String node : nodes) {
+      workLoad.addNodeToFlow(flowName, node);
+    }
+    workLoad.finalizeCurrentFlow(flowName);
+  }
+
+  private String name(String expected) throws IOException {
+    if (token != NAME && token != NUMBER) {
+      throw error(expected);
+    }
+    var name = text;
+    next();
+    return name;
+  }
+
+  private Integer number(String expected) throws IOException {
+    var value = expect(NUMBER, expected);
+    try {
+      return Integer.valueOf(value);
+    } catch (NumberFormatException e) {
+      throw new SyntaxError(String.format("line %d: %s %s is too large", tokenLine, expected, value));
+    }
+  }
+
+  private String expect(int expectedToken, String expected) throws IOException {
+    if (token != expectedToken) {
+      throw error(expected);
+    }
+    var value = text;
+    next();
+    return value;
+  }
+
+  private SyntaxError error(String expected) {
+    if (token == INVALID) {
+      return new SyntaxError(String.format("line %d: %s", tokenLine, text));
+    }
+    String found;
+    switch (token) {
+      case EOF:
+        found = "end of file";
+        break;
+      case NUMBER: // fall through
+      case NAME:
+        found = "'" + text + "'";
+        break;
+      case ARROW:
+        found = "'->'";
+        break;
+      default:
+        found = "'" + (char) token + "'";
+    }
+    return new SyntaxError(
+        String.format("line %d: expected %s but found %s", tokenLine, expected, found));
+  }
+
+  /*
+   * reads the next token, skipping white space. Characters that can't start a token are returned as
+   * an INVALID token, so the error is reported when the parser needs the token and a flow that was
+   * complete before it is kept.
+   */
+  private void next() throws IOException {
+    var c = read();
+    while (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+      c = read();
+    }
+    tokenLine = line;
+    text = null;
+    if (isNameCharacter(c)) {
+      var name = new StringBuilder();
+      var digitsOnly = true;
+      while (isNameCharacter(c)) {
+        digitsOnly &= (c >= '0' && c <= '9');
+        name.append((char) c);
+        c = read();
+      }
+      unread(c);
+      text = name.toString();
+      token = digitsOnly ? NUMBER : NAME;
+    } else if (c == '-') {
+      if (read() != '>') {
+        token = INVALID;
+        text = "expected '->'";
+      } else {
+        token = ARROW;
+      }
+    } else if (c == EOF || "{}():,".indexOf(c) >= 0) {
+      token = c;
+    } else {
+      token = INVALID;
+      text = String.format("unexpected character '%c'", c);
+    }
+  }
+
+  private static boolean isNameCharacter(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+  }
+
+  private int read() throws IOException {
+    if (position == limit) {
+      limit = in.read(buffer, 0, buffer.length);
+      position = 0;
+      if (limit <= 0) {
+        limit = 0;
+        return EOF;
+      }
+    }
+    var c = buffer[position++];
+    if (c == '\n') {
+      line++;
+    }
+    return c;
+  }
+
+  /* pushes back the last character read, which is never EOF past a name */
+  private void unread(int c) {
+    if (c != EOF) {
+      position--;
+      if (c == '\n') {
+        line--;
+      }
+    }
+  }
+
+  /* a syntax error in the workload description */
+  private static final class SyntaxError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    SyntaxError(String message) {
+      super(message);
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package edu.uiowa.cs.warp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * WorkLoadSnapshot caches a finalized WorkLoad in a compact binary file (.wls), so a workload that
+ * hasn't changed is loaded instead of parsed and finalized again.
+ * <p>
+ *
+ * The snapshot is keyed by a SHA-256 hash of the input file contents, decompressed if the file is
+ * gzipped, and of every parameter the finalized flows depend on: M, E2E, the number of faults, the
+ * retransmission allocation, and the link qualities (PRRs and burst model). A snapshot whose key doesn't match, or that can't be read,
+ * is ignored and replaced after the workload is parsed.
+ * <p>
+ *
+ * The file holds the graph name, the node names in the order they were added, and for each flow in
+ * its original order: the flow's name, priority, period, deadline, and phase, its node indices, its
+ * numTxPerLink, and its linkTxAndTotalCost. Loading replays the WorkLoad calls that parsing makes,
+ * except for finalizeCurrentFlow, whose results are read from the file.
+ */
+final class WorkLoadSnapshot {
+
+  static final String SUFFIX = ".wls";
+  private static final int MAGIC = 0x574c5331; // "WLS1"
+  private static final int VERSION = 1;
+
+  private WorkLoadSnapshot() {}
+
+  /**
+   * @param directory the directory of the snapshots, e.g., the output directory
+   * @param inputFileName the workload input file
+   * @return the snapshot file of the input file in directory
+   */
+  static Path snapshotFile(String directory, String inputFileName) {
+    var name = new File(inputFileName).getName();
+    if (name.endsWith(FileManager.GZIP_SUFFIX)) { // X.txt and X.txt.gz share a snapshot
+      name = name.substring(0, name.length() - FileManager.GZIP_SUFFIX.length());
+    }
+    var suffix = name.lastIndexOf('.');
+    return Path.of(directory, ((suffix > 0) ? name.substring(0, suffix) : name) + SUFFIX);
+  }
+
+  /**
+   * Computes the snapshot key of a workload whose parameters are set but whose flows aren't built.
+   *
+   * @return the key, or null if the input file can't be read
+   */
+  static byte[] key(WorkLoad workLoad) {
+    try {
+      var md = MessageDigest.getInstance("SHA-256");
+      try (InputStream in = new DigestInputStream(
+          workLoad.getFileManager().openInputStream(workLoad.getInputFileName()), md)) {
+        var buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+          // the digest is updated as the file is read
+        }
+      }
+      md.update(ByteBuffer.allocate(28).putInt(VERSION)
+          .putDouble(workLoad.getMinPacketReceptionRate()).putDouble(workLoad.getE2e())
+          .putInt(workLoad.getNumFaults()).putInt(workLoad.getOptimizeTxAllocation() ? 1 : 0)
+          .array());
+      if (workLoad.getLinkQuality() != null) {
+        workLoad.getLinkQuality().digest(md);
+      }
+      return md.digest();
+    } catch (IOException | NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Builds the nodes and flows of workLoad from its snapshot, if the snapshot's key matches.
+   *
+   * @param workLoad the workload, with its parameters set and no flows
+   * @param file the snapshot file
+   * @param key the key of the workload
+   * @return true if the workload was loaded, false if it still needs to be parsed
+   */
+  static boolean load(WorkLoad workLoad, Path file, byte[] key) {
+    if (key == null || !Files.isReadable(file)) {
+      return false;
+    }
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        return false;
+      }
+      var fileKey = new byte[in.readUnsignedByte()];
+      in.readFully(fileKey);
+      if (!Arrays.equals(fileKey, key)) {
+        return false;
+      }
+      var graphName = in.readUTF();
+      var nodeNames = new String[in.readInt()];
+      for (int i = 0; i < nodeNames.length; i++) {
+        nodeNames[i] = in.readUTF();
+      }
+      var numFlows = in.readInt();
+      var flows = new FlowRecord[numFlows];
+      for (int f = 0; f < numFlows; f++) { // read everything before changing the workload
+        flows[f] = FlowRecord.read(in);
+      }
+      workLoad.setName(graphName);
+      for (FlowRecord record : flows) {
+        record.replay(workLoad, nodeNames);
+      }
+      return true;
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Failed to read workload snapshot " + file + ": " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Writes the snapshot of a finalized workload. The file is written to a temporary file of its own
+   * first and then moved, so a concurrent run or batch worker never reads a partial snapshot and
+   * writers of the same snapshot never share a temporary file.
+   *
+   * @param workLoad the finalized workload
+   * @param file the snapshot file
+   * @param key the key of the workload
+   */
+  static void save(WorkLoad workLoad, Path file, byte[] key) {
+    if (key == null) {
+      return;
+    }
+    Path temporary = null;
+    try {
+      temporary = Files.createTempFile(file.toAbsolutePath().getParent(),
+          file.getFileName() + ".", ".tmp");
+      try (var out = new DataOutputStream(
+          new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(MAGIC);
+        out.writeByte(key.length);
+        out.write(key);
+        out.writeUTF(workLoad.getName());
+        var nodeIndex = new HashMap<String, Integer>();
+        var nodeNames = new ArrayList<String>();
+        for (String flowName : workLoad.getFlowNamesInOriginalOrder()) {
+          for (Node node : workLoad.getFlows().get(flowName).nodes) {
+            if (nodeIndex.putIfAbsent(node.getName(), nodeNames.size()) == null) {
+              nodeNames.add(node.getName());
+            }
+          }
+        }
+        out.writeInt(nodeNames.size());
+        for (String name : nodeNames) {
+          out.writeUTF(name);
+        }
+        out.writeInt(workLoad.getFlowNamesInOriginalOrder().size());
+        for (String flowName : workLoad.getFlowNamesInOriginalOrder()) {
+          FlowRecord.write(out, workLoad.getFlows().get(flowName), nodeIndex);
+        }
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Failed to write workload snapshot " + file + ": " + e.getMessage());
+      if (temporary != null) {
+        temporary.toFile().delete();
+      }
+    }
+  }
+
+  /* one flow of a snapshot */
+  private static final class FlowRecord {
+    private String name;
+    private final int[] parameters = new int[4]; // priority, period, deadline, phase
+    private int[] nodes;
+    private int numTxPerLink;
+    private ArrayList<Integer> linkTxAndTotalCost;
+
+    static void write(DataOutputStream out, Flow flow, HashMap<String, Integer> nodeIndex)
+        throws IOException {
+      out.writeUTF(flow.getName());
+      out.writeInt(flow.getPriority());
+      out.writeInt(flow.getPeriod());
+      out.writeInt(flow.getDeadline());
+      out.writeInt(flow.getPhase());
+      out.writeInt(flow.nodes.size());
+      for (Node node : flow.nodes) {
+        out.writeInt(nodeIndex.get(node.getName()));
+      }
+      out.writeInt(flow.numTxPerLink);
+      out.writeInt(flow.linkTxAndTotalCost.size());
+      for (Integer cost : flow.linkTxAndTotalCost) {
+        out.writeInt(cost);
+      }
+    }
+
+    static FlowRecord read(DataInputStream in) throws IOException {
+      var record = new FlowRecord();
+      record.name = in.readUTF();
+      for (int i = 0; i < record.parameters.length; i++) {
+        record.parameters[i] = in.readInt();
+      }
+      record.nodes = new int[in.readInt()];
+      for (int i = 0; i < record.nodes.length; i++) {
+        record.nodes[i] = in.readInt();
+      }
+      record.numTxPerLink = in.readInt();
+      var numCosts = in.readInt();
+      record.linkTxAndTotalCost = new ArrayList<>(numCosts);
+      for (int i = 0; i < numCosts; i++) {
+        record.linkTxAndTotalCost.add(in.readInt());
+      }
+      return record;
+    }
+
+    /* makes the calls WorkLoadParser makes for the flow, then sets the finalized values */
+    void replay(WorkLoad workLoad, String[] nodeNames) {
+      workLoad.addFlow(name);
+      workLoad.setFlowPriority(name, parameters[0]);
+      workLoad.setFlowPeriod(name, parameters[1]);
+      workLoad.setFlowDeadline(name, parameters[2]);
+      workLoad.setFlowPhase(name, parameters[3]);
+      for (int node : nodes) {
+        workLoad.addNodeToFlow(name, nodeNames[node]);
+      }
+      var flow = workLoad.getFlows().get(name);
+      flow.numTxPerLink = numTxPerLink;
+      flow.linkTxAndTotalCost = linkTxAndTotalCost;
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package edu.uiowa.cs.warp;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WorkLoadWatcher processes a workload file again each time it's saved, until the JVM is stopped.
+ * It watches the file's directory with a {@link WatchService}, so editors that save by replacing
+ * the file are seen too, and waits for the events of one save to settle before reading the file.
+ * <p>
+ *
+ * The new workload is diffed against the previous one flow by flow. Flows whose definitions are
+ * unchanged reuse their finalized Tx counts ({@link WorkLoad#WorkLoad(WorkLoad)}), and a save that
+ * changes no flow, such as a comment or white space edit, is not analyzed again. The program and
+ * its analyses are rebuilt whenever a flow changes, since one flow's slots and channels move every
+ * flow scheduled after it.
+ */
+final class WorkLoadWatcher {
+
+  private static final long SETTLE_MILLISECONDS = 100; // quiet time that ends the events of a save
+
+  private final Path file;
+  private WorkLoad workLoad;
+
+  /**
+   * @param workLoad the processed workload, whose input file is watched
+   */
+  WorkLoadWatcher(WorkLoad workLoad) {
+    this.workLoad = workLoad;
+    this.file = Path.of(workLoad.getInputFileName()).toAbsolutePath().normalize();
+  }
+
+  /**
+   * Watches the input file and processes it after each save. Only returns if the file's directory
+   * can't be watched or the thread is interrupted.
+   */
+  void watch() {
+    try (WatchService watcher = FileSystems.getDefault().newWatchService()) {
+      file.getParent().register(watcher, ENTRY_CREATE, ENTRY_MODIFY);
+      System.out.printf("Watching %s for changes (Ctrl-C to stop)\n", file);
+      while (true) {
+        if (isChanged(watcher.take())) {
+          settle(watcher);
+          update();
+        }
+      }
+    } catch (IOException e) {
+      System.err.printf("\n\tERROR: Unable to watch %s: %s\n", file, e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /* true if the events of key include the input file; resets key */
+  private boolean isChanged(WatchKey key) {
+    var changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      changed |= event.kind() == OVERFLOW || file.getFileName().equals(event.context());
+    }
+    key.reset();
+    return changed;
+  }
+
+  /* drops the events that follow, until there are none for SETTLE_MILLISECONDS */
+  private void settle(WatchService watcher) throws InterruptedException {
+    WatchKey key;
+    while ((key = watcher.poll(SETTLE_MILLISECONDS, TimeUnit.MILLISECONDS)) != null) {
+      key.pollEvents();
+      key.reset();
+    }
+  }
+
+  /* reads the file again and processes it if a flow changed */
+  private void update() {
+    var start = System.nanoTime();
+    var next = new WorkLoad(workLoad);
+    if (!next.isParsed()) {
+      System.err.printf("\n\tERROR: %s can't be parsed; keeping the previous results\n", file);
+      return;
+    }
+    if (next.getFlowNamesInOriginalOrder().isEmpty()) {
+      System.err.printf("\n\tERROR: %s has no flows; keeping the previous results\n", file);
+      return;
+    }
+    var previousFlows = definitions(workLoad);
+    var flows = definitions(next);
+    int added = 0;
+    int changed = 0;
+    for (var flow : flows.entrySet()) {
+      var previous = previousFlows.get(flow.getKey());
+      if (previous == null) {
+        added++;
+      } else if (!previous.equals(flow.getValue())) {
+        changed++;
+      }
+    }
+    int removed = previousFlows.size() - (flows.size() - added);
+    var reordered = !workLoad.getFlowNamesInOriginalOrder()
+        .equals(next.getFlowNamesInOriginalOrder());
+    if (added + changed + removed == 0 && !reordered && workLoad.getName().equals(next.getName())) {
+      System.out.printf("%s saved; no flow changed, the results are up to date\n",
+          file.getFileName());
+      return;
+    }
+    workLoad = next;
+    try {
+      Warp.process(next);
+    } catch (RuntimeException | StackOverflowError e) {
+      System.err.printf("\n\tERROR: Processing workload %s failed: %s\n", file, e);
+      return;
+    }
+    System.out.printf(
+        "%s saved; %d flows added, %d removed, %d changed%s; Tx counts of %d of %d flows reused;"
+            + " processed in %.3f s\n",
+        file.getFileName(), added, removed, changed, reordered ? ", order changed" : "",
+        next.getNumFlowsReused(), flows.size(), (System.nanoTime() - start) / 1e9);
+  }
+
+  /* the definitions of the flows of workLoad, by flow name */
+  private static HashMap<String, String> definitions(WorkLoad workLoad) {
+    var definitions = new HashMap<String, String>();
+    for (String flowName : workLoad.getFlowNamesInOriginalOrder()) {
+      definitions.put(flowName, WorkLoad.flowDefinition(workLoad.getFlows().get(flowName)));
+    }
+    return definitions;
+  }
+}
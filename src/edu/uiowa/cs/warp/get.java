@@ -1,58 +0,0 @@
-package edu.uiowa.cs.warp;
-
-
-/**
- * ReliabilityAnalysis analyzes the end-to-end reliability of messages transmitted in flows for the
- * WARP system.
- * <p>
- * 
- * Let M represent the Minimum Packet Reception Rate on an edge in a flow. The end-to-end
- * reliability for each flow, flow:src->sink, is computed iteratively as follows:<br>
- * (1)The flow:src node has an initial probability of 1.0 when it is released. All other initial
- * probabilities are 0.0. (That is, the reset of the nodes in the flow have an initial probability
- * value of 0.0.) <br>
- * (2) each src->sink pair probability is computed as NewSinkNodeState = (1-M)*PrevSnkNodeState +
- * M*PrevSrcNodeState <br>
- * This value represents the probability that the message as been received by the node SinkNode.
- * Thus, the NewSinkNodeState probability will increase each time a push or pull is executed with
- * SinkNode as a listener.
- * <p>
- * 
- * The last probability state value for any node is the reliability of the message reaching that
- * node, and the end-to-end reliability of a flow is the value of the last Flow:SinkNode
- * probability.
- * <p>
- * 
- * CS2820 Fall 2024 Project: Implement this class to compute the probabilities that comprise the
- * ReliablityMatrix, which is the core of the reliability visualization that is requested in Warp.
- * <p>
- * 
- * To do this, you will need to retrieve the program source, parse the instructions for each node,
- * in each time slot, to extract the src and snk nodes in the instruction and then apply the message
- * success probability equation defined in the project assignment.
- * <p>
- * 
- * I recommend using the getInstructionParameters method of the WarpDSL class to extract the src and
- * snk nodes from the instruction string in a program schedule time slot.
- * 
- * @author sgoddard
- * @version 1.8 Fall 2024
- *  *
- */
-public class get {
-
-   public Boolean verifyReliabilities() {
-      // TODO Auto-generated method stub
-          return true;
-           }
-   
-   public void ReliabilityAnalysis(Program program) {
-      // TODO Auto-generated constructor stub
-           }
-   public ReliabilityTable getReliabilities() {
-	      // TODO implement this operation
-	      throw new UnsupportedOperationException("not implemented");
-	   }
-}
-   
-   
@@ -0,0 +1,124 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class ChannelAnalysisTest {
+
+	private static final String WORKLOAD =
+			"G {\nF0 (1, 20, 20, 0) : A -> B\nF1 (2, 20, 20, 0) : C -> D -> E\n}\n";
+
+	@TempDir
+	Path directory;
+
+	private Program program;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		var file = directory.resolve("Channels.txt");
+		Files.writeString(file, WORKLOAD);
+		var workLoad = new WorkLoad(0.9, 0.99, file.toString());
+		program = SystemFactory.create(workLoad, 16, ScheduleChoices.PRIORITY).toProgram();
+	}
+
+	@Test
+	void noConflictTest() {
+		// different channels in one slot, and a node that changes channel in consecutive slots
+		var analysis = analyze(
+				"4 A if has(F0) push(F0: A -> B, #2)", "4 B wait(#2)",
+				"5 A if has(F0) push(F0: A -> B, #3)", "5 B wait(#3)",
+				"6 A if has(F0) push(F0: A -> B, #4)", "6 B wait(#4)",
+				"6 C if has(F1) push(F1: C -> D, #5)", "6 D wait(#5)");
+		assertTrue(analysis.getConflicts().isEmpty(), analysis.getConflicts().toString());
+		assertFalse(analysis.isChannelConflict());
+	}
+
+	@Test
+	void twoPushesOnOneChannelTest() {
+		var analysis = analyze(
+				"2 A if has(F0) push(F0: A -> B, #0)", "2 B wait(#0)",
+				"2 D if has(F1) push(F1: D -> E, #0)", "2 E wait(#0)");
+		assertTrue(analysis.isChannelConflict());
+		assertEquals(1, analysis.getConflicts().size(), analysis.getConflicts().toString());
+		assertEquals("Time slot 2: channel 0 is used by both A and D\n",
+				analysis.getConflicts().get(0));
+	}
+
+	@Test
+	void pushAndElsePullOnOneChannelTest() {
+		/*
+		 * Tests that the push and else pull clauses of D's instruction, which both use channel 1,
+		 * are reported as one conflict with A's push
+		 */
+		var analysis = analyze(
+				"3 A if has(F0) push(F0: A -> B, #1)", "3 B wait(#1)",
+				"3 D if has(F1) push(F1: D -> E, #1) else pull(F1: C -> D, #1)", "3 C wait(#1)",
+				"3 E wait(#1)");
+		assertTrue(analysis.isChannelConflict());
+		assertEquals(1, analysis.getConflicts().size(), analysis.getConflicts().toString());
+		assertEquals("Time slot 3: channel 1 is used by both A and D\n",
+				analysis.getConflicts().get(0));
+	}
+
+	@Test
+	void ifElseOfOneFlowIsNotAConflictTest() {
+		var analysis = analyze(
+				"3 D if has(F1) push(F1: D -> E, #1) else pull(F1: C -> D, #1)", "3 C wait(#1)",
+				"3 E wait(#1)");
+		assertFalse(analysis.isChannelConflict(), analysis.getConflicts().toString());
+	}
+
+	@Test
+	void consecutiveSlotsTest() {
+		// A and B both use channel 2 in slots 4 and 5
+		var analysis = analyze(
+				"4 A if has(F0) push(F0: A -> B, #2)", "4 B wait(#2)",
+				"5 A if has(F0) push(F0: A -> B, #2)", "5 B wait(#2)");
+		assertTrue(analysis.isChannelConflict());
+		assertEquals(2, analysis.getConflicts().size(), analysis.getConflicts().toString());
+		assertEquals("Time slot 5: A uses channel 2 in time slots 4 and 5\n",
+				analysis.getConflicts().get(0));
+		assertEquals("Time slot 5: B uses channel 2 in time slots 4 and 5\n",
+				analysis.getConflicts().get(1));
+	}
+
+	@Test
+	void channelOutOfRangeTest() {
+		// both clauses use channel 20, which is reported once for the instruction
+		var analysis = analyze(
+				"3 D if has(F1) push(F1: D -> E, #20) else pull(F1: C -> D, #20)", "3 C wait(#20)",
+				"3 E wait(#20)");
+		assertEquals(1, analysis.getConflicts().size(), analysis.getConflicts().toString());
+		assertEquals("Time slot 3: D transmits on channel 20, which is not one of the 16 channels\n",
+				analysis.getConflicts().get(0));
+	}
+
+	/*
+	 * replaces the program's schedule with one in which every node sleeps except for the given
+	 * "slot node instruction" cells, and analyzes it
+	 */
+	private ChannelAnalysis analyze(String... cells) {
+		var schedule = program.getSchedule();
+		for (int t = 0; t < schedule.getNumRows(); t++) {
+			for (int node = 0; node < schedule.getNumColumns(); node++) {
+				schedule.set(t, node, "sleep");
+			}
+		}
+		var nodeIndex = program.getNodeMapIndex();
+		for (String cell : cells) {
+			var fields = cell.split(" ", 3);
+			schedule.set(Integer.parseInt(fields[0]), nodeIndex.get(fields[1]), fields[2]);
+		}
+		program.updateSchedule(schedule);
+		return new ChannelAnalysis(program);
+	}
+}
@@ -0,0 +1,131 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class FaultToleranceAnalysisTest {
+
+	private static final String[] INPUTS = {"Example1a.txt", "Example4.txt", "StressTest4.txt"};
+
+	@Test
+	void worstCaseMatchesBruteForceTest() throws Exception {
+		for (String input : INPUTS) {
+			for (int numFaults = 1; numFaults <= 2; numFaults++) {
+				var program = program(input, numFaults);
+				for (Boolean faultsPerEdge : new Boolean[] {false, true}) {
+					var slots = new FaultToleranceAnalysis(program, faultsPerEdge)
+							.getWorstCaseDeliverySlots();
+					var ts = program.getTransmissionSchedule();
+					for (int f = 0; f < ts.getNumFlows(); f++) {
+						for (int k = 0; k < ts.getNumInstances(f); k++) {
+							/*
+							 * Tests that the DP finds the worst-case delivery slot found by failing every
+							 * allowed set of the instance's attempts
+							 */
+							assertEquals(bruteForce(ts, f, k, numFaults, faultsPerEdge), slots[f][k],
+									input + " " + ts.getFlowName(f) + ":" + k + " with " + numFaults
+											+ (faultsPerEdge ? " faults per edge" : " faults"));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void priorityProgramsTolerateFaultsTest() throws Exception {
+		for (String input : INPUTS) {
+			for (int numFaults = 0; numFaults <= 2; numFaults++) {
+				var analysis = new FaultToleranceAnalysis(program(input, numFaults));
+				assertEquals(numFaults, analysis.getNumFaults());
+				assertTrue(analysis.verifyFaultTolerance(),
+						input + " doesn't tolerate " + numFaults + " faults");
+				assertTrue(analysis.getFaultToleranceFailures().isEmpty());
+			}
+		}
+	}
+
+	@Test
+	void faultsPerEdgeNeedMoreAttemptsTest() throws Exception {
+		// each edge of a StressTest4 flow gets 2 attempts, which don't tolerate a fault on every edge
+		var program = program("StressTest4.txt", 1);
+		assertTrue(new FaultToleranceAnalysis(program, false).verifyFaultTolerance());
+		var perEdge = new FaultToleranceAnalysis(program, true);
+		assertFalse(perEdge.verifyFaultTolerance());
+		assertFalse(perEdge.getFaultToleranceFailures().isEmpty());
+	}
+
+	private static Program program(String input, int numFaults) throws Exception {
+		var workLoad = new WorkLoad(numFaults, 0.9, 0.99, input);
+		return SystemFactory.create(workLoad, 16, ScheduleChoices.PRIORITY).toProgram();
+	}
+
+	/* the worst-case delivery slot of instance k of flow f over all allowed sets of failed attempts */
+	private static int bruteForce(TransmissionSchedule ts, int f, int k, int numFaults,
+			boolean faultsPerEdge) {
+		var release = ts.getReleaseTime(f, k);
+		var windowEnd = ts.getWindowEnd(f, k);
+		var attempts = new ArrayList<int[]>(); // {hop, slot} of each attempt of the instance
+		for (int hop = 0; hop < ts.getFlowLength(f) - 1; hop++) {
+			for (int slot : ts.getLinkAttemptSlots(f, hop)) {
+				if (slot >= release && slot < windowEnd) {
+					attempts.add(new int[] {hop, slot});
+				}
+			}
+		}
+		return worstCase(attempts, new boolean[attempts.size()], 0, ts.getFlowLength(f) - 1,
+				release, numFaults, faultsPerEdge);
+	}
+
+	private static int worstCase(ArrayList<int[]> attempts, boolean[] failed, int a, int numHops,
+			int release, int numFaults, boolean faultsPerEdge) {
+		if (a == attempts.size()) {
+			return deliver(attempts, failed, numHops, release);
+		}
+		var worst = worstCase(attempts, failed, a + 1, numHops, release, numFaults, faultsPerEdge);
+		failed[a] = true;
+		if (numFailed(attempts, failed, faultsPerEdge ? attempts.get(a)[0] : -1) <= numFaults) {
+			var slot = worstCase(attempts, failed, a + 1, numHops, release, numFaults, faultsPerEdge);
+			worst = (worst == FaultToleranceAnalysis.UNKNOWN || slot == FaultToleranceAnalysis.UNKNOWN)
+					? FaultToleranceAnalysis.UNKNOWN : Math.max(worst, slot);
+		}
+		failed[a] = false;
+		return worst;
+	}
+
+	/* the number of failed attempts on a hop, or on all hops if hop is -1 */
+	private static int numFailed(ArrayList<int[]> attempts, boolean[] failed, int hop) {
+		var count = 0;
+		for (int a = 0; a < failed.length; a++) {
+			if (failed[a] && (hop == -1 || attempts.get(a)[0] == hop)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/* the slot in which the message reaches the sink, forwarding it in the slots after it arrives */
+	private static int deliver(ArrayList<int[]> attempts, boolean[] failed, int numHops,
+			int release) {
+		var arrival = release - 1;
+		for (int hop = 0; hop < numHops; hop++) {
+			var next = FaultToleranceAnalysis.UNKNOWN;
+			for (int a = 0; a < attempts.size() && next == FaultToleranceAnalysis.UNKNOWN; a++) {
+				var attempt = attempts.get(a);
+				if (attempt[0] == hop && attempt[1] > arrival && !failed[a]) {
+					next = attempt[1];
+				}
+			}
+			if (next == FaultToleranceAnalysis.UNKNOWN) {
+				return FaultToleranceAnalysis.UNKNOWN;
+			}
+			arrival = next;
+		}
+		return Math.max(arrival, release);
+	}
+}
@@ -0,0 +1,72 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class MonteCarloAnalysisTest {
+
+	private static final long NUM_TRIALS = 100000;
+	/* 0.003 is more than 10 standard errors of a delivery rate near 0.99 after NUM_TRIALS trials */
+	private static final double TOLERANCE = 0.003;
+
+	private WarpInterface warp;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		var workLoad = new WorkLoad(0.9, 0.99, "StressTest4.txt"); // probabilistic link model
+		warp = SystemFactory.create(workLoad, 16, ScheduleChoices.PRIORITY);
+	}
+
+	@Test
+	void deliveryRatesMatchAnalyticReliabilitiesTest() {
+		var mc = new MonteCarloAnalysis(warp, NUM_TRIALS, MonteCarloAnalysis.DEFAULT_SEED);
+		var analytic = warp.toReliabilityAnalysis().getInstanceReliabilities();
+		var ts = warp.toProgram().getTransmissionSchedule();
+		for (int f = 0; f < ts.getNumFlows(); f++) {
+			for (int k = 0; k < ts.getNumInstances(f); k++) {
+				/*
+				 * Tests that simulating the program gives the E2E reliability the reliability
+				 * analysis computes for each flow instance
+				 */
+				assertEquals(analytic[f][k], mc.getDeliveryRate(f, k), TOLERANCE,
+						ts.getFlowName(f) + ":" + k + " delivery rate differs from its reliability");
+			}
+		}
+	}
+
+	@Test
+	void sameSeedSameResultsTest() {
+		var first = new MonteCarloAnalysis(warp, 1000, 7);
+		var second = new MonteCarloAnalysis(warp, 1000, 7);
+		assertEquals(first.monteCarloReport().toString(), second.monteCarloReport().toString(),
+				"Runs with the same seed differ");
+	}
+
+	@Test
+	void resultsDontDependOnThreadsTest() throws Exception {
+		// parallel streams run in the pool that starts them
+		var one = new ForkJoinPool(1).submit(() -> {
+			return new MonteCarloAnalysis(warp, 10000, 3).monteCarloReport().toString();
+		}).get();
+		var many = new ForkJoinPool(7).submit(() -> {
+			return new MonteCarloAnalysis(warp, 10000, 3).monteCarloReport().toString();
+		}).get();
+		assertEquals(one, many, "Results depend on the number of threads");
+	}
+
+	@Test
+	void wilsonIntervalTest() {
+		var interval = MonteCarloAnalysis.wilson(50, 100);
+		// the Wilson score interval of 50 successes in 100 trials
+		assertEquals(0.4038, interval[0], 1e-4);
+		assertEquals(0.5962, interval[1], 1e-4);
+		interval = MonteCarloAnalysis.wilson(100, 100);
+		assertTrue(interval[0] < 1.0 && interval[1] == 1.0, "Interval of all successes");
+	}
+}
@@ -0,0 +1,149 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class ReliabilityAnalysisTest {
+
+	private Program program;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		var workLoad = new WorkLoad(0.9, 0.99, "StressTest4.txt");
+		program = SystemFactory.create(workLoad, 16, ScheduleChoices.PRIORITY).toProgram();
+	}
+
+	@Test
+	void updateLinkQualityMatchesRecomputeTest() {
+		// C -> D is used by most flows of StressTest4
+		var updated = new ReliabilityAnalysis(program);
+		var before = updated.getInstanceReliabilities();
+		updated.getReliabilities(); // the table is updated in place
+		var newlyFailing = updated.updateLinkQuality("C", "D", 0.8);
+
+		// a new analysis that builds its table after the change recomputes every flow
+		var recomputed = new ReliabilityAnalysis(program);
+		recomputed.updateLinkQuality("C", "D", 0.8);
+		var table = recomputed.getReliabilities();
+		var updatedTable = updated.getReliabilities();
+		assertEquals(table.getNumRows(), updatedTable.getNumRows());
+		for (int row = 0; row < table.getNumRows(); row++) {
+			for (int column = 0; column < table.getNumColumns(); column++) {
+				assertEquals(table.get(row, column), updatedTable.get(row, column), 1e-12,
+						"Reliability in time slot " + row + ", column " + column + " differs");
+			}
+		}
+		var after = recomputed.getInstanceReliabilities();
+		assertArrayEquals(after, updated.getInstanceReliabilities());
+
+		var expected = new ArrayList<String>();
+		var ts = program.getTransmissionSchedule();
+		for (int f = 0; f < ts.getNumFlows(); f++) {
+			if (recomputed.meetsE2e(before[f]) && !recomputed.meetsE2e(after[f])) {
+				expected.add(ts.getFlowName(f));
+			}
+		}
+		assertFalse(expected.isEmpty(), "PRR 0.8 on C -> D should make flows miss E2E");
+		assertEquals(expected, newlyFailing, "Wrong flows reported as newly failing");
+	}
+
+	@Test
+	void updateLinkQualityOnlyChangesFlowsOnTheLinkTest() {
+		var ra = new ReliabilityAnalysis(program);
+		var before = ra.getInstanceReliabilities();
+		ra.updateLinkQuality("A", "B", 0.6);
+		var after = ra.getInstanceReliabilities();
+		var ts = program.getTransmissionSchedule();
+		for (int f = 0; f < ts.getNumFlows(); f++) {
+			var nodes = ts.getFlowNodes(f);
+			if (nodes[0].equals("A")) { // only flows starting at A use A -> B in StressTest4
+				assertTrue(after[f][0] < before[f][0], ts.getFlowName(f) + " did not change");
+			} else {
+				assertArrayEquals(before[f], after[f], ts.getFlowName(f) + " changed");
+			}
+		}
+	}
+
+	@Test
+	void updateLinkQualityRejectsBadPrrTest() {
+		var ra = new ReliabilityAnalysis(program);
+		var before = ra.getInstanceReliabilities();
+		var table = ra.getReliabilities();
+		var lastCell = table.get(table.getNumRows() - 1, table.getNumColumns() - 1);
+		for (Double prr : new Double[] {null, Double.NaN, -0.1, 1.1}) {
+			assertThrows(IllegalArgumentException.class, () -> ra.updateLinkQuality("A", "B", prr),
+					"PRR " + prr + " was accepted");
+		}
+		// nothing changed
+		assertArrayEquals(before, ra.getInstanceReliabilities());
+		assertEquals(lastCell, ra.getReliabilities().get(table.getNumRows() - 1,
+				table.getNumColumns() - 1));
+		assertArrayEquals(new ReliabilityAnalysis(program).getLinkSuccessProbabilities(),
+				ra.getLinkSuccessProbabilities());
+	}
+
+	@Test
+	void optimizedTxAllocationTest() throws Exception {
+		var reduced = false;
+		for (String input : new String[] {"Example1a.txt", "StressTest4.txt", "LongChain.txt"}) {
+			var perHop = new WorkLoad(0, 0.9, 0.99, input, null, false);
+			var optimized = new WorkLoad(0, 0.9, 0.99, input, null, true);
+			for (String flowName : perHop.getFlowNamesInOriginalOrder()) {
+				var perHopTx = perHop.getNumTxAttemptsPerLink(flowName);
+				var optimizedTx = optimized.getNumTxAttemptsPerLink(flowName);
+				var flow = input + ":" + flowName + " " + Arrays.toString(optimizedTx);
+				assertTrue(total(optimizedTx) <= total(perHopTx), flow + " has more Tx than per-hop");
+				reduced |= total(optimizedTx) < total(perHopTx);
+				assertTrue(e2eReliability(0.9, optimizedTx) >= 0.99, flow + " misses E2E");
+				/*
+				 * Tests that the greedy removal stopped at a local minimum: taking away any one more
+				 * attempt misses E2E
+				 */
+				for (int i = 0; i < optimizedTx.length - 1; i++) {
+					if (optimizedTx[i] > 1) {
+						optimizedTx[i]--;
+						assertTrue(e2eReliability(0.9, optimizedTx) < 0.99, flow + " link " + i
+								+ " has an attempt it doesn't need");
+						optimizedTx[i]++;
+					}
+				}
+			}
+			var program = SystemFactory.create(optimized, 16, ScheduleChoices.PRIORITY).toProgram();
+			assertTrue(new ReliabilityAnalysis(program).verifyReliabilities(),
+					"Program of optimized " + input + " misses E2E");
+		}
+		assertTrue(reduced, "No flow got fewer Tx attempts than per-hop");
+	}
+
+	/* the Tx attempts of a flow; the last entry is the sink's, which is 0 */
+	private static int total(Integer[] numTx) {
+		return Arrays.stream(numTx).mapToInt(Integer::intValue).sum();
+	}
+
+	/* E2E reliability when link i pushes in slots i through i + numTx[i] - 1 */
+	private static double e2eReliability(double m, Integer[] numTx) {
+		int nHops = numTx.length - 1;
+		int numSlots = 0;
+		for (int i = 0; i < nHops; i++) {
+			numSlots = Math.max(numSlots, i + numTx[i]);
+		}
+		var state = new double[nHops + 1];
+		state[0] = 1.0;
+		for (int slot = 0; slot < numSlots; slot++) {
+			var prev = state.clone();
+			for (int i = 0; i < nHops; i++) {
+				if (slot >= i && slot < i + numTx[i]) {
+					state[i + 1] = (1 - m) * prev[i + 1] + m * prev[i];
+				}
+			}
+		}
+		return state[nHops];
+	}
+}
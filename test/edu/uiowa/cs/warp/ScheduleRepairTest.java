@@ -0,0 +1,89 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class ScheduleRepairTest {
+
+	private static final String SLEEP = "sleep";
+
+	@Test
+	void repairFailingFlowTest() throws Exception {
+		// F10 of StressTest misses E2E under priority scheduling at M = 0.9 and E2E = 0.99
+		var warp = SystemFactory.create(new WorkLoad(0.9, 0.99, "StressTest.txt"), 16,
+				ScheduleChoices.PRIORITY);
+		var program = warp.toProgram();
+		var ra = warp.toReliabilityAnalysis();
+		ra.getInstanceReliabilities(); // results the repair must update
+		var failures = ra.getReliabilityFailures();
+		assertTrue(failures.containsKey("F10"), "F10 meets E2E before the repair");
+
+		var schedule = program.getSchedule();
+		var before = cells(schedule);
+		var conflictsBefore = new HashSet<String>(new ChannelAnalysis(program).getConflicts());
+
+		var repair = new ScheduleRepair(ra);
+		var remaining = repair.repair(schedule, failures.keySet());
+		assertTrue(repair.getNumAttemptsAdded() > 0, "No attempts added");
+
+		/*
+		 * Tests that each added attempt is a push for its src node and a wait for its snk node in a
+		 * slot where both slept
+		 */
+		var after = program.getSchedule();
+		assertEquals(before.length, after.getNumRows(), "The repair changed the number of slots");
+		var numChanged = 0;
+		for (int t = 0; t < before.length; t++) {
+			var numPushes = 0;
+			var numWaits = 0;
+			for (int node = 0; node < before[t].length; node++) {
+				var instruction = after.get(t, node);
+				if (!instruction.equals(before[t][node])) {
+					assertEquals(SLEEP, before[t][node], "Slot " + t + " node " + node + " was awake");
+					numChanged++;
+					if (instruction.startsWith("if has(")) {
+						numPushes++;
+					} else if (instruction.startsWith("wait(")) {
+						numWaits++;
+					} else {
+						fail("Unexpected instruction " + instruction + " added in slot " + t);
+					}
+				}
+			}
+			assertEquals(numPushes, numWaits, "Pushes without waits in slot " + t);
+		}
+		assertEquals(2 * repair.getNumAttemptsAdded(), numChanged);
+
+		for (String conflict : new ChannelAnalysis(program).getConflicts()) {
+			assertTrue(conflictsBefore.contains(conflict), "The repair added conflict " + conflict);
+		}
+
+		/* Tests that the updated results are those of a full analysis of the repaired program */
+		var recomputed = new ReliabilityAnalysis(program);
+		var expected = recomputed.getInstanceReliabilities();
+		var actual = ra.getInstanceReliabilities();
+		for (int f = 0; f < expected.length; f++) {
+			assertArrayEquals(expected[f], actual[f], 1e-12,
+					program.getTransmissionSchedule().getFlowName(f) + " reliabilities differ");
+		}
+		assertEquals(recomputed.getReliabilityFailures().keySet(), remaining.keySet());
+		assertTrue(recomputed.getReliabilityFailures().get("F10") == null
+				|| recomputed.getReliabilityFailures().get("F10") > failures.get("F10"),
+				"F10 was not improved");
+	}
+
+	private static String[][] cells(ProgramSchedule schedule) {
+		var cells = new String[schedule.getNumRows()][schedule.getNumColumns()];
+		for (int t = 0; t < cells.length; t++) {
+			for (int node = 0; node < cells[t].length; node++) {
+				cells[t][node] = schedule.get(t, node);
+			}
+		}
+		return cells;
+	}
+}
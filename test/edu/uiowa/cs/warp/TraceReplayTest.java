@@ -0,0 +1,184 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class TraceReplayTest {
+
+	/* the links of Example.txt: F0 is A -> B -> C and F1 is C -> B -> A */
+	private static final String[][] LINKS = {{"A", "B"}, {"B", "C"}, {"C", "B"}, {"B", "A"}};
+	private static final int A_B = 0;
+	private static final int B_C = 1;
+
+	@TempDir
+	Path directory;
+
+	private Program program;
+	private TransmissionSchedule ts;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		program = SystemFactory.create(new WorkLoad(0.9, 0.99, "Example.txt"), 16,
+				ScheduleChoices.PRIORITY).toProgram();
+		ts = program.getTransmissionSchedule();
+	}
+
+	@Test
+	void replayTest() throws IOException {
+		var numSlots = ts.getNumSlots();
+		var f0 = flow("F0");
+		var f1 = flow("F1");
+		var f0Release = ts.getReleaseTime(f0, 0);
+		var f1Release = ts.getReleaseTime(f1, 0);
+		var firstAB = ts.getLinkAttemptSlots(f0, 0)[0];
+		var firstBC = ts.getLinkAttemptSlots(f0, 1)[0];
+		var firstBA = ts.getLinkAttemptSlots(f1, 1)[0];
+		/*
+		 * run 0: every attempt succeeds; run 1: every attempt fails; run 2: F0's first attempt on
+		 * its last link fails; run 3: F0's first attempt on its first link fails. A partial run
+		 * follows, which isn't replayed.
+		 */
+		var outcomes = new boolean[4 * numSlots + 5][LINKS.length];
+		for (boolean[] slot : outcomes) {
+			Arrays.fill(slot, true);
+		}
+		for (int t = numSlots; t < 2 * numSlots; t++) {
+			Arrays.fill(outcomes[t], false);
+		}
+		outcomes[2 * numSlots + firstBC][B_C] = false;
+		outcomes[3 * numSlots + firstAB][A_B] = false;
+		var file = write(outcomes);
+
+		try (var trace = new LinkTrace(file.toString())) {
+			assertEquals(outcomes.length, trace.getNumSlots());
+			assertEquals(LINKS.length, trace.getNumLinks());
+			var replay = new TraceReplay(program, trace);
+			assertEquals(4, replay.getNumRuns());
+			assertEquals(3, replay.getDeliveries(f0, 0), "F0 deliveries");
+			assertEquals(3, replay.getDeliveries(f1, 0), "F1 deliveries");
+			/*
+			 * Tests that a message received in a slot is forwarded starting in the next slot: when the
+			 * first attempt on A -> B fails, the pull in the next slot delivers it to B, which pushes
+			 * it to C one slot later
+			 */
+			assertEquals(firstBC + 1, ts.getLinkAttemptSlots(f0, 1)[1], "F0 has no second B -> C");
+			assertEquals(firstBC + 1 - f0Release + 1, replay.getMaxLatency(f0, 0), "F0 latency");
+			assertEquals(firstBA - f1Release + 1, replay.getMaxLatency(f1, 0), "F1 latency");
+		}
+	}
+
+	@Test
+	void allSuccessesTest() throws IOException {
+		var outcomes = new boolean[ts.getNumSlots()][LINKS.length];
+		for (boolean[] slot : outcomes) {
+			Arrays.fill(slot, true);
+		}
+		try (var trace = new LinkTrace(write(outcomes).toString())) {
+			var replay = new TraceReplay(program, trace);
+			for (int f = 0; f < ts.getNumFlows(); f++) {
+				// with no failures each hop is made by its first attempt
+				var lastHop = ts.getFlowLength(f) - 2;
+				var expected = ts.getLinkAttemptSlots(f, lastHop)[0] - ts.getReleaseTime(f, 0) + 1;
+				assertEquals(1, replay.getDeliveries(f, 0));
+				assertEquals(expected, replay.getMaxLatency(f, 0));
+			}
+		}
+	}
+
+	@Test
+	void allFailuresTest() throws IOException {
+		var outcomes = new boolean[2 * ts.getNumSlots()][LINKS.length];
+		try (var trace = new LinkTrace(write(outcomes).toString())) {
+			var replay = new TraceReplay(program, trace);
+			assertEquals(2, replay.getNumRuns());
+			for (int f = 0; f < ts.getNumFlows(); f++) {
+				assertEquals(0, replay.getDeliveries(f, 0));
+				assertEquals(0, replay.getMaxLatency(f, 0));
+			}
+		}
+	}
+
+	@Test
+	void badFilesTest() throws IOException {
+		var outcomes = new boolean[ts.getNumSlots()][LINKS.length];
+		var bytes = Files.readAllBytes(write(outcomes));
+		var file = directory.resolve("Bad" + LinkTrace.SUFFIX);
+
+		Files.write(file, Arrays.copyOf(bytes, 20)); // in the fixed header
+		assertThrows(IOException.class, () -> new LinkTrace(file.toString()));
+		Files.write(file, Arrays.copyOf(bytes, 40)); // in the link names
+		assertThrows(IOException.class, () -> new LinkTrace(file.toString()));
+		Files.write(file, Arrays.copyOf(bytes, bytes.length - 1)); // in the outcomes
+		assertThrows(IOException.class, () -> new LinkTrace(file.toString()));
+
+		var badMagic = bytes.clone();
+		badMagic[0] = 'X';
+		Files.write(file, badMagic);
+		assertThrows(IOException.class, () -> new LinkTrace(file.toString()));
+
+		var badName = bytes.clone(); // the first name is longer than the names
+		ByteBuffer.wrap(badName).order(ByteOrder.LITTLE_ENDIAN).putInt(32, 1000);
+		Files.write(file, badName);
+		assertThrows(IOException.class, () -> new LinkTrace(file.toString()));
+	}
+
+	private int flow(String name) {
+		for (int f = 0; f < ts.getNumFlows(); f++) {
+			if (ts.getFlowName(f).equals(name)) {
+				return f;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	/* writes a version 1 trace of LINKS with outcomes[slot][link] */
+	private Path write(boolean[][] outcomes) throws IOException {
+		var names = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+		for (String[] link : LINKS) {
+			for (String node : link) {
+				var name = node.getBytes(StandardCharsets.UTF_8);
+				names.putInt(name.length).put(name);
+			}
+		}
+		var dataOffset = (32 + names.position() + 7) / 8 * 8;
+		var bytesPerSlot = (LINKS.length + 7) / 8;
+		var buffer = ByteBuffer.allocate(dataOffset + outcomes.length * bytesPerSlot)
+				.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.put(new byte[] {'W', 'T', 'R', 'C'}).putInt(1).putInt(LINKS.length).putInt(0)
+				.putLong(outcomes.length).putLong(dataOffset);
+		buffer.put(names.flip());
+		buffer.position(dataOffset);
+		for (boolean[] slot : outcomes) {
+			var bitmap = new byte[bytesPerSlot];
+			for (int link = 0; link < slot.length; link++) {
+				if (slot[link]) {
+					bitmap[link / 8] |= 1 << (link % 8);
+				}
+			}
+			buffer.put(bitmap);
+		}
+		var file = Files.createTempFile(directory, "trace", LinkTrace.SUFFIX);
+		try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+		return file;
+	}
+}
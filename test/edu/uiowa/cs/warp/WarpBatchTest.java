@@ -0,0 +1,42 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WarpBatchTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void syntaxErrorFailsTest() throws IOException {
+		var batch = Files.createDirectory(directory.resolve("batch"));
+		var output = directory.resolve("output");
+		Files.writeString(batch.resolve("Bad.txt"),
+				"G {\nF0 (1, 10, 10, 0) : A -> B\nF1 (2, 20, 20, 0) : C -> $ D\n}\n");
+		Files.writeString(batch.resolve("Good.txt"),
+				"G {\nF0 (1, 10, 10, 0) : A -> B\nF1 (2, 20, 20, 0) : C -> D\n}\n");
+		Warp.setWarpParameters(new String[] {"-b", batch.toString(), "-o", output.toString()});
+
+		var numFailed = new WarpBatch(batch.toString(), 2, output.toString()).run();
+		/*
+		 * Tests that a workload with a syntax error is reported as failed instead of scheduling the
+		 * flows before the error
+		 */
+		assertEquals(1, numFailed);
+		var rows = Files.readAllLines(output.resolve("BatchSummary.txt"));
+		var bad = rows.stream().filter(row -> row.contains("Bad.txt")).toList();
+		assertEquals(1, bad.size());
+		assertTrue(bad.get(0).endsWith("FAILED: parse error (see the log)"), bad.get(0));
+		var good = rows.stream().filter(row -> row.contains("Good.txt")).toList();
+		assertEquals(1, good.size());
+		assertTrue(good.get(0).endsWith("OK"), good.get(0));
+		assertTrue(rows.get(rows.size() - 1).startsWith("// 2 workloads, 1 failed"));
+	}
+}
@@ -0,0 +1,83 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.warp.SystemAttributes.ScheduleChoices;
+
+public class WarpServerTest {
+
+	private static final String EXAMPLE = "Example {\nF0: A -> B -> C\nF1: C -> B -> A\n}\n";
+	private static final String OTHER = "Other {\nF0: A -> B\n}\n";
+
+	private WarpServer server;
+	private HttpClient client;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		var defaults = new WarpServer.Parameters(0.9, 0.99, 0, 16, ScheduleChoices.PRIORITY, false);
+		server = new WarpServer(0, 1, defaults); // any free port, one workload and result cached
+		server.start();
+		client = HttpClient.newHttpClient();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop();
+	}
+
+	@Test
+	void cacheTest() throws Exception {
+		var first = post(EXAMPLE, "");
+		assertEquals(200, first.statusCode(), first.body());
+		assertEquals("miss", first.headers().firstValue("X-Warp-Cache").orElse(null));
+		var second = post(EXAMPLE, "");
+		assertEquals(200, second.statusCode(), second.body());
+		assertEquals("hit", second.headers().firstValue("X-Warp-Cache").orElse(null));
+		assertEquals(first.body(), second.body());
+	}
+
+	@Test
+	void badRequestsTest() throws Exception {
+		var response = post("Example {\nF0: A -> $ B\n}\n", "");
+		assertEquals(400, response.statusCode(), "Malformed workload");
+		assertTrue(response.body().contains("can't be parsed"), response.body());
+		assertEquals(400, post(EXAMPLE, "m=2").statusCode(), "m out of range");
+		assertEquals(400, post(EXAMPLE, "scheduler=fifo").statusCode(), "Unknown scheduler");
+		assertEquals(0, numPostedFiles(), "Files of rejected workloads were kept");
+	}
+
+	@Test
+	void evictionDeletesFileTest() throws Exception {
+		assertEquals(200, post(EXAMPLE, "").statusCode());
+		assertEquals(1, numPostedFiles());
+		// caching the other workload evicts the example and its file
+		assertEquals(200, post(OTHER, "").statusCode());
+		assertEquals(1, numPostedFiles(), "The file of the evicted workload was kept");
+		assertEquals(200, post(OTHER, "e2e=0.9").statusCode());
+		assertEquals(1, numPostedFiles(), "The file of the evicted workload was kept");
+	}
+
+	private HttpResponse<String> post(String workLoad, String query) throws Exception {
+		var uri = URI.create("http://localhost:" + server.getPort() + "/analyze?" + query);
+		var request = HttpRequest.newBuilder(uri).POST(HttpRequest.BodyPublishers.ofString(workLoad))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private long numPostedFiles() throws IOException {
+		try (var files = Files.list(server.getWorkLoadDirectory())) {
+			return files.filter(Files::isRegularFile).count();
+		}
+	}
+}
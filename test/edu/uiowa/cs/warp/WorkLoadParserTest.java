@@ -0,0 +1,208 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.uiowa.cs.warpdsls.WARPBaseListener;
+import edu.uiowa.cs.warpdsls.WARPLexer;
+import edu.uiowa.cs.warpdsls.WARPParser;
+
+public class WorkLoadParserTest {
+
+	private static final String[] EXAMPLE_INPUTS = {"Example.txt", "Example1a.txt", "Example2.txt",
+			"Example3.txt", "Example4.txt", "ExampleX.txt", "IPSN2021figure2.txt",
+			"IPSN2021figure4.txt", "LongChain.txt", "Preempt1.txt", "SeeSpray.txt", "StressTest.txt",
+			"StressTest4.txt", "Test1.txt", "WARP-INDRIYA-MIX.txt", "WARP-WASHU-MIX.txt",
+			"WARP_MIX_Schedule0-WarpInput.txt", "WARP_MIX_Schedule1-WarpInput.txt"};
+
+	private static final String TWO_FLOWS =
+			"G {\n  F0 (1, 10, 10, 0) : A -> B -> C\n  F1 (2, 20, 15, 3) : C -> B\n}\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void exampleInputsMatchAntlrParseTest() throws IOException {
+		for (String input : EXAMPLE_INPUTS) {
+			var workLoad = new WorkLoad(0.9, 0.99, input);
+			assertTrue(workLoad.isParsed(), input + " was not parsed");
+			/*
+			 * Tests that the workload built by WorkLoadParser is the workload the ANTLR listener
+			 * it replaced builds from the same file
+			 */
+			assertEquals(describe(antlrParse(input)), describe(workLoad),
+					"Parse of " + input + " differs from the ANTLR parse");
+		}
+	}
+
+	@Test
+	void missingCommaTest() throws IOException {
+		var workLoad = parse("G {\nF0 (1, 10, 10, 0) : A -> B\nF1 (2, 10 10, 0) : B -> C\n}\n");
+		assertFalse(workLoad.isParsed(), "Missing ',' was not reported");
+		// the flows before the error are kept
+		assertEquals(List.of("F0"), workLoad.getFlowNamesInOriginalOrder());
+	}
+
+	@Test
+	void unterminatedFlowTest() throws IOException {
+		var workLoad = parse("G {\nF0 (1, 10, 10, 0) : A -> B\nF1 (2, 10, 10, 0) : B ->\n}\n");
+		assertFalse(workLoad.isParsed(), "Flow ending with '->' was not reported");
+		assertEquals(List.of("F0"), workLoad.getFlowNamesInOriginalOrder());
+	}
+
+	@Test
+	void unterminatedWorkLoadTest() throws IOException {
+		var workLoad = parse("G {\nF0 (1, 10, 10, 0) : A -> B\n");
+		assertFalse(workLoad.isParsed(), "Missing '}' was not reported");
+		assertEquals(List.of("F0"), workLoad.getFlowNamesInOriginalOrder());
+	}
+
+	@Test
+	void badNumberTest() throws IOException {
+		var workLoad = parse("G {\nF0 (1, 10, 10, 0) : A -> B\nF1 (2, 1O, 10, 0) : B -> C\n}\n");
+		assertFalse(workLoad.isParsed(), "Period '1O' was not reported");
+		assertEquals(List.of("F0"), workLoad.getFlowNamesInOriginalOrder());
+	}
+
+	@Test
+	void numberTooLargeTest() throws IOException {
+		var workLoad = parse("G {\nF0 (1, 99999999999, 10, 0) : A -> B\n}\n");
+		assertFalse(workLoad.isParsed(), "Period larger than an int was not reported");
+		assertTrue(workLoad.getFlowNamesInOriginalOrder().isEmpty());
+	}
+
+	@Test
+	void whiteSpaceTest() throws IOException {
+		var expected = describe(parse(TWO_FLOWS));
+		// tabs, CR LF line ends, blank lines, and no spaces at all parse the same
+		var spaced = parse("\n\tG\t{\r\n\r\n\tF0\t(1,\t10 ,10, 0)\t:\tA->B ->\tC\r\n"
+				+ "\n\n   F1 ( 2 , 20 , 15 , 3 ) : C   ->   B\r\n}\r\n\n");
+		var compact = parse("G{F0(1,10,10,0):A->B->C F1(2,20,15,3):C->B}");
+		assertTrue(spaced.isParsed());
+		assertTrue(compact.isParsed());
+		assertEquals(expected, describe(spaced), "White space changed the parse");
+		assertEquals(expected, describe(compact), "Missing white space changed the parse");
+	}
+
+	@Test
+	void commentTest() throws IOException {
+		/*
+		 * The WARP grammar has no comments, so a comment is a syntax error, as it was for the
+		 * ANTLR parser. The flows before it are kept.
+		 */
+		var workLoad = parse("G {\nF0 (1, 10, 10, 0) : A -> B\n// F1 (2, 10, 10, 0) : B -> C\n}\n");
+		assertFalse(workLoad.isParsed(), "Comment was not reported");
+		assertEquals(List.of("F0"), workLoad.getFlowNamesInOriginalOrder());
+		workLoad = parse("/* G */ G {\nF0 (1, 10, 10, 0) : A -> B\n}\n");
+		assertFalse(workLoad.isParsed(), "Comment was not reported");
+		assertTrue(workLoad.getFlowNamesInOriginalOrder().isEmpty());
+	}
+
+	@Test
+	void flowWithoutParametersTest() throws IOException {
+		var workLoad = parse("G {\nF0 : A -> B -> C\nF1 (2, 20, 15, 3) : C -> B\n}\n");
+		assertTrue(workLoad.isParsed());
+		assertEquals(List.of("F0", "F1"), workLoad.getFlowNamesInOriginalOrder());
+		var nodes = new ArrayList<String>();
+		for (Node node : workLoad.getFlows().get("F0").getNodes()) {
+			nodes.add(node.getName());
+		}
+		assertEquals(List.of("A", "B", "C"), nodes);
+		assertEquals(15, workLoad.getFlowDeadline("F1"));
+		assertEquals(3, workLoad.getFlowPhase("F1"));
+	}
+
+	private WorkLoad parse(String description) throws IOException {
+		var file = Files.createTempFile(directory, "workload", ".txt");
+		Files.writeString(file, description);
+		return new WorkLoad(0.9, 0.99, file.toString());
+	}
+
+	/* the name, flows, and Tx attempts per link of a workload */
+	private static List<String> describe(WorkLoad workLoad) {
+		var description = new ArrayList<String>();
+		description.add(workLoad.getName());
+		for (String flowName : workLoad.getFlowNamesInOriginalOrder()) {
+			description.add(WorkLoad.flowDefinition(workLoad.getFlows().get(flowName))
+					+ Arrays.toString(workLoad.getNumTxAttemptsPerLink(flowName)));
+		}
+		description.add(Arrays.toString(workLoad.getNodeNamesOrderedAlphabetically()));
+		return description;
+	}
+
+	/* builds the workload of a file with the ANTLR WARP parser, as WorkLoadListener did */
+	private WorkLoad antlrParse(String input) throws IOException {
+		var workLoad = parse(""); // no flows
+		var parser = new WARPParser(new CommonTokenStream(new WARPLexer(CharStreams.fromFileName(input))));
+		new ParseTreeWalker().walk(new AntlrListener(workLoad), parser.warp());
+		return workLoad;
+	}
+
+	private static final class AntlrListener extends WARPBaseListener {
+
+		private final WorkLoad workLoad;
+		private String currentFlow;
+
+		AntlrListener(WorkLoad workLoad) {
+			this.workLoad = workLoad;
+		}
+
+		@Override
+		public void enterWarpName(WARPParser.WarpNameContext ctx) {
+			workLoad.setName(ctx.getText());
+		}
+
+		@Override
+		public void enterFlowName(WARPParser.FlowNameContext ctx) {
+			currentFlow = ctx.getText();
+			workLoad.addFlow(currentFlow);
+		}
+
+		@Override
+		public void exitPriority(WARPParser.PriorityContext ctx) {
+			workLoad.setFlowPriority(currentFlow, Integer.parseInt(ctx.getText()));
+		}
+
+		@Override
+		public void exitPeriod(WARPParser.PeriodContext ctx) {
+			workLoad.setFlowPeriod(currentFlow, Integer.parseInt(ctx.getText()));
+		}
+
+		@Override
+		public void exitDeadline(WARPParser.DeadlineContext ctx) {
+			workLoad.setFlowDeadline(currentFlow, Integer.parseInt(ctx.getText()));
+		}
+
+		@Override
+		public void exitPhase(WARPParser.PhaseContext ctx) {
+			workLoad.setFlowPhase(currentFlow, Integer.parseInt(ctx.getText()));
+		}
+
+		@Override
+		public void exitSrcNode(WARPParser.SrcNodeContext ctx) {
+			workLoad.addNodeToFlow(currentFlow, ctx.getText());
+		}
+
+		@Override
+		public void exitSnkNode(WARPParser.SnkNodeContext ctx) {
+			workLoad.addNodeToFlow(currentFlow, ctx.getText());
+		}
+
+		@Override
+		public void exitFlow(WARPParser.FlowContext ctx) {
+			workLoad.finalizeCurrentFlow(currentFlow);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package edu.uiowa.cs.warp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WorkLoadSnapshotTest {
+
+	private static final FileTime OLD = FileTime.fromMillis(0);
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void roundTripTest() throws IOException {
+		for (String input : new String[] {"Example2.txt", "StressTest4.txt", "LongChain.txt"}) {
+			var parsed = new WorkLoad(1, 0.9, 0.99, input, null, false, directory.toString());
+			var snapshot = WorkLoadSnapshot.snapshotFile(directory.toString(), input);
+			assertTrue(parsed.isParsed());
+			assertTrue(Files.exists(snapshot), "No snapshot of " + input);
+			Files.setLastModifiedTime(snapshot, OLD);
+
+			var loaded = new WorkLoad(1, 0.9, 0.99, input, null, false, directory.toString());
+			assertTrue(loaded.isParsed());
+			// a loaded workload isn't saved again
+			assertEquals(OLD, Files.getLastModifiedTime(snapshot), input + " was parsed again");
+			/*
+			 * Tests that the workload loaded from the snapshot is the workload parsed from the file
+			 */
+			assertEquals(describe(new WorkLoad(1, 0.9, 0.99, input)), describe(loaded),
+					"Snapshot of " + input + " differs from its parse");
+		}
+		try (var files = Files.list(directory)) {
+			assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")),
+					"Temporary files were left behind");
+		}
+	}
+
+	@Test
+	void changedParametersTest() throws IOException {
+		new WorkLoad(1, 0.9, 0.99, "StressTest4.txt", null, false, directory.toString());
+		var snapshot = WorkLoadSnapshot.snapshotFile(directory.toString(), "StressTest4.txt");
+		Files.setLastModifiedTime(snapshot, OLD);
+		// the key includes every parameter the Tx attempts depend on
+		var changed = new WorkLoad(2, 0.8, 0.999, "StressTest4.txt", null, true, directory.toString());
+		assertNotEquals(OLD, Files.getLastModifiedTime(snapshot), "Snapshot was not replaced");
+		assertEquals(describe(new WorkLoad(2, 0.8, 0.999, "StressTest4.txt", null, true)),
+				describe(changed));
+	}
+
+	@Test
+	void changedInputTest() throws IOException {
+		var input = directory.resolve("workload.txt");
+		Files.writeString(input, "G {\nF0 (1, 10, 10, 0) : A -> B -> C\n}\n");
+		new WorkLoad(1, 0.9, 0.99, input.toString(), null, false, directory.toString());
+		Files.writeString(input, "G {\nF0 (1, 10, 10, 0) : A -> B\n}\n");
+		var changed = new WorkLoad(1, 0.9, 0.99, input.toString(), null, false, directory.toString());
+		assertEquals(describe(new WorkLoad(1, 0.9, 0.99, input.toString())), describe(changed),
+				"Snapshot of the old file was loaded");
+	}
+
+	@Test
+	void corruptSnapshotTest() throws IOException {
+		var snapshot = WorkLoadSnapshot.snapshotFile(directory.toString(), "StressTest4.txt");
+		new WorkLoad(1, 0.9, 0.99, "StressTest4.txt", null, false, directory.toString());
+		var bytes = Files.readAllBytes(snapshot);
+		Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2)); // truncated
+		var workLoad = new WorkLoad(1, 0.9, 0.99, "StressTest4.txt", null, false, directory.toString());
+		assertTrue(workLoad.isParsed());
+		assertEquals(describe(new WorkLoad(1, 0.9, 0.99, "StressTest4.txt")), describe(workLoad));
+		assertArrayEquals(bytes, Files.readAllBytes(snapshot), "Snapshot was not replaced");
+	}
+
+	@Test
+	void syntaxErrorNotSavedTest() throws IOException {
+		var input = directory.resolve("bad.txt");
+		Files.writeString(input, "G {\nF0 (1, 10, 10, 0) : A -> B\nF1 (2, 10 10, 0) : B -> C\n}\n");
+		var workLoad = new WorkLoad(1, 0.9, 0.99, input.toString(), null, false, directory.toString());
+		assertFalse(workLoad.isParsed());
+		assertFalse(Files.exists(WorkLoadSnapshot.snapshotFile(directory.toString(), input.toString())),
+				"Snapshot of a workload with a syntax error was saved");
+	}
+
+	/* the name, flows, and Tx attempts per link of a workload */
+	private static List<String> describe(WorkLoad workLoad) {
+		var description = new ArrayList<String>();
+		description.add(workLoad.getName());
+		for (String flowName : workLoad.getFlowNamesInOriginalOrder()) {
+			description.add(WorkLoad.flowDefinition(workLoad.getFlows().get(flowName))
+					+ Arrays.toString(workLoad.getNumTxAttemptsPerLink(flowName))
+					+ workLoad.getTotalTxAttemptsInFlow(flowName));
+		}
+		description.add(Arrays.toString(workLoad.getNodeNamesOrderedAlphabetically()));
+		return description;
+	}
+}